@@ -88,6 +88,10 @@ public abstract class BaseFragment<T> extends Fragment {
         this.mViewAdapter = mViewAdapter;
     }
 
+    public RecyclerView getRecyclerView() {
+        return mRecyclerView;
+    }
+
     public BaseRecyclerViewAdapter<T> getRecyclerViewAdapter() {
         return mViewAdapter;
     }
@@ -8,6 +8,7 @@ import com.jamieadkins.gwent.data.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -21,6 +22,9 @@ public class CardFilter {
 
     private boolean mCollectibleOnly = false;
 
+    // Cleared whenever the filter changes.
+    private CompiledCardFilter mCompiledFilter;
+
     public CardFilter() {
         mSearchQuery = null;
         mFilters = new HashMap<>();
@@ -39,6 +43,17 @@ public class CardFilter {
         }
     }
 
+    /**
+     * Copies another filter, so that it can be used as a cache key without being changed.
+     */
+    public CardFilter(CardFilter filter) {
+        mSearchQuery = filter.mSearchQuery;
+        mFilters = new HashMap<>(filter.mFilters);
+        mCardIds = filter.mCardIds != null ? new ArrayList<>(filter.mCardIds) : null;
+        mCollectibleOnly = filter.mCollectibleOnly;
+        mCompiledFilter = filter.mCompiledFilter;
+    }
+
     public String getSearchQuery() {
         return mSearchQuery;
     }
@@ -52,6 +67,7 @@ public class CardFilter {
     }
 
     public void clearFilters() {
+        mCompiledFilter = null;
         for (String faction : mFilters.keySet()) {
             mFilters.put(faction, true);
         }
@@ -66,10 +82,12 @@ public class CardFilter {
     }
 
     public void put(String key, boolean filter) {
+        mCompiledFilter = null;
         mFilters.put(key, filter);
     }
 
     public void addCardId(String cardId) {
+        mCompiledFilter = null;
         if (mCardIds == null) {
             mCardIds = new ArrayList<>();
         }
@@ -77,13 +95,72 @@ public class CardFilter {
         mCardIds.add(cardId);
     }
 
+    public List<String> getCardIds() {
+        return mCardIds;
+    }
+
+    /**
+     * @return an immutable copy of this filter that is cheap to test cards against.
+     */
+    public CompiledCardFilter compile() {
+        if (mCompiledFilter == null) {
+            mCompiledFilter = new CompiledCardFilter(this);
+        }
+        return mCompiledFilter;
+    }
+
     public boolean doesCardMeetFilter(CardDetails card) {
-        if (mCardIds != null) {
-            // If there are card ids specified, use them only.
-            return mCardIds.contains(card.getIngameId());
-        } else {
-            return get(card.getFaction()) && get(card.getRarity())
-                    && get(card.getType()) && card.isReleased();
+        return compile().doesCardMeetFilter(card);
+    }
+
+    /**
+     * Two filters are equal if they always return the same cards. Search is case insensitive
+     * and ignores extra whitespace, keys that aren't a faction, rarity or type are ignored and
+     * card ids are treated as a set.
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof CardFilter)) {
+            return false;
+        }
+
+        CardFilter other = (CardFilter) object;
+        String searchQuery = normaliseSearchQuery(mSearchQuery);
+        String otherSearchQuery = normaliseSearchQuery(other.mSearchQuery);
+        return mCollectibleOnly == other.mCollectibleOnly
+                && (searchQuery == null ? otherSearchQuery == null : searchQuery.equals(otherSearchQuery))
+                && compile().equals(other.compile());
+    }
+
+    @Override
+    public int hashCode() {
+        String searchQuery = normaliseSearchQuery(mSearchQuery);
+        int result = compile().hashCode();
+        result = 31 * result + (searchQuery != null ? searchQuery.hashCode() : 0);
+        result = 31 * result + (mCollectibleOnly ? 1 : 0);
+        return result;
+    }
+
+    /**
+     * @return the query in lower case with single spaces between words, or null if empty.
+     */
+    private static String normaliseSearchQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder(query.length());
+        for (String word : query.trim().split("\\s+")) {
+            if (!word.isEmpty()) {
+                if (builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(word.toLowerCase(Locale.ENGLISH));
+            }
         }
+        return builder.length() > 0 ? builder.toString() : null;
     }
 }
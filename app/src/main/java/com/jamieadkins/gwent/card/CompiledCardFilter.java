@@ -0,0 +1,111 @@
+package com.jamieadkins.gwent.card;
+
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.Faction;
+import com.jamieadkins.gwent.data.Rarity;
+import com.jamieadkins.gwent.data.Type;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of a {@link CardFilter}, packed into bit masks.
+ *
+ * Every card gets an int with one bit set for its faction, one for its rarity and one for its
+ * type (see {@link CardDetails#getFilterBits()}). Checking a card is then three ANDs against the
+ * masks here, with no map lookups, boxing or iterators.
+ */
+
+public final class CompiledCardFilter {
+    private static final int FACTION_SHIFT = 0;
+    private static final int RARITY_SHIFT = 8;
+    private static final int TYPE_SHIFT = 16;
+    public static final int RELEASED_BIT = 1 << 24;
+
+    private final int mFactions;
+    private final int mRarities;
+    private final int mTypes;
+    private final Set<String> mCardIds;
+
+    CompiledCardFilter(CardFilter filter) {
+        mFactions = getMask(filter, Faction.ALL_FACTIONS, Faction.CONVERT_STRING, FACTION_SHIFT);
+        mRarities = getMask(filter, Rarity.ALL_RARITIES, Rarity.CONVERT_STRING, RARITY_SHIFT);
+        mTypes = getMask(filter, Type.ALL_TYPES, Type.CONVERT_STRING, TYPE_SHIFT);
+
+        List<String> cardIds = filter.getCardIds();
+        mCardIds = cardIds != null ? Collections.unmodifiableSet(new HashSet<>(cardIds)) : null;
+    }
+
+    public boolean doesCardMeetFilter(CardDetails card) {
+        if (mCardIds != null) {
+            // If there are card ids specified, use them only.
+            return mCardIds.contains(card.getIngameId());
+        }
+        return matches(card.getFilterBits());
+    }
+
+    /**
+     * @param cardBits bits from {@link #getCardBits(String, String, String, boolean)}
+     */
+    public boolean matches(int cardBits) {
+        return (cardBits & mFactions) != 0
+                && (cardBits & mRarities) != 0
+                && (cardBits & mTypes) != 0
+                && (cardBits & RELEASED_BIT) != 0;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof CompiledCardFilter)) {
+            return false;
+        }
+
+        CompiledCardFilter other = (CompiledCardFilter) object;
+        return mFactions == other.mFactions
+                && mRarities == other.mRarities
+                && mTypes == other.mTypes
+                && (mCardIds == null ? other.mCardIds == null : mCardIds.equals(other.mCardIds));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mFactions;
+        result = 31 * result + mRarities;
+        result = 31 * result + mTypes;
+        result = 31 * result + (mCardIds != null ? mCardIds.hashCode() : 0);
+        return result;
+    }
+
+    /**
+     * Packs the filterable attributes of a card into an int. Unknown values set no bit, so a
+     * card with an unknown faction, rarity or type never meets a filter.
+     */
+    public static int getCardBits(String faction, String rarity, String type, boolean released) {
+        return getBit(Faction.CONVERT_STRING, faction, FACTION_SHIFT)
+                | getBit(Rarity.CONVERT_STRING, rarity, RARITY_SHIFT)
+                | getBit(Type.CONVERT_STRING, type, TYPE_SHIFT)
+                | (released ? RELEASED_BIT : 0);
+    }
+
+    private static int getBit(Map<String, Integer> ordinals, String key, int shift) {
+        Integer ordinal = key != null ? ordinals.get(key) : null;
+        return ordinal != null ? 1 << (ordinal + shift) : 0;
+    }
+
+    private static int getMask(CardFilter filter, String[] keys,
+                               Map<String, Integer> ordinals, int shift) {
+        int mask = 0;
+        for (String key : keys) {
+            if (filter.get(key)) {
+                mask |= getBit(ordinals, key, shift);
+            }
+        }
+        return mask;
+    }
+}
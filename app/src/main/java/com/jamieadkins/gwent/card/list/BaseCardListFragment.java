@@ -9,10 +9,17 @@ import com.jamieadkins.gwent.base.BaseFragment;
 import com.jamieadkins.gwent.card.CardFilter;
 import com.jamieadkins.gwent.card.CardFilterListener;
 import com.jamieadkins.gwent.card.CardFilterProvider;
+import com.jamieadkins.gwent.card.CompiledCardFilter;
 import com.jamieadkins.gwent.data.CardDetails;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.DisposableObserver;
 import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
 
 /**
  * UI fragment that shows a list of the users decks.
@@ -23,6 +30,14 @@ public abstract class BaseCardListFragment extends BaseFragment<CardDetails>
     private CardsContract.Presenter mCardsPresenter;
     private boolean mDataLoaded = false;
 
+    // Every card for the current search, before faction, rarity and type filters are applied.
+    private List<CardDetails> mLoadedCards;
+    private String mLoadedSearchQuery;
+
+    private final PublishSubject<String> mSearchQueries = PublishSubject.create();
+    private Disposable mSearchSubscription;
+    private Disposable mLoadSubscription;
+
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
@@ -39,25 +54,125 @@ public abstract class BaseCardListFragment extends BaseFragment<CardDetails>
         if (!mDataLoaded) {
             onLoadData();
         }
+
+        if (mCardsPresenter != null) {
+            mSearchSubscription = mCardsPresenter.searchCards(mSearchQueries)
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribeWith(new DisposableObserver<CardSearch.Results>() {
+                        @Override
+                        public void onNext(CardSearch.Results value) {
+                            mLoadedCards = value.getCards();
+                            mLoadedSearchQuery = value.getQuery();
+                            applyCardFilter();
+                        }
+
+                        @Override
+                        public void onError(Throwable e) {
+
+                        }
+
+                        @Override
+                        public void onComplete() {
+
+                        }
+                    });
+        }
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        if (mSearchSubscription != null) {
+            mSearchSubscription.dispose();
+            mSearchSubscription = null;
+        }
+        if (mLoadSubscription != null) {
+            mLoadSubscription.dispose();
+            mLoadSubscription = null;
+            if (mLoadedCards == null) {
+                // It hadn't finished, so load again when we start.
+                mDataLoaded = false;
+            }
+        }
     }
 
     @Override
     public void onCardFilterUpdated() {
-        getRecyclerViewAdapter().clear();
-        onLoadData();
+        String searchQuery = ((CardFilterProvider) getActivity()).getCardFilter().getSearchQuery();
+        if (mLoadedCards == null) {
+            onLoadData();
+        } else if (isSameQuery(searchQuery, mLoadedSearchQuery)) {
+            // Only the filters have changed, so we already have every card we need.
+            applyCardFilter();
+        } else {
+            // Results come back through the search subscription, which also says which query
+            // they are for.
+            mSearchQueries.onNext(searchQuery != null ? searchQuery : "");
+        }
     }
 
     @Override
     public void onLoadData() {
         super.onLoadData();
-        CardFilter cardFilter = ((CardFilterProvider) getActivity()).getCardFilter();
-        mCardsPresenter.getCards(cardFilter)
+        final String searchQuery =
+                ((CardFilterProvider) getActivity()).getCardFilter().getSearchQuery();
+
+        // Load every card for the search, so that filters can be changed without reloading.
+        CardFilter searchFilter = new CardFilter();
+        searchFilter.setSearchQuery(searchQuery);
+        // A filter change can ask again before the first load is back, only keep the latest.
+        if (mLoadSubscription != null) {
+            mLoadSubscription.dispose();
+        }
+        mLoadSubscription = mCardsPresenter.getCardList(searchFilter)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(getObserver());
+                .subscribeWith(new DisposableObserver<List<CardDetails>>() {
+                    @Override
+                    public void onNext(List<CardDetails> value) {
+                        mLoadedCards = value;
+                        mLoadedSearchQuery = searchQuery;
+                        applyCardFilter();
+                        setLoading(false);
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        // The card data went away before it loaded, try again next time.
+                        mDataLoaded = false;
+                        setLoading(false);
+                    }
+
+                    @Override
+                    public void onComplete() {
+
+                    }
+                });
         mDataLoaded = true;
     }
 
+    /**
+     * Filters the loaded cards and hands the adapter just the rows that have changed.
+     */
+    private void applyCardFilter() {
+        CompiledCardFilter filter =
+                ((CardFilterProvider) getActivity()).getCardFilter().compile();
+        List<CardDetails> cards = new ArrayList<>();
+        for (CardDetails card : mLoadedCards) {
+            if (filter.doesCardMeetFilter(card)) {
+                cards.add(card);
+            }
+        }
+        getRecyclerViewAdapter().setItems(cards);
+    }
+
+    /**
+     * No query and an empty one both mean every card.
+     */
+    private static boolean isSameQuery(String first, String second) {
+        return (first != null ? first : "").equals(second != null ? second : "");
+    }
+
     public void setCardsPresenter(CardsContract.Presenter cardsPresenter) {
         mCardsPresenter = cardsPresenter;
     }
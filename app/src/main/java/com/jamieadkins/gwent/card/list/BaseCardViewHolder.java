@@ -11,6 +11,7 @@ import com.jamieadkins.gwent.R;
 import com.jamieadkins.gwent.card.SimpleCardView;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.FirebaseUtils;
+import com.jamieadkins.gwent.data.Patch;
 import com.jamieadkins.gwent.card.detail.DetailActivity;
 
 /**
@@ -19,6 +20,9 @@ import com.jamieadkins.gwent.card.detail.DetailActivity;
 
 public class BaseCardViewHolder extends BaseViewHolder<CardDetails> {
     private final SimpleCardView mSimpleCardView;
+    // The patch the list is showing. A card can be shared by several patches, so its own patch
+    // isn't necessarily this one.
+    private String mPatch = Patch.DEFAULT;
 
     public BaseCardViewHolder(View view) {
         super(view);
@@ -38,10 +42,14 @@ public class BaseCardViewHolder extends BaseViewHolder<CardDetails> {
         });
     }
 
+    public void setPatch(String patch) {
+        mPatch = patch;
+    }
+
     public void launchDetailActivity() {
         Intent intent = new Intent(getView().getContext(), DetailActivity.class);
         intent.putExtra(DetailActivity.EXTRA_CARD_ID, getBoundItem().getIngameId());
-        intent.putExtra(DetailActivity.EXTRA_PATCH, getBoundItem().getPatch());
+        intent.putExtra(DetailActivity.EXTRA_PATCH, mPatch);
 
         String transitionName = getView().getContext().getString(R.string.transition_card);
 
@@ -10,6 +10,7 @@ import com.jamieadkins.gwent.R;
  */
 
 public class CardListFragment extends BaseCardListFragment implements CardsContract.View {
+    private CardsContract.Presenter mPresenter;
 
     public CardListFragment() {
     }
@@ -33,5 +34,12 @@ public class CardListFragment extends BaseCardListFragment implements CardsContr
     @Override
     public void setPresenter(CardsContract.Presenter presenter) {
         setCardsPresenter(presenter);
+        mPresenter = presenter;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        mPresenter.stop();
     }
 }
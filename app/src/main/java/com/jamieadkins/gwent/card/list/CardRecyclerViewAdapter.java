@@ -4,8 +4,10 @@ import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import com.jamieadkins.commonutils.ui.BaseRecyclerViewAdapter;
+import com.jamieadkins.commonutils.ui.BaseViewHolder;
 import com.jamieadkins.gwent.R;
 import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.Patch;
 
 /**
  * RecyclerViewAdapter that shows a list of cards.
@@ -13,6 +15,7 @@ import com.jamieadkins.gwent.data.CardDetails;
 
 public class CardRecyclerViewAdapter extends BaseRecyclerViewAdapter<CardDetails> {
     private Detail mDetail;
+    private String mPatch = Patch.DEFAULT;
 
     public enum Detail {
         SMALL,
@@ -29,6 +32,19 @@ public class CardRecyclerViewAdapter extends BaseRecyclerViewAdapter<CardDetails
         mDetail = Detail.SMALL;
     }
 
+    /**
+     * @param patch the cards are from, which their details are shown for.
+     */
+    public void setPatch(String patch) {
+        mPatch = patch;
+    }
+
+    @Override
+    public void onBindViewHolder(BaseViewHolder<CardDetails> holder, int position) {
+        super.onBindViewHolder(holder, position);
+        ((BaseCardViewHolder) holder).setPatch(mPatch);
+    }
+
     @Override
     public BaseCardViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         switch (mDetail) {
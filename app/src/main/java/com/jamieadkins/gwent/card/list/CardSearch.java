@@ -0,0 +1,124 @@
+package com.jamieadkins.gwent.card.list;
+
+import com.jamieadkins.gwent.card.CardFilter;
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.interactor.CardsInteractor;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+
+/**
+ * Turns a stream of search queries, one per keystroke, into a stream of search results.
+ *
+ * Queries are debounced, and a new query cancels the one in flight so old results can never
+ * arrive after new ones. If a query just extends the last one, e.g. "gera" then "geral", only
+ * the last results are searched as nothing else can match.
+ */
+
+public class CardSearch {
+    public static final long DEBOUNCE_MILLISECONDS = 250;
+
+    private final CardsInteractor mCardsInteractor;
+    private String mLastQuery;
+    private List<CardDetails> mLastResults;
+
+    public CardSearch(CardsInteractor cardsInteractor) {
+        mCardsInteractor = cardsInteractor;
+    }
+
+    /**
+     * @param queries search queries as they are typed. An empty query means every card.
+     * @return every card matching the latest query, best match first, with the query.
+     */
+    public Observable<Results> search(Observable<String> queries) {
+        return queries
+                .debounce(DEBOUNCE_MILLISECONDS, TimeUnit.MILLISECONDS)
+                .distinctUntilChanged()
+                .switchMap(new Function<String, ObservableSource<Results>>() {
+                    @Override
+                    public ObservableSource<Results> apply(final String query) throws Exception {
+                        return getResults(query)
+                                .map(new Function<List<CardDetails>, Results>() {
+                                    @Override
+                                    public Results apply(List<CardDetails> cards) throws Exception {
+                                        return new Results(query, cards);
+                                    }
+                                });
+                    }
+                });
+    }
+
+    private Observable<List<CardDetails>> getResults(final String query) {
+        final CardFilter filter = new CardFilter();
+        filter.setSearchQuery(query.isEmpty() ? null : query);
+
+        final List<CardDetails> previousResults = getRefinableResults(query);
+        Observable<List<CardDetails>> results;
+        if (previousResults != null) {
+            results = mCardsInteractor.getCardList(filter, previousResults)
+                    .switchMap(new Function<List<CardDetails>, ObservableSource<List<CardDetails>>>() {
+                        @Override
+                        public ObservableSource<List<CardDetails>> apply(List<CardDetails> cards) throws Exception {
+                            // Close matches are only looked for among the last results. If
+                            // there aren't even any of those, other cards may still be close.
+                            return cards.isEmpty() ? mCardsInteractor.getCardList(filter, null) : Observable.just(cards);
+                        }
+                    });
+        } else {
+            results = mCardsInteractor.getCardList(filter, null);
+        }
+
+        return results.doOnNext(new Consumer<List<CardDetails>>() {
+            @Override
+            public void accept(List<CardDetails> cards) throws Exception {
+                onResults(query, cards);
+            }
+        });
+    }
+
+    /**
+     * @return the last results if they are a superset of the results for this query.
+     */
+    private synchronized List<CardDetails> getRefinableResults(String query) {
+        if (mLastQuery == null || mLastQuery.isEmpty() || mLastResults == null
+                || mLastResults.isEmpty()) {
+            return null;
+        }
+
+        String lastQuery = mLastQuery.toLowerCase(Locale.ENGLISH);
+        return query.toLowerCase(Locale.ENGLISH).startsWith(lastQuery) ? mLastResults : null;
+    }
+
+    private synchronized void onResults(String query, List<CardDetails> cards) {
+        mLastQuery = query;
+        mLastResults = cards;
+    }
+
+    /**
+     * The cards found for a query. Queries are debounced and superseded, so results don't
+     * always match the last query sent.
+     */
+    public static class Results {
+        private final String mQuery;
+        private final List<CardDetails> mCards;
+
+        public Results(String query, List<CardDetails> cards) {
+            mQuery = query;
+            mCards = cards;
+        }
+
+        public String getQuery() {
+            return mQuery;
+        }
+
+        public List<CardDetails> getCards() {
+            return mCards;
+        }
+    }
+}
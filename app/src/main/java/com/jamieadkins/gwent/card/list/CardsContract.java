@@ -6,7 +6,7 @@ import com.jamieadkins.gwent.card.CardFilter;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.interactor.RxDatabaseEvent;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import io.reactivex.Observable;
 
@@ -24,5 +24,16 @@ public interface CardsContract {
         void stop();
 
         Observable<RxDatabaseEvent<CardDetails>> getCards(CardFilter cardFilter);
+
+        /**
+         * @return every card that meets the filter, as a single immutable list.
+         */
+        Observable<List<CardDetails>> getCardList(CardFilter cardFilter);
+
+        /**
+         * @param queries search queries as they are typed.
+         * @return cards matching the latest query, with the query they were found for.
+         */
+        Observable<CardSearch.Results> searchCards(Observable<String> queries);
     }
 }
@@ -8,6 +8,8 @@ import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.interactor.CardsInteractor;
 import com.jamieadkins.gwent.data.interactor.RxDatabaseEvent;
 
+import java.util.List;
+
 import io.reactivex.Observable;
 
 /**
@@ -17,11 +19,13 @@ import io.reactivex.Observable;
 
 public class CardsPresenter implements CardsContract.Presenter {
     private final CardsInteractor mCardsInteractor;
+    private final CardSearch mCardSearch;
     private final CardsContract.View mCardsView;
 
     public CardsPresenter(@NonNull CardsContract.View decksView,
                           @NonNull CardsInteractor decksInteractor) {
         mCardsInteractor = decksInteractor;
+        mCardSearch = new CardSearch(mCardsInteractor);
         mCardsInteractor.setPresenter(this);
 
         mCardsView = decksView;
@@ -35,11 +39,21 @@ public class CardsPresenter implements CardsContract.Presenter {
 
     @Override
     public void stop() {
-
+        mCardsInteractor.removeListeners();
     }
 
     @Override
     public Observable<RxDatabaseEvent<CardDetails>> getCards(CardFilter filter) {
         return mCardsInteractor.getCards(filter);
     }
+
+    @Override
+    public Observable<List<CardDetails>> getCardList(CardFilter filter) {
+        return mCardsInteractor.getCardList(filter);
+    }
+
+    @Override
+    public Observable<CardSearch.Results> searchCards(Observable<String> queries) {
+        return mCardSearch.search(queries);
+    }
 }
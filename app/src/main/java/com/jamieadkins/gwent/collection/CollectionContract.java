@@ -22,5 +22,10 @@ public interface CollectionContract {
         void addCard(String cardId);
 
         void removeCard(String cardId);
+
+        /**
+         * Writes any added or removed cards that haven't been saved yet.
+         */
+        void saveChanges();
     }
 }
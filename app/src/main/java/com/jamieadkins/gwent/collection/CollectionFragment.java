@@ -102,6 +102,12 @@ public class CollectionFragment extends BaseCardListFragment implements Collecti
         mPresenter = presenter;
     }
 
+    @Override
+    public void onStop() {
+        super.onStop();
+        mPresenter.saveChanges();
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
@@ -3,12 +3,15 @@ package com.jamieadkins.gwent.collection;
 import android.support.annotation.NonNull;
 
 import com.jamieadkins.gwent.card.CardFilter;
+import com.jamieadkins.gwent.card.list.CardSearch;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.Collection;
 import com.jamieadkins.gwent.data.interactor.CardsInteractor;
 import com.jamieadkins.gwent.data.interactor.CollectionInteractor;
 import com.jamieadkins.gwent.data.interactor.RxDatabaseEvent;
 
+import java.util.List;
+
 import io.reactivex.Observable;
 
 /**
@@ -19,6 +22,7 @@ import io.reactivex.Observable;
 public class CollectionPresenter implements CollectionContract.Presenter {
     private final CollectionInteractor mCollectionInteractor;
     private final CardsInteractor mCardsInteractor;
+    private final CardSearch mCardSearch;
     private final CollectionContract.View mCollectionView;
 
     public CollectionPresenter(@NonNull CollectionContract.View collectionView,
@@ -28,6 +32,7 @@ public class CollectionPresenter implements CollectionContract.Presenter {
         mCollectionInteractor.setPresenter(this);
 
         mCardsInteractor = cardsInteractor;
+        mCardSearch = new CardSearch(mCardsInteractor);
         mCardsInteractor.setPresenter(this);
 
         mCollectionView = collectionView;
@@ -37,6 +42,7 @@ public class CollectionPresenter implements CollectionContract.Presenter {
     @Override
     public void stop() {
         mCollectionInteractor.stopCollectionUpdates();
+        mCardsInteractor.removeListeners();
     }
 
     @Override
@@ -44,6 +50,16 @@ public class CollectionPresenter implements CollectionContract.Presenter {
         return mCardsInteractor.getCards(cardFilter);
     }
 
+    @Override
+    public Observable<List<CardDetails>> getCardList(CardFilter cardFilter) {
+        return mCardsInteractor.getCardList(cardFilter);
+    }
+
+    @Override
+    public Observable<CardSearch.Results> searchCards(Observable<String> queries) {
+        return mCardSearch.search(queries);
+    }
+
     @Override
     public Observable<Collection> getCollection() {
         return mCollectionInteractor.getCollection();
@@ -59,6 +75,11 @@ public class CollectionPresenter implements CollectionContract.Presenter {
         mCollectionInteractor.removeCardFromCollection(cardId);
     }
 
+    @Override
+    public void saveChanges() {
+        mCollectionInteractor.flushCollectionUpdates();
+    }
+
     @Override
     public void start() {
 
@@ -0,0 +1,270 @@
+package com.jamieadkins.gwent.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts how often cards are played together in a set of decks, to suggest cards that go with
+ * the ones already in a deck.
+ *
+ * Each card gets a dense index the first time it is seen. For every pair of cards the number of
+ * decks containing both is kept in a sparse symmetric matrix: one small open addressed table of
+ * int keys and counts per card. Decks can be added, changed and removed one at a time.
+ *
+ * A candidate is scored by its normalised pointwise mutual information with each card in the
+ * deck, log(P(a, c) / (P(a) P(c))) / -log(P(a, c)), summed over the cards it has been played
+ * with often enough to count. Cards that are only popular, rather than popular with these cards,
+ * score nothing, and normalising stops rare cards that happen to share a deck or two from
+ * outscoring cards that are always played together.
+ */
+
+public class CardCooccurrence {
+    // Pairs seen in fewer decks than this are noise.
+    private static final int MIN_SUPPORT = 2;
+    private static final int EMPTY = -1;
+    private static final int INITIAL_ROW_CAPACITY = 8;
+
+    private final Map<String, Integer> mIndices = new HashMap<>();
+    private final List<String> mCardIds = new ArrayList<>();
+    // The card indices in each deck, sorted, so they can be taken back out.
+    private final Map<String, int[]> mDecks = new HashMap<>();
+    // Number of decks each card is in.
+    private int[] mCardDecks = new int[INITIAL_ROW_CAPACITY];
+    // Row per card: open addressed keys, the other card, and the number of decks with both.
+    private int[][] mRowKeys = new int[INITIAL_ROW_CAPACITY][];
+    private int[][] mRowCounts = new int[INITIAL_ROW_CAPACITY][];
+    private int[] mRowSizes = new int[INITIAL_ROW_CAPACITY];
+
+    /**
+     * A card to suggest, and how strongly.
+     */
+    public static class Recommendation {
+        private final String mCardId;
+        private final double mScore;
+
+        Recommendation(String cardId, double score) {
+            mCardId = cardId;
+            mScore = score;
+        }
+
+        public String getCardId() {
+            return mCardId;
+        }
+
+        public double getScore() {
+            return mScore;
+        }
+    }
+
+    /**
+     * Adds a deck, or replaces it if it has changed.
+     * @param cardIds the distinct cards in the deck.
+     */
+    public synchronized void putDeck(String deckId, Collection<String> cardIds) {
+        removeDeck(deckId);
+
+        int[] cards = new int[cardIds.size()];
+        int size = 0;
+        for (String cardId : cardIds) {
+            cards[size++] = getOrAddIndex(cardId);
+        }
+        Arrays.sort(cards);
+        mDecks.put(deckId, cards);
+        update(cards, 1);
+    }
+
+    public synchronized void removeDeck(String deckId) {
+        int[] cards = mDecks.remove(deckId);
+        if (cards != null) {
+            update(cards, -1);
+        }
+    }
+
+    public synchronized int getDeckCount() {
+        return mDecks.size();
+    }
+
+    /**
+     * @return the number of decks with both cards.
+     */
+    public synchronized int getCount(String cardId, String otherCardId) {
+        Integer card = mIndices.get(cardId);
+        Integer otherCard = mIndices.get(otherCardId);
+        if (card == null || otherCard == null) {
+            return 0;
+        }
+        return card.equals(otherCard) ? mCardDecks[card] : getCount(card, otherCard);
+    }
+
+    /**
+     * @param cardIds the cards already in the deck, which are never suggested.
+     * @return up to count cards that go best with the deck, best first.
+     */
+    public synchronized List<Recommendation> recommend(Collection<String> cardIds, int count) {
+        int deckCount = mDecks.size();
+        double[] scores = new double[mCardIds.size()];
+        boolean[] inDeck = new boolean[mCardIds.size()];
+        // Cards with a score, so that only they are looked at when picking the best.
+        int[] scored = new int[mCardIds.size()];
+        int scoredCount = 0;
+
+        List<Integer> deckCards = new ArrayList<>(cardIds.size());
+        for (String cardId : cardIds) {
+            Integer card = mIndices.get(cardId);
+            if (card != null) {
+                inDeck[card] = true;
+                deckCards.add(card);
+            }
+        }
+
+        for (int card : deckCards) {
+            int[] keys = mRowKeys[card];
+            int[] counts = mRowCounts[card];
+            if (keys == null) {
+                continue;
+            }
+
+            for (int slot = 0; slot < keys.length; slot++) {
+                int candidate = keys[slot];
+                if (candidate == EMPTY || inDeck[candidate] || counts[slot] < MIN_SUPPORT) {
+                    continue;
+                }
+
+                double pmi = Math.log((double) counts[slot] * deckCount
+                        / ((double) mCardDecks[card] * mCardDecks[candidate]));
+                if (pmi <= 0) {
+                    continue;
+                }
+                if (scores[candidate] == 0) {
+                    scored[scoredCount++] = candidate;
+                }
+                // Positive only when the pair is in fewer than every deck, so never divides by 0.
+                scores[candidate] += pmi / -Math.log((double) counts[slot] / deckCount);
+            }
+        }
+
+        // Keep the best few in order, which is quicker than sorting every candidate.
+        int[] best = new int[Math.min(count, scoredCount)];
+        int bestCount = 0;
+        for (int i = 0; i < scoredCount; i++) {
+            int candidate = scored[i];
+            if (bestCount == best.length && scores[candidate] <= scores[best[bestCount - 1]]) {
+                continue;
+            }
+
+            int position = bestCount < best.length ? bestCount++ : bestCount - 1;
+            while (position > 0 && scores[best[position - 1]] < scores[candidate]) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = candidate;
+        }
+
+        List<Recommendation> recommendations = new ArrayList<>(bestCount);
+        for (int i = 0; i < bestCount; i++) {
+            recommendations.add(new Recommendation(mCardIds.get(best[i]), scores[best[i]]));
+        }
+        return recommendations;
+    }
+
+    private int getOrAddIndex(String cardId) {
+        Integer index = mIndices.get(cardId);
+        if (index != null) {
+            return index;
+        }
+
+        index = mCardIds.size();
+        mIndices.put(cardId, index);
+        mCardIds.add(cardId);
+        if (index == mCardDecks.length) {
+            int capacity = mCardDecks.length * 2;
+            mCardDecks = Arrays.copyOf(mCardDecks, capacity);
+            mRowKeys = Arrays.copyOf(mRowKeys, capacity);
+            mRowCounts = Arrays.copyOf(mRowCounts, capacity);
+            mRowSizes = Arrays.copyOf(mRowSizes, capacity);
+        }
+        return index;
+    }
+
+    private void update(int[] cards, int delta) {
+        for (int i = 0; i < cards.length; i++) {
+            mCardDecks[cards[i]] += delta;
+            for (int j = i + 1; j < cards.length; j++) {
+                increment(cards[i], cards[j], delta);
+                increment(cards[j], cards[i], delta);
+            }
+        }
+    }
+
+    private int getCount(int row, int column) {
+        int[] keys = mRowKeys[row];
+        if (keys == null) {
+            return 0;
+        }
+
+        int slot = findSlot(keys, column);
+        return keys[slot] == column ? mRowCounts[row][slot] : 0;
+    }
+
+    /**
+     * Pairs that drop back to no decks keep their slot, which saves handling deletes. Rows only
+     * ever hold cards that have been played together at some point.
+     */
+    private void increment(int row, int column, int delta) {
+        if (mRowKeys[row] == null) {
+            mRowKeys[row] = newKeys(INITIAL_ROW_CAPACITY);
+            mRowCounts[row] = new int[INITIAL_ROW_CAPACITY];
+        }
+
+        int slot = findSlot(mRowKeys[row], column);
+        if (mRowKeys[row][slot] == EMPTY) {
+            // Keep rows at most half full so that probes stay short.
+            if ((mRowSizes[row] + 1) * 2 > mRowKeys[row].length) {
+                growRow(row);
+                slot = findSlot(mRowKeys[row], column);
+            }
+            mRowKeys[row][slot] = column;
+            mRowSizes[row]++;
+        }
+        mRowCounts[row][slot] += delta;
+    }
+
+    private void growRow(int row) {
+        int[] oldKeys = mRowKeys[row];
+        int[] oldCounts = mRowCounts[row];
+        int[] keys = newKeys(oldKeys.length * 2);
+        int[] counts = new int[oldKeys.length * 2];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int newSlot = findSlot(keys, oldKeys[slot]);
+                keys[newSlot] = oldKeys[slot];
+                counts[newSlot] = oldCounts[slot];
+            }
+        }
+        mRowKeys[row] = keys;
+        mRowCounts[row] = counts;
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it would go. Capacities are
+     * powers of two.
+     */
+    private static int findSlot(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int slot = (key * 0x9E3779B9) >>> 16 & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
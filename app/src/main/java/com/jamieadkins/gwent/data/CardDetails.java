@@ -2,6 +2,7 @@ package com.jamieadkins.gwent.data;
 
 import com.google.firebase.database.Exclude;
 import com.google.firebase.database.IgnoreExtraProperties;
+import com.jamieadkins.gwent.card.CompiledCardFilter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -27,11 +28,45 @@ public class CardDetails {
     private List<String> category;
 
     private String patch;
+    // Lazily packed faction, rarity and type, for filtering.
+    private int filterBits = NO_FILTER_BITS;
+
+    private static final int NO_FILTER_BITS = -1;
 
     public CardDetails() {
         // Required empty constructor for Firebase.
     }
 
+    /**
+     * Reads a card from the raw value of its snapshot, without Firebase's reflection.
+     */
+    public static CardDetails fromMap(Map<String, Object> map) {
+        CardDetails card = new CardDetails();
+        card.ingameId = SnapshotValues.getString(map, "ingameId");
+        card.name = SnapshotValues.getString(map, "name");
+        card.info = SnapshotValues.getString(map, "info");
+        card.faction = SnapshotValues.getString(map, "faction");
+        card.lane = SnapshotValues.getStringList(map, "lane");
+        card.type = SnapshotValues.getString(map, "type");
+        card.loyalty = SnapshotValues.getStringList(map, "loyalty");
+        card.strength = SnapshotValues.getInt(map, "strength");
+        card.flavor = SnapshotValues.getString(map, "flavor");
+        card.released = SnapshotValues.getBoolean(map, "released");
+        card.category = SnapshotValues.getStringList(map, "category");
+
+        Map<String, Object> variations = SnapshotValues.getMap(map, "variations");
+        if (variations != null) {
+            card.variations = new HashMap<>(SnapshotValues.capacityFor(variations.size()));
+            for (Map.Entry<String, Object> entry : variations.entrySet()) {
+                Map<String, Object> variation = SnapshotValues.asMap(entry.getValue());
+                if (variation != null) {
+                    card.variations.put(entry.getKey(), Variation.fromMap(variation));
+                }
+            }
+        }
+        return card;
+    }
+
     public String getName() {
         return name;
     }
@@ -92,6 +127,10 @@ public class CardDetails {
         return name;
     }
 
+    /**
+     * @return the patch this card was loaded from. Cards that are the same in several patches
+     * are shared, so this is the first of them to be loaded.
+     */
     @Exclude
     public String getPatch() {
         return patch;
@@ -120,6 +159,18 @@ public class CardDetails {
         return Rarity.COMMON;
     }
 
+    /**
+     * @see CompiledCardFilter#getCardBits(String, String, String, boolean)
+     */
+    @Exclude
+    public int getFilterBits() {
+        if (filterBits == NO_FILTER_BITS) {
+            String rarity = variations != null ? getRarity() : null;
+            filterBits = CompiledCardFilter.getCardBits(faction, rarity, type, released);
+        }
+        return filterBits;
+    }
+
     public List<String> getCategory() {
         return category;
     }
@@ -138,6 +189,19 @@ public class CardDetails {
             // Required empty constructor for Firebase.
         }
 
+        public static Variation fromMap(Map<String, Object> map) {
+            Variation variation = new Variation();
+            variation.availability = SnapshotValues.getString(map, "availability");
+            variation.rarity = SnapshotValues.getString(map, "rarity");
+            Map<String, Object> art = SnapshotValues.getMap(map, "art");
+            variation.art = art != null ? Art.fromMap(art) : null;
+            variation.craft = SnapshotValues.getIntegerMap(map, "craft");
+            variation.mill = SnapshotValues.getIntegerMap(map, "mill");
+            variation.collectible = SnapshotValues.getBoolean(map, "collectible");
+            variation.variationId = SnapshotValues.getString(map, "variationId");
+            return variation;
+        }
+
         public String getAvailability() {
             return availability;
         }
@@ -176,6 +240,14 @@ public class CardDetails {
             // Required empty constructor for Firebase.
         }
 
+        public static Art fromMap(Map<String, Object> map) {
+            Art art = new Art();
+            art.fullsizeImageUrl = SnapshotValues.getString(map, "fullsizeImageUrl");
+            art.thumbnailImageUrl = SnapshotValues.getString(map, "thumbnailImageUrl");
+            art.artist = SnapshotValues.getString(map, "artist");
+            return art;
+        }
+
         public String getFullsizeImageUrl() {
             return fullsizeImageUrl;
         }
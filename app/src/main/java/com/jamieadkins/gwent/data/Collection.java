@@ -17,6 +17,18 @@ public class Collection {
         cards = new HashMap<>();
     }
 
+    /**
+     * Reads a collection from the raw value of its snapshot, without Firebase's reflection.
+     */
+    public static Collection fromMap(Map<String, Object> map) {
+        Collection collection = new Collection();
+        Map<String, Integer> cards = SnapshotValues.getIntegerMap(map, "cards");
+        if (cards != null) {
+            collection.cards = cards;
+        }
+        return collection;
+    }
+
     public Map<String, Integer> getCards() {
         return cards;
     }
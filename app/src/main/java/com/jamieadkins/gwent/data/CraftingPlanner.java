@@ -0,0 +1,185 @@
+package com.jamieadkins.gwent.data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Works out the least scrap needed to own every card for a set of decks at once.
+ *
+ * Written as an integer program, with x copies of each card crafted and y milled, the aim is to
+ * minimise the sum of craft(c) x(c) - mill(c) y(c) such that owned(c) + x(c) - y(c) covers the
+ * most copies any one deck needs. Each constraint only involves one card, and milling a copy is
+ * always worth less than crafting it back, so the optimum is found card by card: craft exactly
+ * the copies that are missing, and mill only copies that no deck can use. That takes one pass
+ * over the distinct cards, however many decks there are.
+ */
+
+public class CraftingPlanner {
+    // Collections don't record premium copies, so everything is costed as standard.
+    public static final String STANDARD = "standard";
+    // Most copies of a card a deck can hold.
+    private static final int MAX_BRONZE_COPIES = 3;
+    private static final int MAX_COPIES = 1;
+
+    /**
+     * What to craft and mill, and what it costs.
+     */
+    public static class Plan {
+        private final Map<String, Integer> mToCraft = new HashMap<>();
+        private final Map<String, Integer> mToMill = new HashMap<>();
+        private final Map<String, Integer> mUncraftable = new HashMap<>();
+        private int mCraftCost = 0;
+        private int mMillValue = 0;
+        private int[] mDeckCosts;
+
+        /**
+         * @return copies to craft, by card id.
+         */
+        public Map<String, Integer> getToCraft() {
+            return mToCraft;
+        }
+
+        /**
+         * @return spare copies to mill, by card id. Empty unless duplicates were asked for.
+         */
+        public Map<String, Integer> getToMill() {
+            return mToMill;
+        }
+
+        /**
+         * @return missing copies of cards that have no crafting cost, by card id.
+         */
+        public Map<String, Integer> getUncraftable() {
+            return mUncraftable;
+        }
+
+        public int getCraftCost() {
+            return mCraftCost;
+        }
+
+        public int getMillValue() {
+            return mMillValue;
+        }
+
+        /**
+         * @return the scrap still needed after milling, or 0 if milling covers it.
+         */
+        public int getScrapNeeded() {
+            return Math.max(mCraftCost - mMillValue, 0);
+        }
+
+        /**
+         * @return what each deck would cost to craft on its own, in the order given.
+         */
+        public int[] getDeckCosts() {
+            return mDeckCosts;
+        }
+
+        /**
+         * @return the scrap saved by crafting cards the decks share only once.
+         */
+        public int getSharedSaving() {
+            int separateCost = 0;
+            for (int cost : mDeckCosts) {
+                separateCost += cost;
+            }
+            return separateCost - mCraftCost;
+        }
+    }
+
+    /**
+     * @param decks the number of copies of each card in each deck, by id.
+     * @param owned the number of copies of each card in the collection, by id.
+     * @param cards the details of every card in the decks and the collection, by id. Cards
+     *              without details can't be crafted or milled.
+     * @param millDuplicates whether to mill copies beyond what any deck can hold.
+     */
+    public static Plan plan(List<Map<String, Integer>> decks, Map<String, Integer> owned,
+                            Map<String, CardDetails> cards, boolean millDuplicates) {
+        Map<String, Integer> needed = new HashMap<>();
+        for (Map<String, Integer> deck : decks) {
+            for (Map.Entry<String, Integer> entry : deck.entrySet()) {
+                Integer copies = needed.get(entry.getKey());
+                needed.put(entry.getKey(), Math.max(copies != null ? copies : 0, entry.getValue()));
+            }
+        }
+
+        Plan plan = new Plan();
+        for (Map.Entry<String, Integer> entry : needed.entrySet()) {
+            int missing = entry.getValue() - getCount(owned, entry.getKey());
+            if (missing <= 0) {
+                continue;
+            }
+
+            int cost = getCraftCost(cards.get(entry.getKey()));
+            if (cost > 0) {
+                plan.mToCraft.put(entry.getKey(), missing);
+                plan.mCraftCost += missing * cost;
+            } else {
+                plan.mUncraftable.put(entry.getKey(), missing);
+            }
+        }
+
+        plan.mDeckCosts = new int[decks.size()];
+        for (int i = 0; i < decks.size(); i++) {
+            for (Map.Entry<String, Integer> entry : decks.get(i).entrySet()) {
+                int missing = entry.getValue() - getCount(owned, entry.getKey());
+                if (missing > 0) {
+                    plan.mDeckCosts[i] += missing * getCraftCost(cards.get(entry.getKey()));
+                }
+            }
+        }
+
+        if (millDuplicates) {
+            for (Map.Entry<String, Integer> entry : owned.entrySet()) {
+                CardDetails card = cards.get(entry.getKey());
+                int keep = Math.max(getCount(needed, entry.getKey()), getMaxCopies(card));
+                int spare = entry.getValue() - keep;
+                int value = getMillValue(card);
+                if (spare > 0 && value > 0) {
+                    plan.mToMill.put(entry.getKey(), spare);
+                    plan.mMillValue += spare * value;
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @return the scrap it takes to craft a standard copy of the card, or 0 if it can't be.
+     */
+    public static int getCraftCost(CardDetails card) {
+        return getStandardValue(card, true);
+    }
+
+    /**
+     * @return the scrap given for milling a standard copy of the card, or 0 if it can't be.
+     */
+    public static int getMillValue(CardDetails card) {
+        return getStandardValue(card, false);
+    }
+
+    private static int getMaxCopies(CardDetails card) {
+        return card != null && Type.BRONZE.equals(card.getType()) ? MAX_BRONZE_COPIES : MAX_COPIES;
+    }
+
+    private static int getStandardValue(CardDetails card, boolean craft) {
+        if (card == null || card.getVariations() == null) {
+            return 0;
+        }
+
+        // Every variation of a card has the same cost, as with rarity.
+        for (CardDetails.Variation variation : card.getVariations().values()) {
+            Map<String, Integer> values = craft ? variation.getCraft() : variation.getMill();
+            Integer value = values != null ? values.get(STANDARD) : null;
+            return value != null ? value : 0;
+        }
+        return 0;
+    }
+
+    private static int getCount(Map<String, Integer> cardCount, String cardId) {
+        Integer count = cardCount.get(cardId);
+        return count != null ? count : 0;
+    }
+}
@@ -2,25 +2,42 @@ package com.jamieadkins.gwent.data;
 
 import com.google.firebase.database.Exclude;
 import com.google.firebase.database.IgnoreExtraProperties;
+import com.jamieadkins.gwent.data.repository.CardRepository;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Class that models what a deck is.
+ *
+ * Only card ids and counts are stored. The cards themselves are looked up in the card repository
+ * for the deck's patch when the deck is read, see {@link #resolveCards(CardRepository)}.
  */
 @IgnoreExtraProperties
 public class Deck {
+    public static final String APPLIED_OPERATIONS = "appliedOperations";
+    // Cards embedded by older versions. Only read, and dropped the next time the deck is edited.
+    public static final String LEGACY_CARDS = "cards";
+
     private boolean publicDeck;
     private String id;
     private String name;
     private String author;
     private String factionId;
-    private CardDetails leader;
-    private String patch = "v0-8-60-2";
+    private String leaderId;
+    private String patch = Patch.DEFAULT;
+    // Public decks are ordered by the week they were featured in.
+    private int week;
     // Map of card ids to card count.
     private Map<String, Integer> cardCount;
+    // Resolved from the card repository, or embedded in decks saved by older versions.
+    private CardDetails leader;
     private Map<String, CardDetails> cards;
+    // Built from the cards when first needed, then kept up to date.
+    private DeckStats stats;
+    private DrawOdds drawOdds;
+    // The last deck operation applied from each installation, see DeckOperationQueue.
+    private Map<String, Long> appliedOperations;
 
     public Deck() {
         // Required empty constructor for Firebase.
@@ -30,19 +47,199 @@ public class Deck {
 
     public Deck(String id, String name, String factionId, CardDetails leader,
                 String author, String patch) {
+        this();
         this.id = id;
         this.name = name;
         this.factionId = factionId;
         this.leader = leader;
+        this.leaderId = leader != null ? leader.getIngameId() : null;
         this.author = author;
         this.patch = patch;
         this.publicDeck = false;
     }
 
+    /**
+     * Copies a deck, so that its cards can be changed without changing the original.
+     */
+    public Deck(Deck deck) {
+        this.publicDeck = deck.publicDeck;
+        this.id = deck.id;
+        this.name = deck.name;
+        this.author = deck.author;
+        this.factionId = deck.factionId;
+        this.leaderId = deck.leaderId;
+        this.patch = deck.patch;
+        this.week = deck.week;
+        this.cardCount = new HashMap<>(deck.cardCount);
+        this.leader = deck.leader;
+        this.cards = new HashMap<>(deck.cards);
+        this.appliedOperations = deck.appliedOperations;
+        // Carry the totals over rather than building them again for the copy.
+        this.stats = deck.stats != null ? new DeckStats(deck.stats) : null;
+        this.drawOdds = deck.drawOdds != null ? new DrawOdds(deck.drawOdds) : null;
+    }
+
+    /**
+     * Reads a deck from the raw value of its snapshot, without Firebase's reflection.
+     */
+    public static Deck fromMap(Map<String, Object> map) {
+        Deck deck = new Deck();
+        deck.publicDeck = SnapshotValues.getBoolean(map, "publicDeck");
+        deck.id = SnapshotValues.getString(map, "id");
+        deck.name = SnapshotValues.getString(map, "name");
+        deck.author = SnapshotValues.getString(map, "author");
+        deck.factionId = SnapshotValues.getString(map, "factionId");
+
+        deck.leaderId = SnapshotValues.getString(map, "leaderId");
+        Map<String, Object> leader = SnapshotValues.getMap(map, "leader");
+        if (leader != null) {
+            deck.leader = CardDetails.fromMap(leader);
+            if (deck.leaderId == null) {
+                deck.leaderId = deck.leader.getIngameId();
+            }
+        }
+
+        deck.week = SnapshotValues.getInt(map, "week");
+
+        String patch = SnapshotValues.getString(map, "patch");
+        if (patch != null) {
+            deck.patch = patch;
+        }
+
+        Map<String, Integer> cardCount = SnapshotValues.getIntegerMap(map, "cardCount");
+        if (cardCount != null) {
+            deck.cardCount = cardCount;
+        }
+
+        Map<String, Object> applied = SnapshotValues.getMap(map, APPLIED_OPERATIONS);
+        if (applied != null) {
+            deck.appliedOperations = new HashMap<>(SnapshotValues.capacityFor(applied.size()));
+            for (Map.Entry<String, Object> entry : applied.entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    deck.appliedOperations.put(entry.getKey(),
+                            ((Number) entry.getValue()).longValue());
+                }
+            }
+        }
+
+        Map<String, Object> cards = SnapshotValues.getMap(map, LEGACY_CARDS);
+        if (cards != null) {
+            for (Map.Entry<String, Object> entry : cards.entrySet()) {
+                Map<String, Object> card = SnapshotValues.asMap(entry.getValue());
+                if (card != null) {
+                    deck.cards.put(entry.getKey(), CardDetails.fromMap(card));
+                }
+            }
+            deck.stats = DeckStats.of(deck.cards, deck.cardCount);
+        }
+        return deck;
+    }
+
+    /**
+     * Looks up the leader and every card in the deck. Cards that aren't in the repository are
+     * left as they were embedded, if they were.
+     * @param repository for the deck's patch, which should be loaded.
+     */
+    @Exclude
+    public void resolveCards(CardRepository repository) {
+        Map<String, CardDetails> resolvedCards =
+                new HashMap<>(SnapshotValues.capacityFor(cardCount.size()));
+        for (Map.Entry<String, Integer> entry : cardCount.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+
+            CardDetails card = repository.getCard(entry.getKey());
+            if (card == null) {
+                card = cards.get(entry.getKey());
+            }
+            if (card != null) {
+                resolvedCards.put(entry.getKey(), card);
+            }
+        }
+        cards = resolvedCards;
+        stats = DeckStats.of(cards, cardCount);
+        // Built again from the counts when next needed, so both caches match this deck.
+        drawOdds = null;
+
+        CardDetails resolvedLeader = leaderId != null ? repository.getCard(leaderId) : null;
+        if (resolvedLeader != null) {
+            leader = resolvedLeader;
+        }
+    }
+
+    /**
+     * Adds one copy of a card to this copy of the deck, without saving it.
+     */
+    @Exclude
+    public void addCard(CardDetails card) {
+        String cardId = card.getIngameId();
+        if (!cards.containsKey(cardId)) {
+            cards.put(cardId, card);
+            // Copies already in the deck count towards the stats now that the card is known.
+            Integer count = cardCount.get(cardId);
+            if (stats != null && count != null && count > 0) {
+                stats.add(card, count);
+            }
+        }
+        changeCardCount(cardId, 1);
+    }
+
+    /**
+     * Removes one copy of a card from this copy of the deck, without saving it.
+     */
+    @Exclude
+    public void removeCard(CardDetails card) {
+        changeCardCount(card.getIngameId(), -1);
+    }
+
+    /**
+     * Changes the number of copies of a card in this copy of the deck, never below none. Any
+     * stats or draw odds already built are kept up to date, so this is the only way counts should
+     * be changed.
+     */
+    @Exclude
+    public void changeCardCount(String cardId, int delta) {
+        Integer count = cardCount.get(cardId);
+        int oldCount = count != null ? Math.max(count, 0) : 0;
+        int newCount = Math.max(oldCount + delta, 0);
+        if (newCount == oldCount) {
+            return;
+        }
+
+        // The stats only count cards that have been resolved.
+        CardDetails resolved = cards.get(cardId);
+        if (newCount > 0) {
+            cardCount.put(cardId, newCount);
+        } else {
+            cardCount.remove(cardId);
+            cards.remove(cardId);
+        }
+        if (stats != null && resolved != null) {
+            if (newCount > oldCount) {
+                stats.add(resolved, newCount - oldCount);
+            } else {
+                stats.remove(resolved, oldCount - newCount);
+            }
+        }
+        if (drawOdds != null) {
+            drawOdds.setCount(cardId, newCount);
+        }
+    }
+
     public void setLeader(CardDetails leader) {
         this.leader = leader;
+        this.leaderId = leader != null ? leader.getIngameId() : null;
     }
 
+    public String getLeaderId() {
+        return leaderId;
+    }
+
+    /**
+     * @return the leader, or null if it hasn't been resolved yet.
+     */
+    @Exclude
     public CardDetails getLeader() {
         return leader;
     }
@@ -63,6 +260,10 @@ public class Deck {
         return id;
     }
 
+    /**
+     * @return the cards in the deck by id, once they have been resolved.
+     */
+    @Exclude
     public Map<String, CardDetails> getCards() {
         return cards;
     }
@@ -71,6 +272,20 @@ public class Deck {
         return cardCount;
     }
 
+    /**
+     * @return the sequence of the last deck operation from the installation that Firebase has
+     * applied to this deck, or -1 if there hasn't been one.
+     */
+    @Exclude
+    public long getAppliedOperation(String installationId) {
+        Long sequence = appliedOperations != null ? appliedOperations.get(installationId) : null;
+        return sequence != null ? sequence : -1;
+    }
+
+    public int getWeek() {
+        return week;
+    }
+
     public boolean isPublicDeck() {
         return publicDeck;
     }
@@ -82,8 +297,9 @@ public class Deck {
         result.put("name", name);
         result.put("author", author);
         result.put("factionId", factionId);
-        result.put("cards", cards);
         result.put("cardCount", cardCount);
+        result.put("leaderId", leaderId);
+        // Older versions show the deck's leader without looking it up, and fail without it.
         result.put("leader", leader);
         result.put("patch", patch);
         result.put("publicDeck", publicDeck);
@@ -92,33 +308,68 @@ public class Deck {
     }
 
     @Exclude
-    public int getStrengthForPosition(String position) {
-        int strength = 0;
-        for (String cardId : cards.keySet()) {
-            CardDetails card = cards.get(cardId);
-            if (card.getLane().contains(position)) {
-                strength += card.getStrength();
+    public DeckStats getStats() {
+        if (stats == null) {
+            stats = DeckStats.of(cards, cardCount);
+        }
+        return stats;
+    }
+
+    /**
+     * @return the chances of drawing each card, built from the card counts when first needed.
+     */
+    @Exclude
+    public DrawOdds getDrawOdds() {
+        if (drawOdds == null) {
+            drawOdds = DrawOdds.of(cardCount);
+        }
+        return drawOdds;
+    }
+
+    /**
+     * Takes over the draw odds of an earlier version of this deck, changed only for the cards
+     * whose counts differ, rather than building them again. Chances already worked out are kept
+     * if the deck size is the same.
+     */
+    @Exclude
+    public void carryDrawOddsFrom(Deck previous) {
+        if (drawOdds != null || previous.drawOdds == null) {
+            return;
+        }
+
+        DrawOdds odds = new DrawOdds(previous.drawOdds);
+        for (String cardId : previous.cardCount.keySet()) {
+            if (!cardCount.containsKey(cardId)) {
+                odds.setCount(cardId, 0);
             }
         }
-        return strength;
+        for (Map.Entry<String, Integer> entry : cardCount.entrySet()) {
+            odds.setCount(entry.getKey(), entry.getValue());
+        }
+        drawOdds = odds;
+    }
+
+    @Exclude
+    public int getStrengthForPosition(String position) {
+        return getStats().getStrength(position);
     }
 
     @Exclude
     public int getTotalStrength() {
-        int strength = 0;
-        for (String cardId : cards.keySet()) {
-            CardDetails card = cards.get(cardId);
-            strength += card.getStrength();
-        }
-        return strength;
+        return getStats().getTotalStrength();
     }
 
+    /**
+     * @return every copy of every card, whether or not the cards have been resolved.
+     */
     @Exclude
     public int getTotalCardCount() {
-        int count = 0;
-        for (String cardId : cardCount.keySet()) {
-            count += cardCount.get(cardId);
+        int total = 0;
+        for (int count : cardCount.values()) {
+            if (count > 0) {
+                total += count;
+            }
         }
-        return count;
+        return total;
     }
 }
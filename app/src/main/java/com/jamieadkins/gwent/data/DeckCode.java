@@ -0,0 +1,311 @@
+package com.jamieadkins.gwent.data;
+
+import com.jamieadkins.gwent.data.repository.CardRepository;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A short code for a deck, to share it as text outside the app and read it back without a trip
+ * to Firebase.
+ *
+ * Version 2 is, in bytes:
+ * - the version;
+ * - the patch, as a varint length followed by its ASCII characters;
+ * - the number of card ids in the patch as a varint, then the low two bytes of their hash, see
+ *   {@link CardRepository#getIdHash()};
+ * - the faction, as a varint of one more than its number in {@link Faction#CONVERT_STRING}, or 0;
+ * - the leader, as a varint of one more than its index, or 0;
+ * - then for each card in index order, a varint of the gap since the last card shifted left two
+ *   bits, with the number of copies less one in the low bits. If the low bits are all set the
+ *   number of copies follows as its own varint.
+ *
+ * Cards are indexed by where their id comes among the patch's card ids, see
+ * {@link CardRepository#getIdIndex(String)}, so nearby cards are only a byte apart. Indexes only
+ * mean the same cards if the patch has the same ids where the code is read, which the checksum
+ * checks. The bytes are then written as unpadded base64url, which makes a typical deck around 55
+ * characters.
+ *
+ * Encoding writes the bytes into the array the code is built in and expands them to base64 in
+ * place, and decoding reads the base64 straight out of the code, so neither needs a byte buffer.
+ */
+
+public class DeckCode {
+    public static final int VERSION = 2;
+    private static final int COUNT_BITS = 2;
+    private static final int COUNT_FOLLOWS = (1 << COUNT_BITS) - 1;
+    // No deck holds more copies of a card than this, so anything more is a broken code.
+    private static final int MAX_COPIES = 40;
+
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final int[] SEXTETS = new int[128];
+
+    static {
+        Arrays.fill(SEXTETS, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            SEXTETS[ALPHABET[i]] = i;
+        }
+    }
+
+    /**
+     * @param repository for the deck's patch, which must be loaded.
+     * @throws IllegalArgumentException if the deck has cards that aren't in the patch.
+     */
+    public static String encode(Deck deck, CardRepository repository) {
+        int length = write(deck, repository, null);
+        char[] code = new char[(length * 4 + 2) / 3];
+        write(deck, repository, code);
+        toBase64(code, length);
+        return new String(code);
+    }
+
+    /**
+     * @return the patch the deck in the code was built for, to pick the repository to decode it
+     * with.
+     * @throws IllegalArgumentException if it isn't a deck code.
+     */
+    public static String getPatch(String code) {
+        Reader reader = new Reader(code);
+        return reader.readPatch();
+    }
+
+    /**
+     * @param repository for the code's patch, see {@link #getPatch(String)}, which must be loaded.
+     * @return the deck, with its cards resolved but no id, name or author.
+     * @throws IllegalArgumentException if it isn't a deck code, or is for cards not in the patch.
+     */
+    public static Deck decode(String code, CardRepository repository) {
+        Reader reader = new Reader(code);
+        String patch = reader.readPatch();
+        if (!patch.equals(repository.getPatch())) {
+            throw new IllegalArgumentException("Deck code is for patch " + patch);
+        }
+
+        int idCount = reader.readVarint();
+        int idHash = reader.readByte() << 8 | reader.readByte();
+        if (idCount != repository.getIdCount() || idHash != (repository.getIdHash() & 0xFFFF)) {
+            throw new IllegalArgumentException("Deck code is for different cards in " + patch);
+        }
+
+        int faction = reader.readVarint();
+        String factionId = faction > 0 ? Faction.CONVERT_INT.get(faction - 1) : null;
+        if (faction > 0 && factionId == null) {
+            throw new IllegalArgumentException("Unknown faction " + faction);
+        }
+
+        int leader = reader.readVarint();
+        Deck deck = new Deck(null, null, factionId,
+                leader > 0 ? getCard(repository, leader - 1) : null, null, patch);
+
+        int index = -1;
+        while (reader.hasMore()) {
+            int value = reader.readVarint();
+            int copies = value & COUNT_FOLLOWS;
+            copies = copies == COUNT_FOLLOWS ? reader.readVarint() : copies + 1;
+            if (copies > MAX_COPIES) {
+                throw new IllegalArgumentException("Too many copies of a card");
+            }
+
+            index += (value >>> COUNT_BITS) + 1;
+            CardDetails card = getCard(repository, index);
+            for (int copy = 0; copy < copies; copy++) {
+                deck.addCard(card);
+            }
+        }
+        return deck;
+    }
+
+    private static CardDetails getCard(CardRepository repository, int index) {
+        CardDetails card = repository.getCard(repository.getIdAt(index));
+        if (card == null) {
+            throw new IllegalArgumentException("No card at " + index);
+        }
+        return card;
+    }
+
+    /**
+     * Writes the deck's bytes, one to each char, or only counts them if out is null.
+     * @return the number of bytes.
+     */
+    private static int write(Deck deck, CardRepository repository, char[] out) {
+        Map<String, Integer> cardCount = deck.getCardCount();
+        if (out == null) {
+            // Check every card can be written before counting the bytes.
+            for (Map.Entry<String, Integer> entry : cardCount.entrySet()) {
+                if (entry.getValue() > 0 && repository.getIdIndex(entry.getKey()) < 0) {
+                    throw new IllegalArgumentException(entry.getKey() + " isn't in the patch");
+                }
+            }
+        }
+
+        int position = put(out, 0, VERSION);
+        String patch = deck.getPatch();
+        position = putVarint(out, position, patch.length());
+        for (int i = 0; i < patch.length(); i++) {
+            char c = patch.charAt(i);
+            if (c >= 0x80) {
+                throw new IllegalArgumentException("Patch isn't ASCII");
+            }
+            position = put(out, position, c);
+        }
+
+        position = putVarint(out, position, repository.getIdCount());
+        position = put(out, position, repository.getIdHash() >> 8 & 0xFF);
+        position = put(out, position, repository.getIdHash() & 0xFF);
+
+        Integer faction = deck.getFactionId() != null ?
+                Faction.CONVERT_STRING.get(deck.getFactionId()) : null;
+        position = putVarint(out, position, faction != null ? faction + 1 : 0);
+
+        int leader = repository.getIdIndex(deck.getLeaderId());
+        if (deck.getLeaderId() != null && leader < 0) {
+            throw new IllegalArgumentException(deck.getLeaderId() + " isn't in the patch");
+        }
+        position = putVarint(out, position, leader >= 0 ? leader + 1 : 0);
+
+        int previous = -1;
+        int idCount = repository.getIdCount();
+        for (int index = 0; index < idCount; index++) {
+            Integer copies = cardCount.get(repository.getIdAt(index));
+            if (copies == null || copies <= 0) {
+                continue;
+            }
+
+            int gap = (index - previous - 1) << COUNT_BITS;
+            if (copies < COUNT_FOLLOWS + 1) {
+                position = putVarint(out, position, gap | (copies - 1));
+            } else {
+                position = putVarint(out, position, gap | COUNT_FOLLOWS);
+                position = putVarint(out, position, copies);
+            }
+            previous = index;
+        }
+        return position;
+    }
+
+    private static int put(char[] out, int position, int value) {
+        if (out != null) {
+            out[position] = (char) value;
+        }
+        return position + 1;
+    }
+
+    private static int putVarint(char[] out, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            position = put(out, position, (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        return put(out, position, value);
+    }
+
+    /**
+     * Replaces the bytes at the start of the code with their base64. Working from the end, each
+     * group of three bytes is read before its four characters are written, and they never reach
+     * back as far as the bytes still to be read.
+     */
+    private static void toBase64(char[] code, int length) {
+        for (int group = (length - 1) / 3; group >= 0; group--) {
+            int start = group * 3;
+            int bytes = Math.min(3, length - start);
+            int bits = code[start] << 16
+                    | (bytes > 1 ? code[start + 1] << 8 : 0)
+                    | (bytes > 2 ? code[start + 2] : 0);
+
+            int out = group * 4;
+            code[out] = ALPHABET[bits >> 18 & 0x3F];
+            code[out + 1] = ALPHABET[bits >> 12 & 0x3F];
+            if (bytes > 1) {
+                code[out + 2] = ALPHABET[bits >> 6 & 0x3F];
+            }
+            if (bytes > 2) {
+                code[out + 3] = ALPHABET[bits & 0x3F];
+            }
+        }
+    }
+
+    /**
+     * Reads the bytes of a code one at a time, straight from its base64.
+     */
+    private static class Reader {
+        private final String mCode;
+        private final int mLength;
+        private int mPosition = 0;
+
+        Reader(String code) {
+            if (code == null || code.length() % 4 == 1) {
+                throw new IllegalArgumentException("Not a deck code");
+            }
+            mCode = code;
+            mLength = code.length() * 3 / 4;
+
+            int version = readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown deck code version " + version);
+            }
+        }
+
+        boolean hasMore() {
+            return mPosition < mLength;
+        }
+
+        int readByte() {
+            if (!hasMore()) {
+                throw new IllegalArgumentException("Deck code is too short");
+            }
+
+            int group = mPosition / 3 * 4;
+            int value;
+            switch (mPosition % 3) {
+                case 0:
+                    value = getSextet(group) << 2 | getSextet(group + 1) >> 4;
+                    break;
+                case 1:
+                    value = getSextet(group + 1) << 4 | getSextet(group + 2) >> 2;
+                    break;
+                default:
+                    value = getSextet(group + 2) << 6 | getSextet(group + 3);
+                    break;
+            }
+            mPosition++;
+            return value & 0xFF;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        break;
+                    }
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Bad number in deck code");
+        }
+
+        String readPatch() {
+            int length = readVarint();
+            if (length > mLength - mPosition) {
+                throw new IllegalArgumentException("Deck code is too short");
+            }
+
+            char[] patch = new char[length];
+            for (int i = 0; i < length; i++) {
+                patch[i] = (char) readByte();
+            }
+            return new String(patch);
+        }
+
+        private int getSextet(int index) {
+            char c = mCode.charAt(index);
+            int sextet = c < SEXTETS.length ? SEXTETS[c] : -1;
+            if (sextet < 0) {
+                throw new IllegalArgumentException("Not a deck code");
+            }
+            return sextet;
+        }
+    }
+}
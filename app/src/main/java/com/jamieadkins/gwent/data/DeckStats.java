@@ -0,0 +1,121 @@
+package com.jamieadkins.gwent.data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals for the cards in a deck, counting every copy.
+ *
+ * Built once when a deck's cards are known, then kept up to date as single cards are added or
+ * removed, so that showing a deck never has to look through its cards.
+ */
+
+public class DeckStats {
+    private final Map<String, Integer> mStrengthByLane = new HashMap<>();
+    private final Map<String, Integer> mCountByType = new HashMap<>();
+    private final Map<String, Integer> mCountByRarity = new HashMap<>();
+    private final Map<String, Integer> mCountByFaction = new HashMap<>();
+    private int mTotalStrength = 0;
+    private int mCardCount = 0;
+
+    public DeckStats() {
+    }
+
+    /**
+     * Copies the totals, so that they can be updated without changing the original.
+     */
+    public DeckStats(DeckStats stats) {
+        mStrengthByLane.putAll(stats.mStrengthByLane);
+        mCountByType.putAll(stats.mCountByType);
+        mCountByRarity.putAll(stats.mCountByRarity);
+        mCountByFaction.putAll(stats.mCountByFaction);
+        mTotalStrength = stats.mTotalStrength;
+        mCardCount = stats.mCardCount;
+    }
+
+    /**
+     * @param cards every card in the deck, by id.
+     * @param cardCount the number of copies of each card, by id.
+     */
+    public static DeckStats of(Map<String, CardDetails> cards, Map<String, Integer> cardCount) {
+        DeckStats stats = new DeckStats();
+        for (Map.Entry<String, Integer> entry : cardCount.entrySet()) {
+            CardDetails card = cards.get(entry.getKey());
+            if (card != null && entry.getValue() > 0) {
+                stats.add(card, entry.getValue());
+            }
+        }
+        return stats;
+    }
+
+    public void add(CardDetails card, int copies) {
+        update(card, copies);
+    }
+
+    public void remove(CardDetails card, int copies) {
+        update(card, -copies);
+    }
+
+    private void update(CardDetails card, int copies) {
+        int strength = card.getStrength() * copies;
+        mTotalStrength += strength;
+        mCardCount += copies;
+        if (card.getLane() != null) {
+            for (String lane : card.getLane()) {
+                increment(mStrengthByLane, lane, strength);
+            }
+        }
+        increment(mCountByType, card.getType(), copies);
+        if (card.getVariations() != null) {
+            increment(mCountByRarity, card.getRarity(), copies);
+        }
+        increment(mCountByFaction, card.getFaction(), copies);
+    }
+
+    private static void increment(Map<String, Integer> totals, String key, int amount) {
+        if (key == null) {
+            return;
+        }
+
+        Integer total = totals.get(key);
+        int newTotal = (total != null ? total : 0) + amount;
+        if (newTotal != 0) {
+            totals.put(key, newTotal);
+        } else {
+            totals.remove(key);
+        }
+    }
+
+    private static int get(Map<String, Integer> totals, String key) {
+        Integer total = totals.get(key);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * @return the strength of every card that can be played in the lane. Cards that can be
+     * played in more than one lane count towards each of them.
+     */
+    public int getStrength(String lane) {
+        return get(mStrengthByLane, lane);
+    }
+
+    public int getTotalStrength() {
+        return mTotalStrength;
+    }
+
+    public int getCardCount() {
+        return mCardCount;
+    }
+
+    public int getTypeCount(String type) {
+        return get(mCountByType, type);
+    }
+
+    public int getRarityCount(String rarity) {
+        return get(mCountByRarity, rarity);
+    }
+
+    public int getFactionCount(String faction) {
+        return get(mCountByFaction, faction);
+    }
+}
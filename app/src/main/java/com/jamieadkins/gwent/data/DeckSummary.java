@@ -0,0 +1,177 @@
+package com.jamieadkins.gwent.data;
+
+import com.google.firebase.database.Exclude;
+import com.google.firebase.database.IgnoreExtraProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Just enough about a deck to show it in a list.
+ *
+ * Stored next to each deck and rewritten whenever the deck is, so that list screens never have
+ * to read a deck's cards or wait for card data to load.
+ */
+@IgnoreExtraProperties
+public class DeckSummary {
+    private String id;
+    private String name;
+    private String factionId;
+    private String leaderName;
+    private boolean publicDeck;
+    private int week;
+    private int meleeStrength;
+    private int rangedStrength;
+    private int siegeStrength;
+    private int totalStrength;
+    private int cardCount;
+    // MinHash signature of the deck's cards, encoded, for finding similar decks.
+    private String signature;
+
+    public DeckSummary() {
+        // Required empty constructor for Firebase.
+    }
+
+    /**
+     * @param deck with its cards resolved.
+     */
+    public static DeckSummary of(Deck deck) {
+        DeckSummary summary = new DeckSummary();
+        summary.id = deck.getId();
+        summary.name = deck.getName();
+        summary.factionId = deck.getFactionId();
+        summary.leaderName = deck.getLeader() != null ? deck.getLeader().getName() : null;
+        summary.publicDeck = deck.isPublicDeck();
+        summary.week = deck.getWeek();
+
+        DeckStats stats = deck.getStats();
+        summary.meleeStrength = stats.getStrength(Position.MELEE);
+        summary.rangedStrength = stats.getStrength(Position.RANGED);
+        summary.siegeStrength = stats.getStrength(Position.SIEGE);
+        summary.totalStrength = stats.getTotalStrength();
+        summary.cardCount = deck.getTotalCardCount();
+        summary.signature = MinHash.encode(MinHash.signature(deck.getCardCount()));
+        return summary;
+    }
+
+    /**
+     * Reads a summary from the raw value of its snapshot, without Firebase's reflection.
+     */
+    public static DeckSummary fromMap(Map<String, Object> map) {
+        DeckSummary summary = new DeckSummary();
+        summary.id = SnapshotValues.getString(map, "id");
+        summary.name = SnapshotValues.getString(map, "name");
+        summary.factionId = SnapshotValues.getString(map, "factionId");
+        summary.leaderName = SnapshotValues.getString(map, "leaderName");
+        summary.publicDeck = SnapshotValues.getBoolean(map, "publicDeck");
+        summary.week = SnapshotValues.getInt(map, "week");
+        summary.meleeStrength = SnapshotValues.getInt(map, "meleeStrength");
+        summary.rangedStrength = SnapshotValues.getInt(map, "rangedStrength");
+        summary.siegeStrength = SnapshotValues.getInt(map, "siegeStrength");
+        summary.totalStrength = SnapshotValues.getInt(map, "totalStrength");
+        summary.cardCount = SnapshotValues.getInt(map, "cardCount");
+        summary.signature = SnapshotValues.getString(map, "signature");
+        return summary;
+    }
+
+    @Exclude
+    public Map<String, Object> toMap() {
+        HashMap<String, Object> result = new HashMap<>();
+        result.put("id", id);
+        result.put("name", name);
+        result.put("factionId", factionId);
+        result.put("leaderName", leaderName);
+        result.put("publicDeck", publicDeck);
+        result.put("week", week);
+        result.put("meleeStrength", meleeStrength);
+        result.put("rangedStrength", rangedStrength);
+        result.put("siegeStrength", siegeStrength);
+        result.put("totalStrength", totalStrength);
+        result.put("cardCount", cardCount);
+        result.put("signature", signature);
+
+        return result;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFactionId() {
+        return factionId;
+    }
+
+    /**
+     * @return the leader's name, or null if the deck had no leader when it was summarised.
+     */
+    public String getLeaderName() {
+        return leaderName;
+    }
+
+    public boolean isPublicDeck() {
+        return publicDeck;
+    }
+
+    public int getWeek() {
+        return week;
+    }
+
+    @Exclude
+    public int getStrengthForPosition(String position) {
+        switch (position) {
+            case Position.MELEE:
+                return meleeStrength;
+            case Position.RANGED:
+                return rangedStrength;
+            case Position.SIEGE:
+                return siegeStrength;
+            default:
+                return 0;
+        }
+    }
+
+    public int getMeleeStrength() {
+        return meleeStrength;
+    }
+
+    public int getRangedStrength() {
+        return rangedStrength;
+    }
+
+    public int getSiegeStrength() {
+        return siegeStrength;
+    }
+
+    public int getTotalStrength() {
+        return totalStrength;
+    }
+
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    /**
+     * @return the MinHash signature of the deck's cards, or null for summaries written before
+     * signatures were added.
+     */
+    @Exclude
+    public int[] getSignature() {
+        return MinHash.decode(signature);
+    }
+
+    @Exclude
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DeckSummary && id != null && id.equals(((DeckSummary) obj).id);
+    }
+
+    @Exclude
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
@@ -0,0 +1,182 @@
+package com.jamieadkins.gwent.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact chances of drawing at least one copy of a card, or of any card in a group, from a deck.
+ *
+ * Drawing without replacement is hypergeometric: with K copies in a deck of N cards, the chance
+ * of drawing none in n draws is C(N - K, n) / C(N, n). The chances only depend on the deck size,
+ * so they are worked out once per number of copies and kept until a card is added or removed.
+ */
+
+public class DrawOdds {
+    public static final int OPENING_HAND = 10;
+    // Two cards are drawn at the start of round two, and one at the start of round three.
+    public static final int ROUND_TWO = OPENING_HAND + 2;
+    public static final int ROUND_THREE = ROUND_TWO + 1;
+
+    // Pascal's triangle, grown a row at a time as bigger decks are seen. Doubles are exact for
+    // every coefficient of a deck of up to 50 or so cards.
+    private static final List<double[]> sBinomials = new ArrayList<>();
+
+    private final Map<String, Integer> mCardCount = new HashMap<>();
+    private int mDeckSize = 0;
+    // Chance of at least one of k copies, by number of draws then k, for the current deck size.
+    private final Map<Integer, double[]> mChances = new HashMap<>();
+
+    public DrawOdds() {
+    }
+
+    /**
+     * Copies the counts and any chances already worked out, so that cards can be added or
+     * removed without changing the original.
+     */
+    public DrawOdds(DrawOdds odds) {
+        synchronized (odds) {
+            mCardCount.putAll(odds.mCardCount);
+            mDeckSize = odds.mDeckSize;
+            for (Map.Entry<Integer, double[]> entry : odds.mChances.entrySet()) {
+                mChances.put(entry.getKey(), entry.getValue().clone());
+            }
+        }
+    }
+
+    /**
+     * @param cardCount the number of copies of each card, by id.
+     */
+    public static DrawOdds of(Map<String, Integer> cardCount) {
+        DrawOdds odds = new DrawOdds();
+        for (Map.Entry<String, Integer> entry : cardCount.entrySet()) {
+            if (entry.getValue() > 0) {
+                odds.mCardCount.put(entry.getKey(), entry.getValue());
+                odds.mDeckSize += entry.getValue();
+            }
+        }
+        return odds;
+    }
+
+    public synchronized void add(String cardId) {
+        Integer count = mCardCount.get(cardId);
+        setCount(cardId, (count != null ? count : 0) + 1);
+    }
+
+    public synchronized void remove(String cardId) {
+        Integer count = mCardCount.get(cardId);
+        if (count == null) {
+            return;
+        }
+        setCount(cardId, count - 1);
+    }
+
+    /**
+     * Sets the number of copies of a card. The chances worked out so far are only thrown away if
+     * the deck size changes.
+     */
+    public synchronized void setCount(String cardId, int count) {
+        Integer oldCount = mCardCount.get(cardId);
+        int difference = Math.max(count, 0) - (oldCount != null ? oldCount : 0);
+        if (count > 0) {
+            mCardCount.put(cardId, count);
+        } else {
+            mCardCount.remove(cardId);
+        }
+        if (difference != 0) {
+            setDeckSize(mDeckSize + difference);
+        }
+    }
+
+    private void setDeckSize(int deckSize) {
+        mDeckSize = deckSize;
+        // Every chance depends on the deck size.
+        mChances.clear();
+    }
+
+    public synchronized int getDeckSize() {
+        return mDeckSize;
+    }
+
+    /**
+     * @return the chance of drawing at least one copy of the card in the given number of draws.
+     */
+    public synchronized double getCardChance(String cardId, int draws) {
+        Integer count = mCardCount.get(cardId);
+        return getChance(count != null ? count : 0, draws);
+    }
+
+    /**
+     * @return the chance of drawing at least one of any of the cards in the given number of
+     * draws.
+     */
+    public synchronized double getGroupChance(Collection<String> cardIds, int draws) {
+        int copies = 0;
+        for (String cardId : cardIds) {
+            Integer count = mCardCount.get(cardId);
+            copies += count != null ? count : 0;
+        }
+        return getChance(copies, draws);
+    }
+
+    /**
+     * @return the chance of drawing at least one of this many copies in the given number of
+     * draws from the deck.
+     */
+    public synchronized double getChance(int copies, int draws) {
+        if (copies <= 0 || draws <= 0 || mDeckSize <= 0) {
+            return 0;
+        }
+        copies = Math.min(copies, mDeckSize);
+        draws = Math.min(draws, mDeckSize);
+
+        double[] chances = mChances.get(draws);
+        if (chances == null) {
+            chances = new double[mDeckSize + 1];
+            mChances.put(draws, chances);
+        }
+        if (chances[copies] == 0) {
+            chances[copies] = 1 - binomial(mDeckSize - copies, draws)
+                    / binomial(mDeckSize, draws);
+        }
+        return chances[copies];
+    }
+
+    /**
+     * Works out the chances for every number of copies in the deck ahead of time, so that reading
+     * them later is only a lookup.
+     */
+    public synchronized void precompute(int... draws) {
+        for (int draw : draws) {
+            for (int copies = 1; copies <= mDeckSize; copies++) {
+                getChance(copies, draw);
+            }
+        }
+    }
+
+    /**
+     * @return n choose k.
+     */
+    static double binomial(int n, int k) {
+        if (k < 0 || n < 0 || k > n) {
+            return 0;
+        }
+
+        synchronized (sBinomials) {
+            while (sBinomials.size() <= n) {
+                int row = sBinomials.size();
+                double[] coefficients = new double[row + 1];
+                coefficients[0] = 1;
+                coefficients[row] = 1;
+                double[] previous = row > 0 ? sBinomials.get(row - 1) : null;
+                for (int i = 1; i < row; i++) {
+                    coefficients[i] = previous[i - 1] + previous[i];
+                }
+                sBinomials.add(coefficients);
+            }
+            return sBinomials.get(n)[k];
+        }
+    }
+}
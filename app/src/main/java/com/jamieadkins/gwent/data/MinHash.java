@@ -0,0 +1,91 @@
+package com.jamieadkins.gwent.data;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * MinHash signatures of decks, for estimating how many cards two decks share without comparing
+ * them card by card.
+ *
+ * A deck is treated as the set of its copies, so two copies of a card are two elements. For each
+ * of a number of hash functions the signature keeps the smallest hash of any element. Two
+ * signatures agree at any position with a chance equal to the Jaccard similarity of the decks,
+ * the number of copies they share over the number of copies in either.
+ */
+
+public final class MinHash {
+    public static final int SIGNATURE_LENGTH = 32;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private MinHash() {
+    }
+
+    /**
+     * @param cardCount the number of copies of each card, by id.
+     */
+    public static int[] signature(Map<String, Integer> cardCount) {
+        int[] signature = new int[SIGNATURE_LENGTH];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (Map.Entry<String, Integer> entry : cardCount.entrySet()) {
+            // String hash codes are the same on every device.
+            long cardHash = (long) entry.getKey().hashCode() << 32;
+            for (int copy = 0; copy < entry.getValue(); copy++) {
+                long element = cardHash | copy;
+                for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                    int hash = (int) (SplitMix64.mix(element + (i + 1) * GOLDEN_GAMMA) >>> 32);
+                    if (hash < signature[i]) {
+                        signature[i] = hash;
+                    }
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * @return the estimated Jaccard similarity of the decks the signatures came from.
+     */
+    public static double similarity(int[] signature, int[] otherSignature) {
+        int same = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (signature[i] == otherSignature[i]) {
+                same++;
+            }
+        }
+        return (double) same / SIGNATURE_LENGTH;
+    }
+
+    /**
+     * @return the signature as hex, eight characters per hash, for storing in Firebase.
+     */
+    public static String encode(int[] signature) {
+        StringBuilder builder = new StringBuilder(SIGNATURE_LENGTH * 8);
+        for (int hash : signature) {
+            String hex = Integer.toHexString(hash);
+            for (int i = hex.length(); i < 8; i++) {
+                builder.append('0');
+            }
+            builder.append(hex);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the signature, or null if the text isn't one.
+     */
+    public static int[] decode(String encoded) {
+        if (encoded == null || encoded.length() != SIGNATURE_LENGTH * 8) {
+            return null;
+        }
+
+        int[] signature = new int[SIGNATURE_LENGTH];
+        try {
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                signature[i] = (int) Long.parseLong(encoded.substring(i * 8, i * 8 + 8), 16);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return signature;
+    }
+}
@@ -0,0 +1,331 @@
+package com.jamieadkins.gwent.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares mulligan policies for a deck by playing out a large number of opening hands.
+ *
+ * Each trial draws a hand of ten, then mulligans up to the policy's number of cards one at a
+ * time, always the worst card in hand, as long as it is worth less than the policy's threshold.
+ * As in the game, a card that has been mulliganed can't be drawn again during the mulligan. The
+ * hand is then worth the sum of its cards' scores.
+ *
+ * Trials are split into a fixed number of chunks that run in parallel, each seeded in turn from
+ * a generator seeded with the seed, so the results only depend on the seed. Every policy sees the
+ * same shuffles, which makes the differences between them much less noisy.
+ */
+
+public class MulliganSimulator {
+    public static final int HAND_SIZE = DrawOdds.OPENING_HAND;
+    public static final int MAX_MULLIGANS = 3;
+    private static final int CHUNKS = 64;
+
+    // Every card in the deck, one entry per copy, as an index into the scores.
+    private final int[] mDeck;
+    private final int[] mScores;
+
+    /**
+     * A mulligan strategy: how many cards to redraw at most, and which.
+     */
+    public static class Policy {
+        private final int mMaxMulligans;
+        private final int mThreshold;
+
+        /**
+         * @param maxMulligans at most this many cards are mulliganed, up to three.
+         * @param threshold cards worth less than this are mulliganed, worst first.
+         */
+        public Policy(int maxMulligans, int threshold) {
+            mMaxMulligans = Math.max(0, Math.min(maxMulligans, MAX_MULLIGANS));
+            mThreshold = threshold;
+        }
+
+        public int getMaxMulligans() {
+            return mMaxMulligans;
+        }
+
+        public int getThreshold() {
+            return mThreshold;
+        }
+    }
+
+    /**
+     * How good the hands kept by a policy were.
+     */
+    public static class Result {
+        private final Policy mPolicy;
+        private final long mTrials;
+        private final double mMean;
+        private final double mStandardError;
+
+        Result(Policy policy, long trials, long sum, long sumOfSquares) {
+            mPolicy = policy;
+            mTrials = trials;
+            mMean = (double) sum / trials;
+            double variance = Math.max((double) sumOfSquares / trials - mMean * mMean, 0);
+            mStandardError = Math.sqrt(variance / trials);
+        }
+
+        public Policy getPolicy() {
+            return mPolicy;
+        }
+
+        public long getTrials() {
+            return mTrials;
+        }
+
+        /**
+         * @return the expected score of the hand kept.
+         */
+        public double getMean() {
+            return mMean;
+        }
+
+        public double getStandardError() {
+            return mStandardError;
+        }
+    }
+
+    /**
+     * @param cardCount the number of copies of each card, by id.
+     * @param scores what each card is worth in hand, by id. Cards without one are worth 0.
+     */
+    public MulliganSimulator(Map<String, Integer> cardCount, Map<String, Integer> scores) {
+        int deckSize = 0;
+        for (Integer count : cardCount.values()) {
+            deckSize += Math.max(count, 0);
+        }
+
+        mDeck = new int[deckSize];
+        mScores = new int[cardCount.size()];
+        int card = 0;
+        int position = 0;
+        for (Map.Entry<String, Integer> entry : cardCount.entrySet()) {
+            Integer score = scores.get(entry.getKey());
+            mScores[card] = score != null ? score : 0;
+            for (int copy = 0; copy < entry.getValue(); copy++) {
+                mDeck[position++] = card;
+            }
+            card++;
+        }
+    }
+
+    /**
+     * @return a simulator for the deck where each card is worth its strength. The deck's cards
+     * must be resolved.
+     */
+    public static MulliganSimulator forDeck(Deck deck) {
+        Map<String, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, CardDetails> entry : deck.getCards().entrySet()) {
+            scores.put(entry.getKey(), entry.getValue().getStrength());
+        }
+        return new MulliganSimulator(deck.getCardCount(), scores);
+    }
+
+    public int getDeckSize() {
+        return mDeck.length;
+    }
+
+    /**
+     * @return the average score of a card in the deck, rounded up.
+     */
+    public int getAverageScore() {
+        if (mDeck.length == 0) {
+            return 0;
+        }
+
+        long total = 0;
+        for (int card : mDeck) {
+            total += mScores[card];
+        }
+        return (int) ((total + mDeck.length - 1) / mDeck.length);
+    }
+
+    /**
+     * @return keeping every hand, then mulliganing up to one, two and three below average cards.
+     */
+    public List<Policy> getDefaultPolicies() {
+        List<Policy> policies = new ArrayList<>();
+        for (int mulligans = 0; mulligans <= MAX_MULLIGANS; mulligans++) {
+            policies.add(new Policy(mulligans, getAverageScore()));
+        }
+        return policies;
+    }
+
+    /**
+     * Runs the simulation on a thread per processor. Blocks until it is done.
+     */
+    public List<Result> simulate(List<Policy> policies, int trials, long seed)
+            throws InterruptedException {
+        ExecutorService executor =
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return simulate(policies, trials, seed, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the simulation on the executor. Blocks until it is done.
+     * @param trials the number of hands played out for each policy.
+     */
+    public List<Result> simulate(List<Policy> policies, int trials, long seed,
+                                 ExecutorService executor) throws InterruptedException {
+        final Policy[] policyArray = policies.toArray(new Policy[policies.size()]);
+        SplitMix64 seeds = new SplitMix64(seed);
+        List<Future<long[]>> chunks = new ArrayList<>(CHUNKS);
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            final int chunkTrials = trials / CHUNKS + (chunk < trials % CHUNKS ? 1 : 0);
+            final long chunkSeed = seeds.nextLong();
+            chunks.add(executor.submit(new Callable<long[]>() {
+                @Override
+                public long[] call() throws Exception {
+                    return runChunk(policyArray, chunkTrials, chunkSeed);
+                }
+            }));
+        }
+
+        // The sum and sum of squares of the hand scores, for each policy.
+        long[] totals = new long[policyArray.length * 2];
+        try {
+            for (Future<long[]> chunk : chunks) {
+                long[] chunkTotals = chunk.get();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += chunkTotals[i];
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            for (Future<long[]> chunk : chunks) {
+                chunk.cancel(true);
+            }
+        }
+
+        List<Result> results = new ArrayList<>(policyArray.length);
+        for (int i = 0; i < policyArray.length; i++) {
+            results.add(new Result(policyArray[i], trials, totals[i * 2], totals[i * 2 + 1]));
+        }
+        return results;
+    }
+
+    private long[] runChunk(Policy[] policies, int trials, long seed) {
+        int[] deck = new int[mDeck.length];
+        int[] hand = new int[Math.min(HAND_SIZE, mDeck.length)];
+        // The trial in which each card was last mulliganed, so it never needs clearing.
+        int[] mulliganedInTrial = new int[mScores.length];
+        long[] totals = new long[policies.length * 2];
+
+        SplitMix64 random = new SplitMix64(0);
+        for (int i = 0; i < policies.length; i++) {
+            // Every trial has its own seed, the same for every policy, so they all see the same
+            // shuffles however many cards each one mulligans.
+            SplitMix64 trialSeeds = new SplitMix64(seed);
+            Arrays.fill(mulliganedInTrial, -1);
+            long sum = 0;
+            long sumOfSquares = 0;
+            for (int trial = 0; trial < trials; trial++) {
+                random.setSeed(trialSeeds.nextLong());
+                long score = playTrial(policies[i], deck, hand, mulliganedInTrial, trial, random);
+                sum += score;
+                sumOfSquares += score * score;
+            }
+            totals[i * 2] = sum;
+            totals[i * 2 + 1] = sumOfSquares;
+        }
+        return totals;
+    }
+
+    /**
+     * Draws a hand and mulligans it. Cards are drawn by picking a random card from the part of
+     * the deck that hasn't been drawn yet, so only the drawn cards are ever shuffled.
+     * @return the score of the hand kept.
+     */
+    private int playTrial(Policy policy, int[] deck, int[] hand, int[] mulliganedInTrial,
+                          int trial, SplitMix64 random) {
+        System.arraycopy(mDeck, 0, deck, 0, deck.length);
+        int drawn = 0;
+        for (int i = 0; i < hand.length; i++) {
+            int pick = drawn + random.nextInt(deck.length - drawn);
+            hand[i] = deck[pick];
+            deck[pick] = deck[drawn];
+            deck[drawn++] = hand[i];
+        }
+
+        for (int mulligan = 0; mulligan < policy.mMaxMulligans && hand.length > 0; mulligan++) {
+            int worst = 0;
+            for (int i = 1; i < hand.length; i++) {
+                if (mScores[hand[i]] < mScores[hand[worst]]) {
+                    worst = i;
+                }
+            }
+            if (mScores[hand[worst]] >= policy.mThreshold) {
+                break;
+            }
+
+            // Shuffle the card back in, and draw any card that hasn't been mulliganed.
+            int card = hand[worst];
+            mulliganedInTrial[card] = trial;
+            deck[--drawn] = card;
+            int pick = pickAllowed(deck, drawn, mulliganedInTrial, trial, random);
+            if (pick < 0) {
+                // Nothing else left to draw, so keep the card.
+                drawn++;
+                break;
+            }
+            hand[worst] = deck[pick];
+            deck[pick] = deck[drawn];
+            deck[drawn++] = hand[worst];
+        }
+
+        int score = 0;
+        for (int card : hand) {
+            score += mScores[card];
+        }
+        return score;
+    }
+
+    /**
+     * @return the position of a random undrawn card that hasn't been mulliganed, or -1 if there
+     * are none.
+     */
+    private static int pickAllowed(int[] deck, int drawn, int[] mulliganedInTrial, int trial,
+                                   SplitMix64 random) {
+        int remaining = deck.length - drawn;
+        // Mulliganed cards are only a few copies, so this almost always succeeds straight away.
+        for (int attempt = 0; attempt < 2 * remaining; attempt++) {
+            int pick = drawn + random.nextInt(remaining);
+            if (mulliganedInTrial[deck[pick]] != trial) {
+                return pick;
+            }
+        }
+
+        int allowed = 0;
+        for (int i = drawn; i < deck.length; i++) {
+            if (mulliganedInTrial[deck[i]] != trial) {
+                allowed++;
+            }
+        }
+        if (allowed == 0) {
+            return -1;
+        }
+
+        int skip = random.nextInt(allowed);
+        for (int i = drawn; i < deck.length; i++) {
+            if (mulliganedInTrial[deck[i]] != trial && skip-- == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
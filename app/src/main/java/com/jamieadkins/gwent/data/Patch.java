@@ -0,0 +1,10 @@
+package com.jamieadkins.gwent.data;
+
+/**
+ * Contains the known patches.
+ */
+
+public class Patch {
+    // Used until the latest patch has been looked up, and for decks saved without a patch.
+    public static final String DEFAULT = "v0-8-60-2";
+}
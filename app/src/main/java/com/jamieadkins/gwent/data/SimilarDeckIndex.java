@@ -0,0 +1,137 @@
+package com.jamieadkins.gwent.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds decks like a given deck without comparing it to every deck.
+ *
+ * Each deck's MinHash signature is cut into bands, and the deck is filed in one bucket per band
+ * keyed by that band's hashes. Decks that share a bucket with the given deck are the only ones
+ * compared. With 8 bands of 4 hashes, decks that share 70% of their copies share a bucket 89%
+ * of the time, and decks that share 30% only 6% of the time.
+ */
+
+public class SimilarDeckIndex {
+    private static final int BANDS = 8;
+    private static final int ROWS = MinHash.SIGNATURE_LENGTH / BANDS;
+
+    private final Map<String, DeckSummary> mDecks = new HashMap<>();
+    private final Map<String, int[]> mSignatures = new HashMap<>();
+    // For each band, the ids of the decks in each bucket.
+    private final List<Map<Integer, Set<String>>> mBuckets = new ArrayList<>(BANDS);
+
+    /**
+     * A deck and how alike it is to the deck searched for.
+     */
+    public static class Match {
+        private final DeckSummary mDeck;
+        private final double mSimilarity;
+
+        Match(DeckSummary deck, double similarity) {
+            mDeck = deck;
+            mSimilarity = similarity;
+        }
+
+        public DeckSummary getDeck() {
+            return mDeck;
+        }
+
+        /**
+         * @return the estimated share of their copies the decks have in common, from 0 to 1.
+         */
+        public double getSimilarity() {
+            return mSimilarity;
+        }
+    }
+
+    public SimilarDeckIndex() {
+        for (int band = 0; band < BANDS; band++) {
+            mBuckets.add(new HashMap<Integer, Set<String>>());
+        }
+    }
+
+    /**
+     * Adds a deck, or replaces it if it has changed. Decks without a signature are left out.
+     */
+    public synchronized void put(DeckSummary deck) {
+        remove(deck.getId());
+        int[] signature = deck.getSignature();
+        if (signature == null) {
+            return;
+        }
+
+        mDecks.put(deck.getId(), deck);
+        mSignatures.put(deck.getId(), signature);
+        for (int band = 0; band < BANDS; band++) {
+            int key = getBandKey(signature, band);
+            Set<String> bucket = mBuckets.get(band).get(key);
+            if (bucket == null) {
+                bucket = new HashSet<>();
+                mBuckets.get(band).put(key, bucket);
+            }
+            bucket.add(deck.getId());
+        }
+    }
+
+    public synchronized void remove(String deckId) {
+        int[] signature = mSignatures.remove(deckId);
+        mDecks.remove(deckId);
+        if (signature == null) {
+            return;
+        }
+
+        for (int band = 0; band < BANDS; band++) {
+            int key = getBandKey(signature, band);
+            Set<String> bucket = mBuckets.get(band).get(key);
+            bucket.remove(deckId);
+            if (bucket.isEmpty()) {
+                mBuckets.get(band).remove(key);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return mDecks.size();
+    }
+
+    /**
+     * @param excludeId a deck to leave out, usually the one searched for, or null.
+     * @return up to count of the most similar decks that share a bucket with the signature, most
+     * similar first.
+     */
+    public synchronized List<Match> findSimilar(int[] signature, int count, String excludeId) {
+        Set<String> candidates = new HashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            Set<String> bucket = mBuckets.get(band).get(getBandKey(signature, band));
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+        candidates.remove(excludeId);
+
+        List<Match> matches = new ArrayList<>(candidates.size());
+        for (String deckId : candidates) {
+            matches.add(new Match(mDecks.get(deckId),
+                    MinHash.similarity(signature, mSignatures.get(deckId))));
+        }
+        Collections.sort(matches, new Comparator<Match>() {
+            @Override
+            public int compare(Match match, Match otherMatch) {
+                return Double.compare(otherMatch.mSimilarity, match.mSimilarity);
+            }
+        });
+        return matches.size() > count ? new ArrayList<>(matches.subList(0, count)) : matches;
+    }
+
+    private static int getBandKey(int[] signature, int band) {
+        return Arrays.hashCode(Arrays.copyOfRange(signature, band * ROWS, (band + 1) * ROWS));
+    }
+}
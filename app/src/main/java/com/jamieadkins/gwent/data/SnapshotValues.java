@@ -0,0 +1,93 @@
+package com.jamieadkins.gwent.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads values out of the raw tree that DataSnapshot.getValue() returns, which is made of maps,
+ * lists, strings, booleans, longs and doubles.
+ *
+ * Used by the hand written readers on our models, which are much quicker than letting Firebase
+ * map snapshots onto them by reflection. Missing or mistyped values read as Java defaults.
+ */
+
+public final class SnapshotValues {
+
+    private SnapshotValues() {
+    }
+
+    /**
+     * @return the value as a map, or null if it isn't one.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    static String getString(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    static int getInt(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    static boolean getBoolean(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    static Map<String, Object> getMap(Map<String, Object> map, String key) {
+        return asMap(map.get(key));
+    }
+
+    /**
+     * Firebase stores lists as maps keyed by index, and gives them back as lists unless too many
+     * indexes are missing.
+     */
+    static List<String> getStringList(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        Iterable<?> values;
+        if (value instanceof List) {
+            values = (List<?>) value;
+        } else if (value instanceof Map) {
+            values = ((Map<?, ?>) value).values();
+        } else {
+            return null;
+        }
+
+        List<String> strings = new ArrayList<>();
+        for (Object item : values) {
+            if (item instanceof String) {
+                strings.add((String) item);
+            }
+        }
+        return strings;
+    }
+
+    static Map<String, Integer> getIntegerMap(Map<String, Object> map, String key) {
+        Map<String, Object> values = getMap(map, key);
+        if (values == null) {
+            return null;
+        }
+
+        Map<String, Integer> integers = new HashMap<>(capacityFor(values.size()));
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getValue() instanceof Number) {
+                integers.put(entry.getKey(), ((Number) entry.getValue()).intValue());
+            }
+        }
+        return integers;
+    }
+
+    /**
+     * @return a HashMap capacity that holds size entries without resizing.
+     */
+    static int capacityFor(int size) {
+        return size < 3 ? size + 1 : (int) (size / 0.75f) + 1;
+    }
+}
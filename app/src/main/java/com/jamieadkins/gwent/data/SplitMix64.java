@@ -0,0 +1,43 @@
+package com.jamieadkins.gwent.data;
+
+/**
+ * Small, fast random number generator. Simulations seed one for each part from another, so that
+ * they are repeatable whichever thread runs each part.
+ *
+ * This is the SplitMix64 generator that java.util.SplittableRandom uses, which needs API 24.
+ */
+
+public class SplitMix64 {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long mState;
+
+    public SplitMix64(long seed) {
+        mState = seed;
+    }
+
+    public void setSeed(long seed) {
+        mState = seed;
+    }
+
+    public long nextLong() {
+        return mix(mState += GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return the bits of z well mixed, so that close inputs give unrelated outputs.
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return a number from 0 up to, but not including, bound. The bias is at most
+     * bound / 2^32, which is nothing for the size of a deck.
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+}
@@ -0,0 +1,154 @@
+package com.jamieadkins.gwent.data.interactor;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.FirebaseUtils;
+import com.jamieadkins.gwent.data.SnapshotValues;
+import com.jamieadkins.gwent.data.repository.CardRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * Process-wide source of the cards in a patch, shared by every screen.
+ *
+ * However many interactors acquire a patch, there is one Firebase listener on its card data and
+ * the cards are only deserialised once, into the {@link CardRepository}. New subscribers get the
+ * latest snapshot straight away. The listener is removed once the last interactor releases it.
+ */
+
+public class CardDataSource {
+    private static final Map<String, CardDataSource> sSources = new HashMap<>();
+
+    private final String mPatch;
+    private final DatabaseReference mCardsReference;
+    private final CardRepository mRepository;
+    // Serialized, as snapshots are published from the parsing thread.
+    private final Subject<List<CardDetails>> mSnapshots =
+            BehaviorSubject.<List<CardDetails>>create().toSerialized();
+    private ValueEventListener mCardListener;
+    private Disposable mParser;
+    private int mReferenceCount = 0;
+
+    /**
+     * Every call must be matched by a call to {@link #release()}.
+     */
+    public static CardDataSource acquire(String patch) {
+        synchronized (sSources) {
+            CardDataSource source = sSources.get(patch);
+            if (source == null) {
+                source = new CardDataSource(patch);
+                sSources.put(patch, source);
+            }
+            source.mReferenceCount++;
+            if (source.mReferenceCount == 1) {
+                source.startListening();
+            }
+            return source;
+        }
+    }
+
+    private CardDataSource(String patch) {
+        mPatch = patch;
+        mCardsReference = FirebaseUtils.getDatabase().getReference("card-data/" + mPatch);
+        // Keep Cards data in cache at all times.
+        mCardsReference.keepSynced(true);
+        mRepository = CardRepository.getInstance(mPatch);
+    }
+
+    public String getPatch() {
+        return mPatch;
+    }
+
+    /**
+     * @return every card in the patch, followed by a new list whenever the card data changes.
+     * Completes once the source has been released by everyone.
+     */
+    public Observable<List<CardDetails>> getCards() {
+        return mSnapshots;
+    }
+
+    /**
+     * @return the cards once they have loaded, then completes. If the source is released before
+     * they load, errors rather than completing without them, which would leave callers waiting.
+     */
+    public Observable<List<CardDetails>> getLoadedCards() {
+        return mSnapshots.take(1)
+                .switchIfEmpty(Observable.<List<CardDetails>>error(new IllegalStateException(
+                        "Card data for " + mPatch + " was released before it loaded.")));
+    }
+
+    public void release() {
+        synchronized (sSources) {
+            mReferenceCount--;
+            if (mReferenceCount > 0) {
+                return;
+            }
+
+            mCardsReference.removeEventListener(mCardListener);
+            mCardListener = null;
+            mParser.dispose();
+            sSources.remove(mPatch);
+            mSnapshots.onComplete();
+        }
+    }
+
+    private void startListening() {
+        if (mRepository.isLoaded()) {
+            // A previous source already loaded this patch, let people use it until we update.
+            mSnapshots.onNext(mRepository.getAllCards());
+        }
+
+        // Firebase calls us back on the main thread, so parse and index the cards in the
+        // background. observeOn keeps the snapshots in order.
+        final PublishSubject<DataSnapshot> rawSnapshots = PublishSubject.create();
+        mParser = rawSnapshots
+                .observeOn(Schedulers.computation())
+                .subscribe(new Consumer<DataSnapshot>() {
+                    @Override
+                    public void accept(DataSnapshot dataSnapshot) throws Exception {
+                        onCardsLoaded(dataSnapshot);
+                    }
+                });
+
+        mCardListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                rawSnapshots.onNext(dataSnapshot);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+
+            }
+        };
+        mCardsReference.addValueEventListener(mCardListener);
+    }
+
+    private void onCardsLoaded(DataSnapshot dataSnapshot) {
+        List<CardDetails> cards = new ArrayList<>();
+        for (DataSnapshot cardSnapshot : dataSnapshot.getChildren()) {
+            Map<String, Object> value = SnapshotValues.asMap(cardSnapshot.getValue());
+            if (value != null) {
+                CardDetails cardDetails = CardDetails.fromMap(value);
+                cardDetails.setPatch(mPatch);
+                cards.add(cardDetails);
+            }
+        }
+        mRepository.load(cards);
+        mSnapshots.onNext(mRepository.getAllCards());
+    }
+}
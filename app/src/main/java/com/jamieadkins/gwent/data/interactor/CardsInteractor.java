@@ -5,6 +5,8 @@ import com.jamieadkins.commonutils.mvp.BasePresenter;
 import com.jamieadkins.gwent.card.CardFilter;
 import com.jamieadkins.gwent.data.CardDetails;
 
+import java.util.List;
+
 import io.reactivex.Observable;
 
 /**
@@ -15,6 +17,17 @@ public interface CardsInteractor extends BaseInteractor<BasePresenter> {
 
     Observable<RxDatabaseEvent<CardDetails>> getCards(CardFilter filter);
 
+    /**
+     * Same as {@link #getCards(CardFilter)}, but emits every matching card at once as a single
+     * immutable list, which is far cheaper to hand to the UI than an event per card.
+     */
+    Observable<List<CardDetails>> getCardList(CardFilter filter);
+
+    /**
+     * Same as {@link #getCardList(CardFilter)}, but only considers the given cards.
+     */
+    Observable<List<CardDetails>> getCardList(CardFilter filter, List<CardDetails> candidates);
+
     Observable<RxDatabaseEvent<CardDetails>> getCard(String id);
 
     void removeListeners();
@@ -10,21 +10,27 @@ import com.jamieadkins.commonutils.mvp.BasePresenter;
 import com.jamieadkins.gwent.card.CardFilter;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.FirebaseUtils;
-
+import com.jamieadkins.gwent.data.Patch;
+import com.jamieadkins.gwent.data.SnapshotValues;
+import com.jamieadkins.gwent.data.repository.CardRepository;
+import com.jamieadkins.gwent.data.repository.CardStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.ObservableSource;
+import io.reactivex.functions.Function;
 
 /**
  * Deals with firebase.
  */
 
 public class CardsInteractorFirebase implements CardsInteractor {
-    private static final String LATEST_PATCH = "v0-8-60-2";
-
     private BasePresenter mPresenter;
     private final FirebaseDatabase mDatabase = FirebaseUtils.getDatabase();
     private final DatabaseReference mCardsReference;
@@ -33,18 +39,19 @@ public class CardsInteractorFirebase implements CardsInteractor {
     private Query mCardsQuery;
     private ValueEventListener mCardListener;
     private String mPatch;
+    private final CardRepository mRepository;
+    private CardDataSource mCardSource;
 
     public CardsInteractorFirebase() {
         // No patch specified, use latest.
-        this(LATEST_PATCH);
+        this(Patch.DEFAULT);
     }
 
     public CardsInteractorFirebase(String patch) {
         mPatch = patch;
         databasePath = "card-data/" + mPatch;
         mCardsReference = mDatabase.getReference(databasePath);
-        // Keep Cards data in cache at all times.
-        mCardsReference.keepSynced(true);
+        mRepository = CardRepository.getInstance(mPatch);
     }
 
     @Override
@@ -54,54 +61,44 @@ public class CardsInteractorFirebase implements CardsInteractor {
 
     @Override
     public Observable<RxDatabaseEvent<CardDetails>> getCards(final CardFilter filter) {
-        return Observable.defer(new Callable<ObservableSource<? extends RxDatabaseEvent<CardDetails>>>() {
-            @Override
-            public ObservableSource<? extends RxDatabaseEvent<CardDetails>> call() throws Exception {
-                return Observable.create(new ObservableOnSubscribe<RxDatabaseEvent<CardDetails>>() {
+        return getCardList(filter)
+                .flatMap(new Function<List<CardDetails>, ObservableSource<RxDatabaseEvent<CardDetails>>>() {
                     @Override
-                    public void subscribe(final ObservableEmitter<RxDatabaseEvent<CardDetails>> emitter) throws Exception {
-                        mCardsQuery = mCardsReference.orderByChild("name");
-
-                        if (filter.getSearchQuery() != null) {
-                            mCardsQuery = mCardsQuery.
-                                    startAt(filter.getSearchQuery())
-                                    // No 'contains' query so have to fudge it.
-                                    .endAt(filter.getSearchQuery() + "zzzz");
+                    public ObservableSource<RxDatabaseEvent<CardDetails>> apply(List<CardDetails> cards) throws Exception {
+                        List<RxDatabaseEvent<CardDetails>> events = new ArrayList<>(cards.size());
+                        for (CardDetails cardDetails : cards) {
+                            events.add(new RxDatabaseEvent<CardDetails>(
+                                    cardDetails.getIngameId(),
+                                    cardDetails,
+                                    RxDatabaseEvent.EventType.ADDED
+                            ));
                         }
+                        return Observable.fromIterable(events);
+                    }
+                });
+    }
 
-                        mCardListener = new ValueEventListener() {
-                            @Override
-                            public void onDataChange(DataSnapshot dataSnapshot) {
-                                for (DataSnapshot cardSnapshot: dataSnapshot.getChildren()) {
-                                    CardDetails cardDetails = cardSnapshot.getValue(CardDetails.class);
-                                    cardDetails.setPatch(mPatch);
-
-                                    // Only add card if the card meets all the filters.
-                                    // Also check name and info are not null. Those are dud cards.
-                                    if (filter.doesCardMeetFilter(cardDetails)) {
-                                        emitter.onNext(
-                                                new RxDatabaseEvent<CardDetails>(
-                                                        cardSnapshot.getKey(),
-                                                        cardDetails,
-                                                        RxDatabaseEvent.EventType.ADDED
-                                                ));
-                                    }
-                                }
-
-                                emitter.onComplete();
-                            }
-
-                            @Override
-                            public void onCancelled(DatabaseError databaseError) {
-
-                            }
-                        };
+    @Override
+    public Observable<List<CardDetails>> getCardList(CardFilter filter) {
+        return getCardList(filter, null);
+    }
 
-                        mCardsQuery.addListenerForSingleValueEvent(mCardListener);
+    @Override
+    public Observable<List<CardDetails>> getCardList(final CardFilter filter,
+                                                     final List<CardDetails> candidates) {
+        return Observable.defer(new Callable<ObservableSource<List<CardDetails>>>() {
+                    @Override
+                    public ObservableSource<List<CardDetails>> call() throws Exception {
+                        return getCardSource().getLoadedCards();
+                    }
+                })
+                .map(new Function<List<CardDetails>, List<CardDetails>>() {
+                    @Override
+                    public List<CardDetails> apply(List<CardDetails> cards) throws Exception {
+                        // The source has loaded the repository, which can do the filtering.
+                        return mRepository.getCards(filter, candidates);
                     }
                 });
-            }
-        });
     }
 
     /**
@@ -117,13 +114,34 @@ public class CardsInteractorFirebase implements CardsInteractor {
                 return Observable.create(new ObservableOnSubscribe<RxDatabaseEvent<CardDetails>>() {
                     @Override
                     public void subscribe(final ObservableEmitter<RxDatabaseEvent<CardDetails>> emitter) throws Exception {
+                        CardDetails cachedCard = mRepository.getCard(id);
+                        if (cachedCard != null) {
+                            emitter.onNext(
+                                    new RxDatabaseEvent<CardDetails>(
+                                            id,
+                                            cachedCard,
+                                            RxDatabaseEvent.EventType.ADDED
+                                    ));
+                            emitter.onComplete();
+                            return;
+                        }
+
                         mCardsQuery = mCardsReference.child(id);
 
                         mCardListener = new ValueEventListener() {
                             @Override
                             public void onDataChange(DataSnapshot dataSnapshot) {
-                                CardDetails cardDetails = dataSnapshot.getValue(CardDetails.class);
+                                Map<String, Object> value =
+                                        SnapshotValues.asMap(dataSnapshot.getValue());
+                                if (value == null) {
+                                    // No such card in this patch.
+                                    emitter.onComplete();
+                                    return;
+                                }
+
+                                CardDetails cardDetails = CardDetails.fromMap(value);
                                 cardDetails.setPatch(mPatch);
+                                cardDetails = CardStore.getInstance().intern(cardDetails, mPatch);
 
                                 emitter.onNext(
                                         new RxDatabaseEvent<CardDetails>(
@@ -148,10 +166,27 @@ public class CardsInteractorFirebase implements CardsInteractor {
         });
     }
 
+    /**
+     * Acquired lazily, so that an interactor can be used again after its listeners are removed.
+     */
+    private synchronized CardDataSource getCardSource() {
+        if (mCardSource == null) {
+            mCardSource = CardDataSource.acquire(mPatch);
+        }
+        return mCardSource;
+    }
+
     @Override
     public void removeListeners() {
         if (mCardsQuery != null) {
             mCardsQuery.removeEventListener(mCardListener);
         }
+
+        synchronized (this) {
+            if (mCardSource != null) {
+                mCardSource.release();
+                mCardSource = null;
+            }
+        }
     }
 }
@@ -16,6 +16,11 @@ public interface CollectionInteractor extends BaseInteractor<CollectionContract.
 
     void removeCardFromCollection(String cardId);
 
+    /**
+     * Writes any changes that are waiting to be written now.
+     */
+    void flushCollectionUpdates();
+
     Observable<Collection> getCollection();
 
     void stopCollectionUpdates();
@@ -13,24 +13,47 @@ import com.google.firebase.database.ValueEventListener;
 import com.jamieadkins.gwent.collection.CollectionContract;
 import com.jamieadkins.gwent.data.Collection;
 import com.jamieadkins.gwent.data.FirebaseUtils;
+import com.jamieadkins.gwent.data.SnapshotValues;
 
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.ObservableSource;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
 
 /**
  * Deals with firebase.
+ *
+ * Adding and removing cards is shown straight away, but only written once the user has stopped
+ * tapping for {@link #WRITE_DELAY_MS}, or when the collection is stopped. Each changed card is
+ * then written in its own transaction, so that edits made elsewhere in the meantime are kept.
  */
 
 public class CollectionInteractorFirebase implements CollectionInteractor {
+    private static final long WRITE_DELAY_MS = 1000;
+
     private CollectionContract.Presenter mPresenter;
     private final FirebaseDatabase mDatabase = FirebaseUtils.getDatabase();
     private final DatabaseReference mCollectionReference;
     private ValueEventListener mCollectionListener;
 
+    private final CollectionWriteBuffer mWriteBuffer = new CollectionWriteBuffer();
+    // Fires whenever a card is added or removed locally.
+    private final Subject<Object> mLocalChanges = PublishSubject.create().toSerialized();
+    private Disposable mWriteSubscription;
+    // The collection as last read from, or written to, Firebase.
+    private Collection mStoredCollection;
+
     private final String databasePath;
 
     public CollectionInteractorFirebase() {
@@ -39,61 +62,67 @@ public class CollectionInteractorFirebase implements CollectionInteractor {
         mCollectionReference = mDatabase.getReference(databasePath);
     }
 
+    /**
+     * Starts writing changes once the user stops tapping, until the collection is stopped.
+     */
+    private synchronized void startWriting() {
+        if (mWriteSubscription != null) {
+            return;
+        }
+
+        mWriteSubscription = mLocalChanges
+                .debounce(WRITE_DELAY_MS, TimeUnit.MILLISECONDS)
+                .subscribe(new Consumer<Object>() {
+                    @Override
+                    public void accept(Object change) throws Exception {
+                        flushCollectionUpdates();
+                    }
+                });
+    }
+
     @Override
     public void setPresenter(CollectionContract.Presenter presenter) {
         mPresenter = presenter;
     }
 
     @Override
-    public void addCardToCollection(final String cardId) {
-        // Transactions will ensure concurrency errors don't occur.
-        mCollectionReference.runTransaction(new Transaction.Handler() {
-            @Override
-            public Transaction.Result doTransaction(MutableData mutableData) {
-                Collection storedCollection = mutableData.getValue(Collection.class);
-
-                if (storedCollection.getCards().containsKey(cardId)) {
-                    // If the user already has at least one of these cards in their deck.
-                    int currentCardCount = storedCollection.getCards().get(cardId);
-                    storedCollection.getCards().put(cardId, currentCardCount + 1);
-                } else {
-                    // Else add one card to the deck.
-                    storedCollection.getCards().put(cardId, 1);
-                }
-
-                // Set value and report transaction success.
-                mutableData.setValue(storedCollection);
-                return Transaction.success(mutableData);
-            }
+    public void addCardToCollection(String cardId) {
+        startWriting();
+        mWriteBuffer.add(cardId, 1);
+        mLocalChanges.onNext(cardId);
+    }
 
-            @Override
-            public void onComplete(DatabaseError databaseError, boolean b,
-                                   DataSnapshot dataSnapshot) {
-                // Transaction completed
-                Log.d(getClass().getSimpleName(), "postTransaction:onComplete:" + databaseError);
-            }
-        });
+    @Override
+    public void removeCardFromCollection(String cardId) {
+        startWriting();
+        mWriteBuffer.add(cardId, -1);
+        mLocalChanges.onNext(cardId);
     }
 
     @Override
-    public void removeCardFromCollection(final String cardId) {
+    public synchronized void flushCollectionUpdates() {
+        if (mWriteBuffer.isEmpty()) {
+            return;
+        }
+
+        if (mStoredCollection != null) {
+            // Keep showing the new counts until Firebase tells us about them.
+            mStoredCollection = mWriteBuffer.apply(mStoredCollection);
+        }
+        for (Map.Entry<String, CollectionWriteBuffer.Change> change :
+                mWriteBuffer.drain().entrySet()) {
+            writeCard(change.getKey(), change.getValue());
+        }
+    }
+
+    private void writeCard(String cardId, final CollectionWriteBuffer.Change change) {
         // Transactions will ensure concurrency errors don't occur.
-        mCollectionReference.runTransaction(new Transaction.Handler() {
+        mCollectionReference.child("cards").child(cardId).runTransaction(new Transaction.Handler() {
             @Override
             public Transaction.Result doTransaction(MutableData mutableData) {
-                Collection storedCollection = mutableData.getValue(Collection.class);
-
-                if (storedCollection.getCards().containsKey(cardId)) {
-                    // If the user already has at least one of these cards in their deck.
-                    int currentCardCount = storedCollection.getCards().get(cardId);
-                    // Can't have a negative card amount.
-                    storedCollection.getCards().put(cardId, Math.max(currentCardCount - 1, 0));
-                } else {
-                    // This deck doesn't have that card in it.
-                }
-
-                // Set value and report transaction success.
-                mutableData.setValue(storedCollection);
+                Object value = mutableData.getValue();
+                int currentCardCount = value instanceof Number ? ((Number) value).intValue() : 0;
+                mutableData.setValue(change.apply(currentCardCount));
                 return Transaction.success(mutableData);
             }
 
@@ -108,17 +137,16 @@ public class CollectionInteractorFirebase implements CollectionInteractor {
 
     @Override
     public Observable<Collection> getCollection() {
-        return Observable.defer(new Callable<ObservableSource<? extends Collection>>() {
+        Observable<Collection> storedCollections = Observable.defer(new Callable<ObservableSource<? extends DataSnapshot>>() {
             @Override
-            public ObservableSource<? extends Collection> call() throws Exception {
-                return Observable.create(new ObservableOnSubscribe<Collection>() {
+            public ObservableSource<? extends DataSnapshot> call() throws Exception {
+                return Observable.create(new ObservableOnSubscribe<DataSnapshot>() {
                     @Override
-                    public void subscribe(final ObservableEmitter<Collection> emitter) throws Exception {
+                    public void subscribe(final ObservableEmitter<DataSnapshot> emitter) throws Exception {
                         mCollectionListener = new ValueEventListener() {
                             @Override
                             public void onDataChange(DataSnapshot dataSnapshot) {
-                                Collection collection = dataSnapshot.getValue(Collection.class);
-                                emitter.onNext(collection);
+                                emitter.onNext(dataSnapshot);
                             }
 
                             @Override
@@ -131,11 +159,55 @@ public class CollectionInteractorFirebase implements CollectionInteractor {
                     }
                 });
             }
-        });
+        })
+                // Firebase calls us back on the main thread, so deserialise in the background.
+                .observeOn(Schedulers.computation())
+                .map(new Function<DataSnapshot, Collection>() {
+                    @Override
+                    public Collection apply(DataSnapshot dataSnapshot) throws Exception {
+                        Map<String, Object> value = SnapshotValues.asMap(dataSnapshot.getValue());
+                        Collection collection =
+                                value != null ? Collection.fromMap(value) : new Collection();
+                        setStoredCollection(collection);
+                        return collection;
+                    }
+                });
+
+        // Show what is stored along with any changes that haven't been written yet.
+        return Observable.merge(storedCollections, mLocalChanges)
+                .filter(new Predicate<Object>() {
+                    @Override
+                    public boolean test(Object update) throws Exception {
+                        return getStoredCollection() != null;
+                    }
+                })
+                .map(new Function<Object, Collection>() {
+                    @Override
+                    public Collection apply(Object update) throws Exception {
+                        return mWriteBuffer.apply(getStoredCollection());
+                    }
+                });
+    }
+
+    private synchronized void setStoredCollection(Collection collection) {
+        mStoredCollection = collection;
+    }
+
+    private synchronized Collection getStoredCollection() {
+        return mStoredCollection;
     }
 
     @Override
     public void stopCollectionUpdates() {
-        mCollectionReference.removeEventListener(mCollectionListener);
+        flushCollectionUpdates();
+        synchronized (this) {
+            if (mWriteSubscription != null) {
+                mWriteSubscription.dispose();
+                mWriteSubscription = null;
+            }
+        }
+        if (mCollectionListener != null) {
+            mCollectionReference.removeEventListener(mCollectionListener);
+        }
     }
 }
@@ -0,0 +1,88 @@
+package com.jamieadkins.gwent.data.interactor;
+
+import com.jamieadkins.gwent.data.Collection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects changes to card counts in a collection until they are written to Firebase.
+ *
+ * Tapping add or remove a few times in a row only changes a local {@link Change} per card. Those
+ * changes are shown straight away by {@link #apply(Collection)}, and handed over to be written
+ * by {@link #drain()}.
+ */
+
+public class CollectionWriteBuffer {
+    private final Map<String, Change> mChanges = new HashMap<>();
+
+    /**
+     * The taps on one card, squashed into one function of the count they are applied to.
+     *
+     * Each tap adds to the count but never takes it below 0, so a tap is x -> max(x + d, 0).
+     * Any run of those is x -> max(x + offset, floor), which is all that needs to be kept: each
+     * tap still clamps as it would have on its own, whatever the count turns out to be.
+     */
+    public static class Change {
+        private int mOffset = 0;
+        private int mFloor = 0;
+
+        void add(int delta) {
+            mOffset += delta;
+            mFloor = Math.max(mFloor + delta, 0);
+        }
+
+        boolean isNone() {
+            // max(x, 0) is x for any count.
+            return mOffset == 0 && mFloor == 0;
+        }
+
+        /**
+         * @return the count after the taps, starting from the given count.
+         */
+        public int apply(int count) {
+            return Math.max(count + mOffset, mFloor);
+        }
+    }
+
+    public synchronized void add(String cardId, int delta) {
+        Change change = mChanges.get(cardId);
+        if (change == null) {
+            change = new Change();
+            mChanges.put(cardId, change);
+        }
+        change.add(delta);
+        if (change.isNone()) {
+            mChanges.remove(cardId);
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return mChanges.isEmpty();
+    }
+
+    /**
+     * @param stored the collection as it is in Firebase, which is not changed.
+     * @return a copy of the collection with the pending changes applied.
+     */
+    public synchronized Collection apply(Collection stored) {
+        Collection collection = new Collection();
+        collection.getCards().putAll(stored.getCards());
+        for (Map.Entry<String, Change> change : mChanges.entrySet()) {
+            Integer count = stored.getCards().get(change.getKey());
+            collection.getCards().put(change.getKey(),
+                    change.getValue().apply(count != null ? count : 0));
+        }
+        return collection;
+    }
+
+    /**
+     * Empties the buffer.
+     * @return the change to each card's count, to be applied to whatever it is when written.
+     */
+    public synchronized Map<String, Change> drain() {
+        Map<String, Change> changes = new HashMap<>(mChanges);
+        mChanges.clear();
+        return changes;
+    }
+}
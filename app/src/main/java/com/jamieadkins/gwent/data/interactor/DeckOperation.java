@@ -0,0 +1,86 @@
+package com.jamieadkins.gwent.data.interactor;
+
+/**
+ * A change to the number of copies of a card in one of the user's decks, which may not have
+ * been written to Firebase yet.
+ */
+
+public class DeckOperation {
+    private static final String SEPARATOR = "\t";
+
+    private final long mSequence;
+    private final String mUserId;
+    private final String mDeckId;
+    private final String mCardId;
+    private final int mDelta;
+
+    public DeckOperation(long sequence, String userId, String deckId, String cardId, int delta) {
+        mSequence = sequence;
+        mUserId = userId;
+        mDeckId = deckId;
+        mCardId = cardId;
+        mDelta = delta;
+    }
+
+    /**
+     * @return the position of the operation in the log. Operations are written in this order.
+     */
+    public long getSequence() {
+        return mSequence;
+    }
+
+    public String getUserId() {
+        return mUserId;
+    }
+
+    public String getDeckId() {
+        return mDeckId;
+    }
+
+    public String getCardId() {
+        return mCardId;
+    }
+
+    /**
+     * @return the number of copies added, or removed if negative.
+     */
+    public int getDelta() {
+        return mDelta;
+    }
+
+    /**
+     * @return the operation as one line of text. Firebase keys can't contain tabs or new lines.
+     */
+    public String encode() {
+        return mSequence + SEPARATOR + mUserId + SEPARATOR + mDeckId + SEPARATOR
+                + mCardId + SEPARATOR + mDelta;
+    }
+
+    /**
+     * @return the operation, or null if the line isn't one.
+     */
+    public static DeckOperation decode(String line) {
+        String[] parts = line.split(SEPARATOR);
+        if (parts.length != 5) {
+            return null;
+        }
+
+        try {
+            return new DeckOperation(Long.parseLong(parts[0]), parts[1], parts[2], parts[3],
+                    Integer.parseInt(parts[4]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof DeckOperation
+                && mSequence == ((DeckOperation) object).mSequence;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (mSequence ^ (mSequence >>> 32));
+    }
+}
@@ -0,0 +1,117 @@
+package com.jamieadkins.gwent.data.interactor;
+
+import com.jamieadkins.gwent.data.Deck;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered log of deck operations that haven't been written to Firebase yet.
+ *
+ * Pending operations are always applied on top of the latest deck we have from Firebase, so
+ * when someone else changes the deck our edits are rebased onto theirs rather than lost.
+ */
+
+public class DeckOperationLog {
+    // Written first, so sequences keep counting up after every operation has been sent.
+    private static final String NEXT_SEQUENCE = "next\t";
+
+    private final List<DeckOperation> mOperations = new ArrayList<>();
+    private long mNextSequence = 0;
+
+    public synchronized DeckOperation append(String userId, String deckId, String cardId,
+                                             int delta) {
+        DeckOperation operation =
+                new DeckOperation(mNextSequence++, userId, deckId, cardId, delta);
+        mOperations.add(operation);
+        return operation;
+    }
+
+    /**
+     * @return the oldest pending operation, or null if there are none.
+     */
+    public synchronized DeckOperation peek() {
+        return mOperations.isEmpty() ? null : mOperations.get(0);
+    }
+
+    /**
+     * Removes an operation once Firebase has accepted it.
+     */
+    public synchronized void acknowledge(DeckOperation operation) {
+        mOperations.remove(operation);
+    }
+
+    public synchronized List<DeckOperation> getPending(String userId, String deckId) {
+        List<DeckOperation> pending = new ArrayList<>();
+        for (DeckOperation operation : mOperations) {
+            if (operation.getUserId().equals(userId) && operation.getDeckId().equals(deckId)) {
+                pending.add(operation);
+            }
+        }
+        return pending;
+    }
+
+    public synchronized int size() {
+        return mOperations.size();
+    }
+
+    /**
+     * @param remoteDeck the deck as Firebase has it, which is not changed.
+     * @param appliedSequence the last operation Firebase has already applied to the deck. It can
+     *                        be seen before we hear the operation has been sent, and is skipped
+     *                        so that it isn't applied twice.
+     * @return a copy of the deck with this user's pending operations applied, in order.
+     */
+    public Deck rebase(String userId, Deck remoteDeck, long appliedSequence) {
+        Deck deck = new Deck(remoteDeck);
+        for (DeckOperation operation : getPending(userId, remoteDeck.getId())) {
+            if (operation.getSequence() <= appliedSequence) {
+                continue;
+            }
+
+            // Can't have a negative card amount, and the copy's stats have to follow.
+            deck.changeCardCount(operation.getCardId(), operation.getDelta());
+        }
+        return deck;
+    }
+
+    /**
+     * @return the next sequence then every pending operation, one per line.
+     */
+    public synchronized String encode() {
+        StringBuilder builder = new StringBuilder(NEXT_SEQUENCE).append(mNextSequence).append('\n');
+        for (DeckOperation operation : mOperations) {
+            builder.append(operation.encode()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reads a log written by {@link #encode()}, skipping any lines it can't read.
+     */
+    public static DeckOperationLog decode(String encoded) {
+        DeckOperationLog log = new DeckOperationLog();
+        if (encoded == null) {
+            return log;
+        }
+
+        for (String line : encoded.split("\n")) {
+            if (line.startsWith(NEXT_SEQUENCE)) {
+                try {
+                    long next = Long.parseLong(line.substring(NEXT_SEQUENCE.length()));
+                    log.mNextSequence = Math.max(log.mNextSequence, next);
+                } catch (NumberFormatException e) {
+                    // Fall back on the pending operations.
+                }
+                continue;
+            }
+
+            DeckOperation operation = DeckOperation.decode(line);
+            if (operation != null) {
+                log.mOperations.add(operation);
+                log.mNextSequence = Math.max(log.mNextSequence, operation.getSequence() + 1);
+            }
+        }
+        return log;
+    }
+}
@@ -0,0 +1,220 @@
+package com.jamieadkins.gwent.data.interactor;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import com.jamieadkins.gwent.data.Deck;
+import com.jamieadkins.gwent.data.FirebaseUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * Process-wide queue of edits to the user's decks.
+ *
+ * Edits are saved to a {@link DeckOperationLog} on disk and shown straight away. They are then
+ * written to Firebase one at a time, in order, retrying with a growing delay when a write fails.
+ * Each is removed from the log once Firebase has accepted it, so edits survive the app being
+ * killed while offline.
+ *
+ * An operation can be written and the app killed before it hears so, and then be sent again.
+ * Each write also records the operation's sequence in the deck, under this installation's id, so
+ * that it is only ever applied once, and so that rebasing skips it as soon as the deck shows it.
+ * Operations that fail for good, such as edits to a deck we can no longer write to, are dropped.
+ *
+ * The sequence and the card count have to change together, so each transaction runs on the whole
+ * deck rather than on one count. That means it conflicts with any other write to the deck, not
+ * just to the same card. Decks only hold ids and counts now, and the first edit drops any cards
+ * embedded by older versions, so the deck is around a kilobyte with its leader. Moving the counts
+ * under a child of their own would keep older versions from reading them.
+ */
+
+public class DeckOperationQueue {
+    private static final String PREFERENCES_NAME = "com.jamieadkins.gwent.deck.operations";
+    private static final String PREFERENCE_LOG = "log";
+    private static final String PREFERENCE_INSTALLATION_ID = "installation_id";
+    private static final long INITIAL_RETRY_DELAY_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 60 * 1000;
+
+    private static DeckOperationQueue sInstance;
+
+    private final SharedPreferences mPreferences;
+    private final DeckOperationLog mLog;
+    // Sequences only count up on this installation, so each keeps its own in the deck.
+    private final String mInstallationId;
+    // Ids of decks that have just been edited locally.
+    private final Subject<String> mChanges = PublishSubject.<String>create().toSerialized();
+    private DeckOperation mInFlight;
+    private long mRetryDelay = INITIAL_RETRY_DELAY_MS;
+
+    public static synchronized DeckOperationQueue getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new DeckOperationQueue(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private DeckOperationQueue(Context context) {
+        mPreferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        mLog = DeckOperationLog.decode(mPreferences.getString(PREFERENCE_LOG, null));
+        String installationId = mPreferences.getString(PREFERENCE_INSTALLATION_ID, null);
+        if (installationId == null) {
+            installationId = UUID.randomUUID().toString();
+            mPreferences.edit().putString(PREFERENCE_INSTALLATION_ID, installationId).apply();
+        }
+        mInstallationId = installationId;
+        // Carry on with anything left over from last time.
+        sendNext();
+    }
+
+    public void addCard(String userId, String deckId, String cardId) {
+        submit(userId, deckId, cardId, 1);
+    }
+
+    public void removeCard(String userId, String deckId, String cardId) {
+        submit(userId, deckId, cardId, -1);
+    }
+
+    private void submit(String userId, String deckId, String cardId, int delta) {
+        synchronized (this) {
+            mLog.append(userId, deckId, cardId, delta);
+            save();
+        }
+        mChanges.onNext(deckId);
+        sendNext();
+    }
+
+    /**
+     * @return a copy of the deck from Firebase with the user's pending edits applied.
+     */
+    public Deck rebase(String userId, Deck remoteDeck) {
+        return mLog.rebase(userId, remoteDeck, remoteDeck.getAppliedOperation(mInstallationId));
+    }
+
+    /**
+     * @return the id of a deck every time it is edited locally.
+     */
+    public Observable<String> getChanges() {
+        return mChanges;
+    }
+
+    private synchronized void sendNext() {
+        if (mInFlight != null) {
+            return;
+        }
+
+        mInFlight = mLog.peek();
+        if (mInFlight == null) {
+            return;
+        }
+
+        // Don't let Firebase show the transaction's result before it commits, we already show the
+        // operation through the log.
+        final DeckOperation operation = mInFlight;
+        FirebaseUtils.getDatabase()
+                .getReference("users/" + operation.getUserId() + "/decks/" + operation.getDeckId())
+                .runTransaction(new Transaction.Handler() {
+                    @Override
+                    public Transaction.Result doTransaction(MutableData mutableData) {
+                        if (mutableData.getValue() == null) {
+                            // The deck has been deleted, or we don't have it yet. Either way leave
+                            // it alone, Firebase runs this again if it has the deck.
+                            return Transaction.success(mutableData);
+                        }
+
+                        MutableData applied = mutableData.child(Deck.APPLIED_OPERATIONS)
+                                .child(mInstallationId);
+                        Object appliedSequence = applied.getValue();
+                        if (appliedSequence instanceof Number && ((Number) appliedSequence)
+                                .longValue() >= operation.getSequence()) {
+                            // Already written, we just didn't hear about it before.
+                            return Transaction.success(mutableData);
+                        }
+
+                        MutableData count = mutableData.child("cardCount")
+                                .child(operation.getCardId());
+                        Object currentCardCount = count.getValue();
+                        int newCardCount = (currentCardCount instanceof Number ?
+                                ((Number) currentCardCount).intValue() : 0) + operation.getDelta();
+                        if (newCardCount > 0) {
+                            count.setValue(newCardCount);
+                        } else {
+                            // No copies left, so take the card out of the deck.
+                            count.setValue(null);
+                        }
+                        applied.setValue(operation.getSequence());
+                        // Cards are looked up by id now, so stop carrying a copy of each.
+                        mutableData.child(Deck.LEGACY_CARDS).setValue(null);
+                        return Transaction.success(mutableData);
+                    }
+
+                    @Override
+                    public void onComplete(DatabaseError databaseError, boolean committed,
+                                           DataSnapshot dataSnapshot) {
+                        Log.d(getClass().getSimpleName(),
+                                "postTransaction:onComplete:" + databaseError);
+                        if (databaseError == null && committed) {
+                            // Also done if the deck no longer exists, there's nothing to edit.
+                            onSent(operation);
+                        } else if (databaseError != null && !isRetryable(databaseError)) {
+                            // Trying again would fail the same way, and hold up everything after.
+                            Log.w(getClass().getSimpleName(), "Dropping deck operation "
+                                    + operation.encode() + ": " + databaseError.getMessage());
+                            onSent(operation);
+                        } else {
+                            retryLater();
+                        }
+                    }
+                }, false);
+    }
+
+    private static boolean isRetryable(DatabaseError databaseError) {
+        switch (databaseError.getCode()) {
+            case DatabaseError.PERMISSION_DENIED:
+            case DatabaseError.INVALID_TOKEN:
+            case DatabaseError.USER_CODE_EXCEPTION:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private void onSent(DeckOperation operation) {
+        synchronized (this) {
+            mLog.acknowledge(operation);
+            save();
+            mInFlight = null;
+            mRetryDelay = INITIAL_RETRY_DELAY_MS;
+        }
+        mChanges.onNext(operation.getDeckId());
+        sendNext();
+    }
+
+    private synchronized void retryLater() {
+        long delay = mRetryDelay;
+        mRetryDelay = Math.min(mRetryDelay * 2, MAX_RETRY_DELAY_MS);
+        Observable.timer(delay, TimeUnit.MILLISECONDS).subscribe(new Consumer<Long>() {
+            @Override
+            public void accept(Long tick) throws Exception {
+                synchronized (DeckOperationQueue.this) {
+                    mInFlight = null;
+                }
+                sendNext();
+            }
+        });
+    }
+
+    private void save() {
+        mPreferences.edit().putString(PREFERENCE_LOG, mLog.encode()).apply();
+    }
+}
@@ -1,10 +1,15 @@
 package com.jamieadkins.gwent.data.interactor;
 
 import com.jamieadkins.commonutils.mvp.BaseInteractor;
+import com.jamieadkins.gwent.data.CardCooccurrence;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.Deck;
+import com.jamieadkins.gwent.data.DeckSummary;
+import com.jamieadkins.gwent.data.SimilarDeckIndex;
 import com.jamieadkins.gwent.deck.list.DecksContract;
 
+import java.util.List;
+
 import io.reactivex.Observable;
 
 /**
@@ -15,15 +20,63 @@ public interface DecksInteractor extends BaseInteractor<DecksContract.Presenter>
 
     void createNewDeck(String name, String faction, CardDetails leader, String patch);
 
+    /**
+     * @throws UnsupportedOperationException for public decks, which can't be edited.
+     */
     void addCardToDeck(Deck deck, CardDetails card);
 
+    /**
+     * @throws UnsupportedOperationException for public decks, which can't be edited.
+     */
     void removeCardFromDeck(Deck deck, CardDetails card);
 
     void publishDeck(Deck deck);
 
-    Observable<RxDatabaseEvent<Deck>> getDecks();
+    /**
+     * Saves the deck in a {@link com.jamieadkins.gwent.data.DeckCode} as a new deck.
+     * @return the new deck, or an IllegalArgumentException if the code can't be read.
+     */
+    Observable<Deck> importDeck(String name, String code);
+
+    /**
+     * @return a summary of every deck, for showing in a list.
+     */
+    Observable<RxDatabaseEvent<DeckSummary>> getDecks();
 
+    /**
+     * @return the whole deck, with its cards.
+     */
     Observable<RxDatabaseEvent<Deck>> getDeck(String deckId);
 
+    /**
+     * @return each of the decks, read once, in the order given, with their cards. Decks that don't
+     * exist are left out.
+     */
+    Observable<Deck> readDecks(List<String> deckIds);
+
+    /**
+     * @param deck the last deck already shown, or null for the first page.
+     * @return summaries of up to pageSize decks that come after it, read once.
+     */
+    Observable<List<DeckSummary>> getDecksAfter(DeckSummary deck, int pageSize);
+
+    /**
+     * @param deck the first deck already shown.
+     * @return summaries of up to pageSize decks that come before it, read once.
+     */
+    Observable<List<DeckSummary>> getDecksBefore(DeckSummary deck, int pageSize);
+
+    /**
+     * @return up to count public decks that share the most cards with the deck, most similar
+     * first. Emits again as public decks change.
+     */
+    Observable<List<SimilarDeckIndex.Match>> getSimilarDecks(Deck deck, int count);
+
+    /**
+     * @return up to count cards that are often played with the cards in the deck, best first.
+     * Emits again as public decks change.
+     */
+    Observable<List<CardCooccurrence.Recommendation>> getRecommendations(Deck deck, int count);
+
     void stopData();
 }
@@ -1,6 +1,7 @@
 package com.jamieadkins.gwent.data.interactor;
 
-import android.util.Log;
+import android.content.Context;
+import android.content.SharedPreferences;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.ChildEventListener;
@@ -8,23 +9,37 @@ import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.MutableData;
 import com.google.firebase.database.Query;
-import com.google.firebase.database.Transaction;
 import com.google.firebase.database.ValueEventListener;
+import com.jamieadkins.gwent.data.CardCooccurrence;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.Deck;
+import com.jamieadkins.gwent.data.DeckCode;
+import com.jamieadkins.gwent.data.DeckSummary;
 import com.jamieadkins.gwent.data.FirebaseUtils;
+import com.jamieadkins.gwent.data.MinHash;
+import com.jamieadkins.gwent.data.SimilarDeckIndex;
+import com.jamieadkins.gwent.data.SnapshotValues;
+import com.jamieadkins.gwent.data.repository.CardRepository;
 import com.jamieadkins.gwent.deck.list.DecksContract;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.ObservableSource;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * Deals with firebase.
@@ -32,30 +47,71 @@ import io.reactivex.ObservableSource;
 
 public class DecksInteractorFirebase implements DecksInteractor {
     private static final String PUBLIC_DECKS_PATH = "public-decks/";
+    private static final String PUBLIC_DECK_SUMMARIES_PATH = "public-deck-summaries/";
+    // The card ids in each public deck, which is all suggesting cards needs to read. Written when
+    // a deck is published, and for older decks as the public list reaches them, see getDeckPage.
+    // Until then suggestions come from the decks that have been listed.
+    private static final String PUBLIC_DECK_CARDS_PATH = "public-deck-cards/";
+    private static final String PREFERENCES_NAME = "com.jamieadkins.gwent.deck.summaries";
+    // Public decks arrive one event each, so wait for a pause before searching them.
+    private static final long PUBLIC_DECKS_DEBOUNCE_MS = 300;
 
     private DecksContract.Presenter mPresenter;
     private final FirebaseDatabase mDatabase = FirebaseUtils.getDatabase();
     private final DatabaseReference mDecksReference;
     private final DatabaseReference mPublicDecksReference;
-    private final Query mDecksQuery;
+    // Lists only read deck summaries, which live next to the decks.
+    private final String mDecksPath;
+    private final String mSummariesPath;
+    private final DatabaseReference mSummariesReference;
+    private final Query mSummariesQuery;
+    // Public decks in list order, for pages whose summaries may not have been written yet.
+    private final Query mPublicDecksQuery;
+    private final SharedPreferences mPreferences;
+    private final boolean mPublicDecks;
     private Query mDeckQuery;
-    private ChildEventListener mDecksListener;
+    private ChildEventListener mSummariesListener;
     private ValueEventListener mDeckDetailListener;
-
-    public DecksInteractorFirebase() {
-        this(false);
+    private ChildEventListener mSimilarDecksListener;
+    private ChildEventListener mRecommendationsListener;
+    private final DatabaseReference mPublicSummariesReference;
+    private final DatabaseReference mPublicCardsReference;
+    // Every public deck with a signature, kept up to date while similar decks are shown.
+    private final SimilarDeckIndex mSimilarDeckIndex = new SimilarDeckIndex();
+    // Which cards are played together in public decks, kept up to date while suggesting cards.
+    private final CardCooccurrence mCardCooccurrence = new CardCooccurrence();
+    // Card data for the patches of the decks we have read, by patch.
+    private final Map<String, CardDataSource> mCardSources = new HashMap<>();
+    // Edits to the user's decks, or null for public decks which can't be edited.
+    private final DeckOperationQueue mOperationQueue;
+    private final String mUserId;
+
+    public DecksInteractorFirebase(Context context) {
+        this(context, false);
     }
 
-    public DecksInteractorFirebase(boolean publicDecks) {
+    public DecksInteractorFirebase(Context context, boolean publicDecks) {
         mPublicDecksReference = mDatabase.getReference(PUBLIC_DECKS_PATH);
+        mPublicSummariesReference = mDatabase.getReference(PUBLIC_DECK_SUMMARIES_PATH);
+        mPublicCardsReference = mDatabase.getReference(PUBLIC_DECK_CARDS_PATH);
+        mPublicDecksQuery = mPublicDecksReference.orderByChild("week");
+        mPublicDecks = publicDecks;
         if (publicDecks) {
-            mDecksReference = mPublicDecksReference;
-            mDecksQuery = mDecksReference.orderByChild("week");
+            mDecksPath = PUBLIC_DECKS_PATH;
+            mSummariesPath = PUBLIC_DECK_SUMMARIES_PATH;
+            mOperationQueue = null;
+            mUserId = null;
         } else {
-            String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
-            mDecksReference = mDatabase.getReference("users/" + userId + "/decks/");
-            mDecksQuery = mDecksReference.orderByChild("name");
+            mUserId = FirebaseAuth.getInstance().getCurrentUser().getUid();
+            mDecksPath = "users/" + mUserId + "/decks/";
+            mSummariesPath = "users/" + mUserId + "/deck-summaries/";
+            mOperationQueue = DeckOperationQueue.getInstance(context);
         }
+        mDecksReference = mDatabase.getReference(mDecksPath);
+        mSummariesReference = mDatabase.getReference(mSummariesPath);
+        mSummariesQuery = mSummariesReference.orderByChild(publicDecks ? "week" : "name");
+        mPreferences = context.getApplicationContext()
+                .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
     }
 
     @Override
@@ -64,48 +120,49 @@ public class DecksInteractorFirebase implements DecksInteractor {
     }
 
     @Override
-    public Observable<RxDatabaseEvent<Deck>> getDecks() {
-        return Observable.defer(new Callable<ObservableSource<? extends RxDatabaseEvent<Deck>>>() {
+    public Observable<RxDatabaseEvent<DeckSummary>> getDecks() {
+        backfillSummaries();
+        Observable<RxDatabaseEvent<DataSnapshot>> snapshots = Observable.defer(new Callable<ObservableSource<? extends RxDatabaseEvent<DataSnapshot>>>() {
             @Override
-            public ObservableSource<? extends RxDatabaseEvent<Deck>> call() throws Exception {
-                return Observable.create(new ObservableOnSubscribe<RxDatabaseEvent<Deck>>() {
+            public ObservableSource<? extends RxDatabaseEvent<DataSnapshot>> call() throws Exception {
+                return Observable.create(new ObservableOnSubscribe<RxDatabaseEvent<DataSnapshot>>() {
                     @Override
-                    public void subscribe(final ObservableEmitter<RxDatabaseEvent<Deck>> emitter) throws Exception {
-                        mDecksListener = new ChildEventListener() {
+                    public void subscribe(final ObservableEmitter<RxDatabaseEvent<DataSnapshot>> emitter) throws Exception {
+                        mSummariesListener = new ChildEventListener() {
                             @Override
                             public void onChildAdded(DataSnapshot dataSnapshot, String s) {
                                 mPresenter.onLoadingComplete();
                                 emitter.onNext(
-                                        new RxDatabaseEvent<Deck>(
+                                        new RxDatabaseEvent<DataSnapshot>(
                                                 dataSnapshot.getKey(),
-                                                dataSnapshot.getValue(Deck.class),
+                                                dataSnapshot,
                                                 RxDatabaseEvent.EventType.ADDED));
                             }
 
                             @Override
                             public void onChildChanged(DataSnapshot dataSnapshot, String s) {
                                 emitter.onNext(
-                                        new RxDatabaseEvent<Deck>(
+                                        new RxDatabaseEvent<DataSnapshot>(
                                                 dataSnapshot.getKey(),
-                                                dataSnapshot.getValue(Deck.class),
+                                                dataSnapshot,
                                                 RxDatabaseEvent.EventType.CHANGED));
                             }
 
                             @Override
                             public void onChildRemoved(DataSnapshot dataSnapshot) {
                                 emitter.onNext(
-                                        new RxDatabaseEvent<Deck>(
+                                        new RxDatabaseEvent<DataSnapshot>(
                                                 dataSnapshot.getKey(),
-                                                dataSnapshot.getValue(Deck.class),
+                                                dataSnapshot,
                                                 RxDatabaseEvent.EventType.REMOVED));
                             }
 
                             @Override
                             public void onChildMoved(DataSnapshot dataSnapshot, String s) {
                                 emitter.onNext(
-                                        new RxDatabaseEvent<Deck>(
+                                        new RxDatabaseEvent<DataSnapshot>(
                                                 dataSnapshot.getKey(),
-                                                dataSnapshot.getValue(Deck.class),
+                                                dataSnapshot,
                                                 RxDatabaseEvent.EventType.MOVED));
                             }
 
@@ -115,29 +172,41 @@ public class DecksInteractorFirebase implements DecksInteractor {
                             }
                         };
 
-                        mDecksQuery.addChildEventListener(mDecksListener);
+                        mSummariesQuery.addChildEventListener(mSummariesListener);
                     }
                 });
             }
         });
+        return snapshots
+                .observeOn(Schedulers.computation())
+                .map(new Function<RxDatabaseEvent<DataSnapshot>, RxDatabaseEvent<DeckSummary>>() {
+                    @Override
+                    public RxDatabaseEvent<DeckSummary> apply(RxDatabaseEvent<DataSnapshot> event) throws Exception {
+                        Map<String, Object> value = SnapshotValues.asMap(event.getValue().getValue());
+                        return new RxDatabaseEvent<DeckSummary>(
+                                event.getKey(),
+                                value != null ? DeckSummary.fromMap(value) : null,
+                                event.getEventType());
+                    }
+                });
     }
 
     @Override
-    public Observable<RxDatabaseEvent<Deck>> getDeck(String deckId) {
+    public Observable<RxDatabaseEvent<Deck>> getDeck(final String deckId) {
         mDeckQuery = mDecksReference.child(deckId);
-        return Observable.defer(new Callable<ObservableSource<? extends RxDatabaseEvent<Deck>>>() {
+        Observable<RxDatabaseEvent<DataSnapshot>> snapshots = Observable.defer(new Callable<ObservableSource<? extends RxDatabaseEvent<DataSnapshot>>>() {
             @Override
-            public ObservableSource<? extends RxDatabaseEvent<Deck>> call() throws Exception {
-                return Observable.create(new ObservableOnSubscribe<RxDatabaseEvent<Deck>>() {
+            public ObservableSource<? extends RxDatabaseEvent<DataSnapshot>> call() throws Exception {
+                return Observable.create(new ObservableOnSubscribe<RxDatabaseEvent<DataSnapshot>>() {
                     @Override
-                    public void subscribe(final ObservableEmitter<RxDatabaseEvent<Deck>> emitter) throws Exception {
+                    public void subscribe(final ObservableEmitter<RxDatabaseEvent<DataSnapshot>> emitter) throws Exception {
                         mDeckDetailListener = new ValueEventListener() {
                             @Override
                             public void onDataChange(DataSnapshot dataSnapshot) {
                                 emitter.onNext(
-                                        new RxDatabaseEvent<Deck>(
+                                        new RxDatabaseEvent<DataSnapshot>(
                                                 dataSnapshot.getKey(),
-                                                dataSnapshot.getValue(Deck.class),
+                                                dataSnapshot,
                                                 RxDatabaseEvent.EventType.CHANGED));
                             }
 
@@ -152,29 +221,632 @@ public class DecksInteractorFirebase implements DecksInteractor {
                 });
             }
         });
+        if (mOperationQueue == null) {
+            return parseDecks(snapshots)
+                    .map(new Function<RxDatabaseEvent<Deck>, RxDatabaseEvent<Deck>>() {
+                        @Override
+                        public RxDatabaseEvent<Deck> apply(RxDatabaseEvent<Deck> event) throws Exception {
+                            return resolveDeck(event);
+                        }
+                    });
+        }
+
+        // Show the deck again whenever it is edited here, without waiting for Firebase.
+        Observable<String> localChanges = mOperationQueue.getChanges()
+                .filter(new Predicate<String>() {
+                    @Override
+                    public boolean test(String changedDeckId) throws Exception {
+                        return changedDeckId.equals(deckId);
+                    }
+                })
+                .startWith(deckId);
+        return Observable.combineLatest(parseDecks(snapshots), localChanges,
+                new BiFunction<RxDatabaseEvent<Deck>, String, RxDatabaseEvent<Deck>>() {
+                    @Override
+                    public RxDatabaseEvent<Deck> apply(RxDatabaseEvent<Deck> event, String changedDeckId) throws Exception {
+                        return resolveDeck(event);
+                    }
+                });
+    }
+
+    @Override
+    public Observable<Deck> readDecks(List<String> deckIds) {
+        return Observable.fromIterable(deckIds)
+                .concatMap(new Function<String, ObservableSource<DataSnapshot>>() {
+                    @Override
+                    public ObservableSource<DataSnapshot> apply(String deckId) throws Exception {
+                        return readOnce(mDecksReference.child(deckId));
+                    }
+                })
+                .observeOn(Schedulers.computation())
+                .concatMap(new Function<DataSnapshot, ObservableSource<Deck>>() {
+                    @Override
+                    public ObservableSource<Deck> apply(DataSnapshot dataSnapshot) throws Exception {
+                        Map<String, Object> value = SnapshotValues.asMap(dataSnapshot.getValue());
+                        if (value == null) {
+                            return Observable.empty();
+                        }
+
+                        final Deck deck = Deck.fromMap(value);
+                        return getCardSource(deck.getPatch()).getLoadedCards()
+                                .map(new Function<List<CardDetails>, Deck>() {
+                                    @Override
+                                    public Deck apply(List<CardDetails> cards) throws Exception {
+                                        return resolveDeck(deck);
+                                    }
+                                });
+                    }
+                });
+    }
+
+    @Override
+    public Observable<List<DeckSummary>> getDecksAfter(DeckSummary deck, int pageSize) {
+        return getDeckPage(deck, pageSize, true);
+    }
+
+    @Override
+    public Observable<List<DeckSummary>> getDecksBefore(DeckSummary deck, int pageSize) {
+        return getDeckPage(deck, pageSize, false);
+    }
+
+    /**
+     * @param ordered decks or summaries, in the order they are listed.
+     * @param cursor the deck to start after or end before, or null for the first page.
+     */
+    private Query getPageQuery(Query ordered, DeckSummary cursor, int pageSize, boolean after) {
+        if (cursor == null) {
+            return ordered.limitToFirst(pageSize);
+        }
+
+        // startAt and endAt include the cursor deck, so ask for one more and drop it.
+        if (after) {
+            Query query = mPublicDecks ?
+                    ordered.startAt(cursor.getWeek(), cursor.getId()) :
+                    ordered.startAt(cursor.getName(), cursor.getId());
+            return query.limitToFirst(pageSize + 1);
+        }
+        Query query = mPublicDecks ?
+                ordered.endAt(cursor.getWeek(), cursor.getId()) :
+                ordered.endAt(cursor.getName(), cursor.getId());
+        return query.limitToLast(pageSize + 1);
+    }
+
+    /**
+     * Reads one page of deck summaries, once.
+     *
+     * Public decks published before summaries existed only have the deck, and there are too many
+     * to backfill in one go. So when a page of public summaries comes back short, some may be
+     * missing. The same page of decks is read instead, and the summaries and card ids of any
+     * decks without them are written as they would have been when published. The last page is
+     * always short, so reaching it costs one more read of a page of decks.
+     */
+    private Observable<List<DeckSummary>> getDeckPage(DeckSummary cursor, final int pageSize,
+                                                      boolean after) {
+        final String cursorId = cursor != null ? cursor.getId() : null;
+        final Query summariesQuery = getPageQuery(mSummariesQuery, cursor, pageSize, after);
+        Observable<List<DeckSummary>> page = Observable.defer(new Callable<ObservableSource<? extends DataSnapshot>>() {
+            @Override
+            public ObservableSource<? extends DataSnapshot> call() throws Exception {
+                return readOnce(summariesQuery);
+            }
+        })
+                .observeOn(Schedulers.computation())
+                .map(new Function<DataSnapshot, List<DeckSummary>>() {
+                    @Override
+                    public List<DeckSummary> apply(DataSnapshot dataSnapshot) throws Exception {
+                        // Children come back in query order.
+                        List<DeckSummary> decks = new ArrayList<>();
+                        for (DataSnapshot deckSnapshot : dataSnapshot.getChildren()) {
+                            Map<String, Object> value = SnapshotValues.asMap(deckSnapshot.getValue());
+                            if (value != null && !deckSnapshot.getKey().equals(cursorId)) {
+                                decks.add(DeckSummary.fromMap(value));
+                            }
+                        }
+                        return decks;
+                    }
+                });
+        if (!mPublicDecks) {
+            return page;
+        }
+
+        final Query decksQuery = getPageQuery(mPublicDecksQuery, cursor, pageSize, after);
+        return page.concatMap(new Function<List<DeckSummary>, ObservableSource<List<DeckSummary>>>() {
+            @Override
+            public ObservableSource<List<DeckSummary>> apply(final List<DeckSummary> summaries) throws Exception {
+                if (summaries.size() >= pageSize) {
+                    return Observable.just(summaries);
+                }
+
+                return readOnce(decksQuery)
+                        .observeOn(Schedulers.computation())
+                        .map(new Function<DataSnapshot, List<DeckSummary>>() {
+                            @Override
+                            public List<DeckSummary> apply(DataSnapshot dataSnapshot) throws Exception {
+                                return backfillPublicSummaries(dataSnapshot, summaries, cursorId);
+                            }
+                        });
+            }
+        });
+    }
+
+    /**
+     * @param decksSnapshot a page of public decks.
+     * @param summaries what was found for the same page of summaries.
+     * @return a summary for every deck in the page, in order.
+     */
+    private List<DeckSummary> backfillPublicSummaries(DataSnapshot decksSnapshot,
+                                                      List<DeckSummary> summaries,
+                                                      String cursorId) {
+        Map<String, DeckSummary> summariesById = new HashMap<>();
+        for (DeckSummary summary : summaries) {
+            summariesById.put(summary.getId(), summary);
+        }
+
+        List<DeckSummary> decks = new ArrayList<>();
+        Map<String, Object> firebaseUpdates = new HashMap<>();
+        for (DataSnapshot deckSnapshot : decksSnapshot.getChildren()) {
+            String key = deckSnapshot.getKey();
+            Map<String, Object> value = SnapshotValues.asMap(deckSnapshot.getValue());
+            if (value == null || key.equals(cursorId)) {
+                continue;
+            }
+
+            DeckSummary summary = summariesById.get(key);
+            if (summary == null) {
+                // Decks this old embed their cards, so they don't need resolving.
+                Deck deck = Deck.fromMap(value);
+                summary = DeckSummary.of(deck);
+                firebaseUpdates.put(PUBLIC_DECK_SUMMARIES_PATH + key, summary.toMap());
+                firebaseUpdates.put(PUBLIC_DECK_CARDS_PATH + key, getCardIdValues(deck));
+            }
+            decks.add(summary);
+        }
+
+        if (!firebaseUpdates.isEmpty()) {
+            mDatabase.getReference().updateChildren(firebaseUpdates);
+        }
+        return decks;
+    }
+
+    private static Observable<DataSnapshot> readOnce(final Query query) {
+        return Observable.create(new ObservableOnSubscribe<DataSnapshot>() {
+            @Override
+            public void subscribe(final ObservableEmitter<DataSnapshot> emitter) throws Exception {
+                query.addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(DataSnapshot dataSnapshot) {
+                        emitter.onNext(dataSnapshot);
+                        emitter.onComplete();
+                    }
+
+                    @Override
+                    public void onCancelled(DatabaseError databaseError) {
+                        emitter.onError(databaseError.toException());
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Decks saved before summaries existed don't have one, so the first time we list the user's
+     * decks read every deck once and write its summary. Public decks are too many to read here,
+     * theirs are written as their pages are listed, see {@link #getDeckPage}.
+     */
+    private void backfillSummaries() {
+        if (mPublicDecks || mPreferences.getBoolean(mSummariesPath, false)) {
+            return;
+        }
+
+        readOnce(mDecksReference)
+                .observeOn(Schedulers.computation())
+                .concatMap(new Function<DataSnapshot, ObservableSource<Deck>>() {
+                    @Override
+                    public ObservableSource<Deck> apply(DataSnapshot dataSnapshot) throws Exception {
+                        List<Deck> decks = new ArrayList<>();
+                        for (DataSnapshot deckSnapshot : dataSnapshot.getChildren()) {
+                            Map<String, Object> value = SnapshotValues.asMap(deckSnapshot.getValue());
+                            if (value != null) {
+                                decks.add(Deck.fromMap(value));
+                            }
+                        }
+                        return Observable.fromIterable(decks);
+                    }
+                })
+                .concatMap(new Function<Deck, ObservableSource<Deck>>() {
+                    @Override
+                    public ObservableSource<Deck> apply(final Deck deck) throws Exception {
+                        return getCardSource(deck.getPatch()).getLoadedCards()
+                                .map(new Function<List<CardDetails>, Deck>() {
+                                    @Override
+                                    public Deck apply(List<CardDetails> cards) throws Exception {
+                                        return resolveDeck(deck);
+                                    }
+                                });
+                    }
+                })
+                .toMap(new Function<Deck, String>() {
+                    @Override
+                    public String apply(Deck deck) throws Exception {
+                        return deck.getId();
+                    }
+                }, new Function<Deck, Object>() {
+                    @Override
+                    public Object apply(Deck deck) throws Exception {
+                        return DeckSummary.of(deck).toMap();
+                    }
+                })
+                .subscribe(new Consumer<Map<String, Object>>() {
+                    @Override
+                    public void accept(Map<String, Object> summaries) throws Exception {
+                        mSummariesReference.updateChildren(summaries,
+                                new DatabaseReference.CompletionListener() {
+                                    @Override
+                                    public void onComplete(DatabaseError databaseError,
+                                                           DatabaseReference databaseReference) {
+                                        if (databaseError == null) {
+                                            mPreferences.edit()
+                                                    .putBoolean(mSummariesPath, true)
+                                                    .apply();
+                                        }
+                                    }
+                                });
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        // Try again next time.
+                    }
+                });
+    }
+
+    @Override
+    public Observable<List<SimilarDeckIndex.Match>> getSimilarDecks(final Deck deck,
+                                                                    final int count) {
+        final int[] signature = MinHash.signature(deck.getCardCount());
+        Observable<RxDatabaseEvent<DataSnapshot>> snapshots = Observable.defer(new Callable<ObservableSource<? extends RxDatabaseEvent<DataSnapshot>>>() {
+            @Override
+            public ObservableSource<? extends RxDatabaseEvent<DataSnapshot>> call() throws Exception {
+                return Observable.create(new ObservableOnSubscribe<RxDatabaseEvent<DataSnapshot>>() {
+                    @Override
+                    public void subscribe(final ObservableEmitter<RxDatabaseEvent<DataSnapshot>> emitter) throws Exception {
+                        mSimilarDecksListener = new ChildEventListener() {
+                            @Override
+                            public void onChildAdded(DataSnapshot dataSnapshot, String s) {
+                                emitter.onNext(
+                                        new RxDatabaseEvent<DataSnapshot>(
+                                                dataSnapshot.getKey(),
+                                                dataSnapshot,
+                                                RxDatabaseEvent.EventType.ADDED));
+                            }
+
+                            @Override
+                            public void onChildChanged(DataSnapshot dataSnapshot, String s) {
+                                emitter.onNext(
+                                        new RxDatabaseEvent<DataSnapshot>(
+                                                dataSnapshot.getKey(),
+                                                dataSnapshot,
+                                                RxDatabaseEvent.EventType.CHANGED));
+                            }
+
+                            @Override
+                            public void onChildRemoved(DataSnapshot dataSnapshot) {
+                                emitter.onNext(
+                                        new RxDatabaseEvent<DataSnapshot>(
+                                                dataSnapshot.getKey(),
+                                                dataSnapshot,
+                                                RxDatabaseEvent.EventType.REMOVED));
+                            }
+
+                            @Override
+                            public void onChildMoved(DataSnapshot dataSnapshot, String s) {
+
+                            }
+
+                            @Override
+                            public void onCancelled(DatabaseError databaseError) {
+
+                            }
+                        };
+
+                        final ChildEventListener listener = mSimilarDecksListener;
+                        mPublicSummariesReference.addChildEventListener(listener);
+                        emitter.setCancellable(new Cancellable() {
+                            @Override
+                            public void cancel() throws Exception {
+                                mPublicSummariesReference.removeEventListener(listener);
+                            }
+                        });
+                    }
+                });
+            }
+        });
+
+        Observable<String> changes = snapshots
+                .observeOn(Schedulers.computation())
+                .map(new Function<RxDatabaseEvent<DataSnapshot>, String>() {
+                    @Override
+                    public String apply(RxDatabaseEvent<DataSnapshot> event) throws Exception {
+                        Map<String, Object> value = SnapshotValues.asMap(event.getValue().getValue());
+                        if (event.getEventType() == RxDatabaseEvent.EventType.REMOVED || value == null) {
+                            mSimilarDeckIndex.remove(event.getKey());
+                        } else {
+                            mSimilarDeckIndex.put(DeckSummary.fromMap(value));
+                        }
+                        return event.getKey();
+                    }
+                });
+        return withInitialLoad(changes, mPublicSummariesReference)
+                .debounce(PUBLIC_DECKS_DEBOUNCE_MS, TimeUnit.MILLISECONDS)
+                .map(new Function<String, List<SimilarDeckIndex.Match>>() {
+                    @Override
+                    public List<SimilarDeckIndex.Match> apply(String changedDeckId) throws Exception {
+                        return mSimilarDeckIndex.findSimilar(signature, count, deck.getId());
+                    }
+                });
+    }
+
+    @Override
+    public Observable<List<CardCooccurrence.Recommendation>> getRecommendations(final Deck deck,
+                                                                               final int count) {
+        Observable<RxDatabaseEvent<DataSnapshot>> snapshots = Observable.defer(new Callable<ObservableSource<? extends RxDatabaseEvent<DataSnapshot>>>() {
+            @Override
+            public ObservableSource<? extends RxDatabaseEvent<DataSnapshot>> call() throws Exception {
+                return Observable.create(new ObservableOnSubscribe<RxDatabaseEvent<DataSnapshot>>() {
+                    @Override
+                    public void subscribe(final ObservableEmitter<RxDatabaseEvent<DataSnapshot>> emitter) throws Exception {
+                        mRecommendationsListener = new ChildEventListener() {
+                            @Override
+                            public void onChildAdded(DataSnapshot dataSnapshot, String s) {
+                                emitter.onNext(
+                                        new RxDatabaseEvent<DataSnapshot>(
+                                                dataSnapshot.getKey(),
+                                                dataSnapshot,
+                                                RxDatabaseEvent.EventType.ADDED));
+                            }
+
+                            @Override
+                            public void onChildChanged(DataSnapshot dataSnapshot, String s) {
+                                emitter.onNext(
+                                        new RxDatabaseEvent<DataSnapshot>(
+                                                dataSnapshot.getKey(),
+                                                dataSnapshot,
+                                                RxDatabaseEvent.EventType.CHANGED));
+                            }
+
+                            @Override
+                            public void onChildRemoved(DataSnapshot dataSnapshot) {
+                                emitter.onNext(
+                                        new RxDatabaseEvent<DataSnapshot>(
+                                                dataSnapshot.getKey(),
+                                                dataSnapshot,
+                                                RxDatabaseEvent.EventType.REMOVED));
+                            }
+
+                            @Override
+                            public void onChildMoved(DataSnapshot dataSnapshot, String s) {
+
+                            }
+
+                            @Override
+                            public void onCancelled(DatabaseError databaseError) {
+
+                            }
+                        };
+
+                        final ChildEventListener listener = mRecommendationsListener;
+                        mPublicCardsReference.addChildEventListener(listener);
+                        emitter.setCancellable(new Cancellable() {
+                            @Override
+                            public void cancel() throws Exception {
+                                mPublicCardsReference.removeEventListener(listener);
+                            }
+                        });
+                    }
+                });
+            }
+        });
+
+        Observable<String> changes = snapshots
+                .observeOn(Schedulers.computation())
+                .map(new Function<RxDatabaseEvent<DataSnapshot>, String>() {
+                    @Override
+                    public String apply(RxDatabaseEvent<DataSnapshot> event) throws Exception {
+                        Map<String, Object> value = SnapshotValues.asMap(event.getValue().getValue());
+                        if (event.getEventType() == RxDatabaseEvent.EventType.REMOVED || value == null) {
+                            mCardCooccurrence.removeDeck(event.getKey());
+                        } else {
+                            mCardCooccurrence.putDeck(event.getKey(), value.keySet());
+                        }
+                        return event.getKey();
+                    }
+                });
+        return withInitialLoad(changes, mPublicCardsReference)
+                .debounce(PUBLIC_DECKS_DEBOUNCE_MS, TimeUnit.MILLISECONDS)
+                .map(new Function<String, List<CardCooccurrence.Recommendation>>() {
+                    @Override
+                    public List<CardCooccurrence.Recommendation> apply(String changedDeckId) throws Exception {
+                        return mCardCooccurrence.recommend(getCardIds(deck), count);
+                    }
+                });
+    }
+
+    /**
+     * Children only arrive as events, so with none there would be nothing to debounce and no
+     * result. Also emit the query's key once everything already there has loaded. Firebase
+     * shares the data with the child listener, so it is only downloaded once.
+     */
+    private static Observable<String> withInitialLoad(Observable<String> changes, Query query) {
+        return Observable.merge(changes, readOnce(query)
+                .map(new Function<DataSnapshot, String>() {
+                    @Override
+                    public String apply(DataSnapshot dataSnapshot) throws Exception {
+                        return dataSnapshot.getKey();
+                    }
+                }));
+    }
+
+    /**
+     * @return the cards in the deck. Leaders are left out, as they can't be added to a deck.
+     */
+    private static List<String> getCardIds(Deck deck) {
+        List<String> cardIds = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : deck.getCardCount().entrySet()) {
+            if (entry.getValue() > 0) {
+                cardIds.add(entry.getKey());
+            }
+        }
+        return cardIds;
+    }
+
+    /**
+     * @return the cards in the deck as stored for suggesting cards, each id mapped to true.
+     */
+    private static Map<String, Object> getCardIdValues(Deck deck) {
+        Map<String, Object> cardValues = new HashMap<>();
+        for (String cardId : getCardIds(deck)) {
+            cardValues.put(cardId, true);
+        }
+        return cardValues;
+    }
+
+    /**
+     * Firebase calls us back on the main thread, so deserialise decks on a background thread.
+     * Decks only store card ids, so each one then waits for its patch's cards to be loaded.
+     * observeOn and concatMap keep the events in order.
+     */
+    private Observable<RxDatabaseEvent<Deck>> parseDecks(
+            Observable<RxDatabaseEvent<DataSnapshot>> snapshots) {
+        return snapshots
+                .observeOn(Schedulers.computation())
+                .map(new Function<RxDatabaseEvent<DataSnapshot>, RxDatabaseEvent<Deck>>() {
+                    @Override
+                    public RxDatabaseEvent<Deck> apply(RxDatabaseEvent<DataSnapshot> event) throws Exception {
+                        Map<String, Object> value = SnapshotValues.asMap(event.getValue().getValue());
+                        return new RxDatabaseEvent<Deck>(
+                                event.getKey(),
+                                value != null ? Deck.fromMap(value) : null,
+                                event.getEventType());
+                    }
+                })
+                .concatMap(new Function<RxDatabaseEvent<Deck>, ObservableSource<RxDatabaseEvent<Deck>>>() {
+                    @Override
+                    public ObservableSource<RxDatabaseEvent<Deck>> apply(final RxDatabaseEvent<Deck> event) throws Exception {
+                        final Deck deck = event.getValue();
+                        if (deck == null) {
+                            return Observable.just(event);
+                        }
+
+                        return getCardSource(deck.getPatch()).getLoadedCards()
+                                .map(new Function<List<CardDetails>, RxDatabaseEvent<Deck>>() {
+                                    @Override
+                                    public RxDatabaseEvent<Deck> apply(List<CardDetails> cards) throws Exception {
+                                        return event;
+                                    }
+                                });
+                    }
+                });
+    }
+
+    /**
+     * @return the event with a copy of its deck, with any pending edits applied and its cards
+     * looked up. The patch's cards must already be loaded.
+     */
+    private RxDatabaseEvent<Deck> resolveDeck(RxDatabaseEvent<Deck> event) {
+        if (event.getValue() == null) {
+            return event;
+        }
+
+        return new RxDatabaseEvent<Deck>(
+                event.getKey(), resolveDeck(event.getValue()), event.getEventType());
+    }
+
+    private Deck resolveDeck(Deck remoteDeck) {
+        Deck deck = mOperationQueue != null ?
+                mOperationQueue.rebase(mUserId, remoteDeck) : new Deck(remoteDeck);
+        deck.resolveCards(CardRepository.getInstance(deck.getPatch()));
+        return deck;
+    }
+
+    private CardDataSource getCardSource(String patch) {
+        synchronized (mCardSources) {
+            CardDataSource source = mCardSources.get(patch);
+            if (source == null) {
+                source = CardDataSource.acquire(patch);
+                mCardSources.put(patch, source);
+            }
+            return source;
+        }
     }
 
     @Override
     public void stopData() {
-        if (mDecksQuery != null && mDecksListener != null) {
-            mDecksQuery.removeEventListener(mDecksListener);
+        if (mSummariesListener != null) {
+            mSummariesQuery.removeEventListener(mSummariesListener);
         }
         if (mDeckQuery != null && mDeckDetailListener != null) {
             mDeckQuery.removeEventListener(mDeckDetailListener);
         }
+        if (mSimilarDecksListener != null) {
+            mPublicSummariesReference.removeEventListener(mSimilarDecksListener);
+        }
+        if (mRecommendationsListener != null) {
+            mPublicCardsReference.removeEventListener(mRecommendationsListener);
+        }
+        synchronized (mCardSources) {
+            for (CardDataSource source : mCardSources.values()) {
+                source.release();
+            }
+            mCardSources.clear();
+        }
     }
 
     @Override
     public void createNewDeck(String name, String faction, CardDetails leader, String patch) {
         String key = mDecksReference.push().getKey();
         String author = FirebaseAuth.getInstance().getCurrentUser().getUid();
-        Deck deck = new Deck(key, name, faction, leader, author, patch);
-        Map<String, Object> deckValues = deck.toMap();
+        saveNewDeck(new Deck(key, name, faction, leader, author, patch));
+    }
+
+    @Override
+    public Observable<Deck> importDeck(final String name, final String code) {
+        final String patch;
+        try {
+            patch = DeckCode.getPatch(code);
+        } catch (IllegalArgumentException e) {
+            return Observable.error(e);
+        }
+
+        // Only the patch's cards are needed, which are usually loaded already.
+        return getCardSource(patch).getLoadedCards()
+                .observeOn(Schedulers.computation())
+                .map(new Function<List<CardDetails>, Deck>() {
+                    @Override
+                    public Deck apply(List<CardDetails> cards) throws Exception {
+                        Deck decoded = DeckCode.decode(code, CardRepository.getInstance(patch));
+                        String key = mDecksReference.push().getKey();
+                        String author = FirebaseAuth.getInstance().getCurrentUser().getUid();
+                        Deck deck = new Deck(key, name, decoded.getFactionId(),
+                                decoded.getLeader(), author, patch);
+                        for (Map.Entry<String, CardDetails> entry : decoded.getCards().entrySet()) {
+                            int copies = decoded.getCardCount().get(entry.getKey());
+                            for (int copy = 0; copy < copies; copy++) {
+                                deck.addCard(entry.getValue());
+                            }
+                        }
+                        saveNewDeck(deck);
+                        return deck;
+                    }
+                });
+    }
 
+    private void saveNewDeck(Deck deck) {
+        // Write the deck and its summary together.
         Map<String, Object> firebaseUpdates = new HashMap<>();
-        firebaseUpdates.put(key, deckValues);
+        firebaseUpdates.put(mDecksPath + deck.getId(), deck.toMap());
+        firebaseUpdates.put(mSummariesPath + deck.getId(), DeckSummary.of(deck).toMap());
 
-        mDecksReference.updateChildren(firebaseUpdates);
+        mDatabase.getReference().updateChildren(firebaseUpdates);
     }
 
     @Override
@@ -185,88 +857,48 @@ public class DecksInteractorFirebase implements DecksInteractor {
         deckValues.put("id", key);
         deckValues.put("publicDeck", true);
         deckValues.put("week", 0);
+        Map<String, Object> summaryValues = DeckSummary.of(deck).toMap();
+        summaryValues.put("id", key);
+        summaryValues.put("publicDeck", true);
+        summaryValues.put("week", 0);
+
         Map<String, Object> firebaseUpdates = new HashMap<>();
-        firebaseUpdates.put(key, deckValues);
+        firebaseUpdates.put(PUBLIC_DECKS_PATH + key, deckValues);
+        firebaseUpdates.put(PUBLIC_DECK_SUMMARIES_PATH + key, summaryValues);
+        firebaseUpdates.put(PUBLIC_DECK_CARDS_PATH + key, getCardIdValues(deck));
 
-        mPublicDecksReference.updateChildren(firebaseUpdates);
+        mDatabase.getReference().updateChildren(firebaseUpdates);
     }
 
     @Override
-    public void addCardToDeck(Deck deck, final CardDetails card) {
-        DatabaseReference deckReference = mDecksReference.child(deck.getId());
-
-        // Transactions will ensure concurrency errors don't occur.
-        deckReference.runTransaction(new Transaction.Handler() {
-            @Override
-            public Transaction.Result doTransaction(MutableData mutableData) {
-                Deck storedDeck = mutableData.getValue(Deck.class);
-                if (storedDeck == null) {
-                    // No deck with that id, this shouldn't occur.
-                    return Transaction.success(mutableData);
-                }
-
-                if (storedDeck.getCardCount().containsKey(card.getIngameId())) {
-                    // If the user already has at least one of these cards in their deck.
-                    int currentCardCount = storedDeck.getCardCount().get(card.getIngameId());
-                    storedDeck.getCardCount().put(card.getIngameId(), currentCardCount + 1);
-                } else {
-                    // Else add one card to the deck.
-                    storedDeck.getCardCount().put(card.getIngameId(), 1);
-                }
-
-                storedDeck.getCards().put(card.getIngameId(), card);
-
-                // Set value and report transaction success.
-                mutableData.setValue(storedDeck);
-                return Transaction.success(mutableData);
-            }
-
-            @Override
-            public void onComplete(DatabaseError databaseError, boolean b,
-                                   DataSnapshot dataSnapshot) {
-                // Transaction completed
-                Log.d(getClass().getSimpleName(), "postTransaction:onComplete:" + databaseError);
-            }
-        });
+    public void addCardToDeck(Deck deck, CardDetails card) {
+        checkEditable();
+        mOperationQueue.addCard(mUserId, deck.getId(), card.getIngameId());
+        Deck editedDeck = new Deck(deck);
+        editedDeck.addCard(card);
+        saveSummary(editedDeck);
     }
 
     @Override
-    public void removeCardFromDeck(Deck deck, final CardDetails card) {
-        DatabaseReference deckReference = mDecksReference.child(deck.getId());
-
-        // Transactions will ensure concurrency errors don't occur.
-        deckReference.runTransaction(new Transaction.Handler() {
-            @Override
-            public Transaction.Result doTransaction(MutableData mutableData) {
-                Deck storedDeck = mutableData.getValue(Deck.class);
-                if (storedDeck == null) {
-                    // No deck with that id, this shouldn't occur.
-                    return Transaction.success(mutableData);
-                }
-
-                if (storedDeck.getCardCount().containsKey(card.getIngameId())) {
-                    // If the user already has at least one of these cards in their deck.
-                    int currentCardCount = storedDeck.getCardCount().get(card.getIngameId());
-                    storedDeck.getCardCount().put(card.getIngameId(), currentCardCount - 1);
-
-                    if (currentCardCount == 0) {
-                        storedDeck.getCards().put(card.getIngameId(), null);
-                    }
-                } else {
-                    // This deck doesn't have that card in it.
-                }
+    public void removeCardFromDeck(Deck deck, CardDetails card) {
+        checkEditable();
+        mOperationQueue.removeCard(mUserId, deck.getId(), card.getIngameId());
+        Deck editedDeck = new Deck(deck);
+        editedDeck.removeCard(card);
+        saveSummary(editedDeck);
+    }
 
-                // Set value and report transaction success.
-                mutableData.setValue(storedDeck);
-                return Transaction.success(mutableData);
-            }
+    private void checkEditable() {
+        if (mOperationQueue == null) {
+            throw new UnsupportedOperationException("Public decks can't be edited.");
+        }
+    }
 
-            @Override
-            public void onComplete(DatabaseError databaseError, boolean b,
-                                   DataSnapshot dataSnapshot) {
-                // Transaction completed
-                Log.d(getClass().getSimpleName(), "postTransaction:onComplete:" + databaseError);
-            }
-        });
+    /**
+     * The summary is worked out from the whole deck, so it is simply overwritten. Firebase keeps
+     * the write until it can be sent.
+     */
+    private void saveSummary(Deck deck) {
+        mSummariesReference.child(deck.getId()).setValue(DeckSummary.of(deck).toMap());
     }
 }
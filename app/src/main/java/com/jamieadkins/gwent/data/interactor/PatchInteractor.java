@@ -4,6 +4,7 @@ import com.jamieadkins.commonutils.mvp.BaseInteractor;
 import com.jamieadkins.commonutils.mvp.BasePresenter;
 import com.jamieadkins.gwent.card.CardFilter;
 import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.repository.PatchDiff;
 
 import io.reactivex.Observable;
 
@@ -14,4 +15,9 @@ import io.reactivex.Observable;
 public interface PatchInteractor extends BaseInteractor<BasePresenter> {
 
     Observable<String> getLatestPatch();
+
+    /**
+     * Loads both patches if needed, then works out every card that changed between them.
+     */
+    Observable<PatchDiff> getPatchChanges(String oldPatch, String newPatch);
 }
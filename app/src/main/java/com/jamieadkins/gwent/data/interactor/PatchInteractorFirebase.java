@@ -10,13 +10,19 @@ import com.jamieadkins.commonutils.mvp.BasePresenter;
 import com.jamieadkins.gwent.card.CardFilter;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.FirebaseUtils;
+import com.jamieadkins.gwent.data.repository.CardQueryCache;
+import com.jamieadkins.gwent.data.repository.PatchDiff;
 
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.ObservableSource;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.BiFunction;
 
 /**
  * Deals with firebase.
@@ -45,7 +51,9 @@ public class PatchInteractorFirebase implements PatchInteractor {
                         ValueEventListener patchListener = new ValueEventListener() {
                             @Override
                             public void onDataChange(DataSnapshot dataSnapshot) {
-                                emitter.onNext(dataSnapshot.getValue(String.class));
+                                String patch = dataSnapshot.getValue(String.class);
+                                CardQueryCache.getInstance().onLatestPatch(patch);
+                                emitter.onNext(patch);
                                 emitter.onComplete();
                             }
 
@@ -62,6 +70,41 @@ public class PatchInteractorFirebase implements PatchInteractor {
         });
     }
 
+    @Override
+    public Observable<PatchDiff> getPatchChanges(final String oldPatch, final String newPatch) {
+        return Observable.defer(new Callable<ObservableSource<? extends PatchDiff>>() {
+            @Override
+            public ObservableSource<? extends PatchDiff> call() throws Exception {
+                final CardDataSource oldSource = CardDataSource.acquire(oldPatch);
+                final CardDataSource newSource = CardDataSource.acquire(newPatch);
+                final AtomicBoolean released = new AtomicBoolean(false);
+                Action release = new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        // Called once, whether we finish or are disposed first.
+                        if (released.compareAndSet(false, true)) {
+                            oldSource.release();
+                            newSource.release();
+                        }
+                    }
+                };
+
+                return Observable.zip(
+                        oldSource.getLoadedCards(),
+                        newSource.getLoadedCards(),
+                        new BiFunction<List<CardDetails>, List<CardDetails>, PatchDiff>() {
+                            @Override
+                            public PatchDiff apply(List<CardDetails> oldCards,
+                                                   List<CardDetails> newCards) throws Exception {
+                                return PatchDiff.diff(oldPatch, oldCards, newPatch, newCards);
+                            }
+                        })
+                        .doOnTerminate(release)
+                        .doOnDispose(release);
+            }
+        });
+    }
+
     @Override
     public void setPresenter(BasePresenter presenter) {
         // Do nothing.
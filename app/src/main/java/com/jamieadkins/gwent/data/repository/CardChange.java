@@ -0,0 +1,101 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A card that was added, removed or modified between two patches.
+ */
+
+public class CardChange {
+    public static final String NAME = "name";
+    public static final String INFO = "info";
+    public static final String FACTION = "faction";
+    public static final String TYPE = "type";
+    public static final String RARITY = "rarity";
+    public static final String STRENGTH = "strength";
+    public static final String LANE = "lane";
+    public static final String LOYALTY = "loyalty";
+    // Anything else, e.g. art, flavor text or crafting costs.
+    public static final String OTHER = "other";
+
+    private final Kind mKind;
+    private final CardDetails mOldCard;
+    private final CardDetails mNewCard;
+    private final List<String> mChangedFields;
+    // The patch that getCard() comes from.
+    private final String mPatch;
+
+    CardChange(Kind kind, CardDetails oldCard, CardDetails newCard, List<String> changedFields,
+               String patch) {
+        mKind = kind;
+        mOldCard = oldCard;
+        mNewCard = newCard;
+        mChangedFields = Collections.unmodifiableList(changedFields);
+        mPatch = patch;
+    }
+
+    public Kind getKind() {
+        return mKind;
+    }
+
+    /**
+     * @return the card as it is now, or as it was if it has been removed.
+     */
+    public CardDetails getCard() {
+        return mNewCard != null ? mNewCard : mOldCard;
+    }
+
+    /**
+     * @return the patch to show {@link #getCard()} from: the new one, or the old one if the card
+     * has been removed. Cards can be shared between patches, so their own patch may be either.
+     */
+    public String getPatch() {
+        return mPatch;
+    }
+
+    /**
+     * @return the card in the old patch, or null if it has been added.
+     */
+    public CardDetails getOldCard() {
+        return mOldCard;
+    }
+
+    /**
+     * @return the card in the new patch, or null if it has been removed.
+     */
+    public CardDetails getNewCard() {
+        return mNewCard;
+    }
+
+    /**
+     * @return the fields that changed, in the order of the constants above. Empty unless the
+     * card was modified.
+     */
+    public List<String> getChangedFields() {
+        return mChangedFields;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof CardChange)) {
+            return false;
+        }
+
+        CardChange other = (CardChange) object;
+        return mKind == other.mKind && getCard().equals(other.getCard());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mKind.hashCode() + getCard().getIngameId().hashCode();
+    }
+
+    public enum Kind {
+        ADDED,
+        REMOVED,
+        MODIFIED
+    }
+}
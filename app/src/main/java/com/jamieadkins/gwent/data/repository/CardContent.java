@@ -0,0 +1,143 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+
+import java.util.Map;
+
+/**
+ * Compares cards by everything about them, rather than just by id like
+ * {@link CardDetails#equals(Object)}. The patch a card was loaded from is ignored.
+ */
+
+public final class CardContent {
+
+    private CardContent() {
+    }
+
+    /**
+     * @return a hash of every field of the card, equal for cards with the same content.
+     */
+    public static int hash(CardDetails card) {
+        int result = hash(card.getIngameId());
+        result = 31 * result + hash(card.getName());
+        result = 31 * result + hash(card.getInfo());
+        result = 31 * result + hash(card.getFaction());
+        result = 31 * result + hash(card.getLane());
+        result = 31 * result + hash(card.getType());
+        result = 31 * result + hash(card.getLoyalty());
+        result = 31 * result + card.getStrength();
+        result = 31 * result + hash(card.getFlavor());
+        result = 31 * result + (card.isReleased() ? 1 : 0);
+        result = 31 * result + hash(card.getCategory());
+
+        Map<String, CardDetails.Variation> variations = card.getVariations();
+        if (variations != null) {
+            // Summed, so that the order of the map doesn't matter.
+            int variationsHash = 0;
+            for (Map.Entry<String, CardDetails.Variation> entry : variations.entrySet()) {
+                variationsHash += hash(entry.getKey()) ^ hash(entry.getValue());
+            }
+            result = 31 * result + variationsHash;
+        }
+        return result;
+    }
+
+    public static boolean isSame(CardDetails first, CardDetails second) {
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null) {
+            return false;
+        }
+
+        return equal(first.getIngameId(), second.getIngameId())
+                && equal(first.getName(), second.getName())
+                && equal(first.getInfo(), second.getInfo())
+                && equal(first.getFaction(), second.getFaction())
+                && equal(first.getLane(), second.getLane())
+                && equal(first.getType(), second.getType())
+                && equal(first.getLoyalty(), second.getLoyalty())
+                && first.getStrength() == second.getStrength()
+                && equal(first.getFlavor(), second.getFlavor())
+                && first.isReleased() == second.isReleased()
+                && equal(first.getCategory(), second.getCategory())
+                && isSame(first.getVariations(), second.getVariations());
+    }
+
+    public static boolean isSame(CardDetails.Variation first, CardDetails.Variation second) {
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null) {
+            return false;
+        }
+
+        return equal(first.getVariationId(), second.getVariationId())
+                && equal(first.getAvailability(), second.getAvailability())
+                && equal(first.getRarity(), second.getRarity())
+                && first.isCollectible() == second.isCollectible()
+                && equal(first.getCraft(), second.getCraft())
+                && equal(first.getMill(), second.getMill())
+                && isSame(first.getArt(), second.getArt());
+    }
+
+    public static boolean isSame(CardDetails.Art first, CardDetails.Art second) {
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null) {
+            return false;
+        }
+
+        return equal(first.getFullsizeImageUrl(), second.getFullsizeImageUrl())
+                && equal(first.getThumbnailImageUrl(), second.getThumbnailImageUrl())
+                && equal(first.getArtist(), second.getArtist());
+    }
+
+    private static boolean isSame(Map<String, CardDetails.Variation> first,
+                                  Map<String, CardDetails.Variation> second) {
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null || first.size() != second.size()) {
+            return false;
+        }
+
+        for (Map.Entry<String, CardDetails.Variation> entry : first.entrySet()) {
+            if (!second.containsKey(entry.getKey())
+                    || !isSame(entry.getValue(), second.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CardDetails.Variation variation) {
+        if (variation == null) {
+            return 0;
+        }
+
+        int result = hash(variation.getVariationId());
+        result = 31 * result + hash(variation.getAvailability());
+        result = 31 * result + hash(variation.getRarity());
+        result = 31 * result + (variation.isCollectible() ? 1 : 0);
+        result = 31 * result + hash(variation.getCraft());
+        result = 31 * result + hash(variation.getMill());
+
+        CardDetails.Art art = variation.getArt();
+        if (art != null) {
+            result = 31 * result + hash(art.getFullsizeImageUrl());
+            result = 31 * result + hash(art.getThumbnailImageUrl());
+            result = 31 * result + hash(art.getArtist());
+        }
+        return result;
+    }
+
+    private static int hash(Object object) {
+        return object != null ? object.hashCode() : 0;
+    }
+
+    private static boolean equal(Object first, Object second) {
+        return first == null ? second == null : first.equals(second);
+    }
+}
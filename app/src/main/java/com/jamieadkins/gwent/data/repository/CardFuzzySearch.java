@@ -0,0 +1,247 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typo tolerant search over card names, backed by a BK-tree of the words in each name.
+ *
+ * A BK-tree lets us skip every word whose distance to the query can't be within the limit, using
+ * the triangle inequality, so only a small part of the tree is ever visited.
+ */
+
+public class CardFuzzySearch {
+    public static final int MAX_DISTANCE = 2;
+
+    private final List<CardDetails> mCards;
+    private Node mRoot;
+
+    // Reused between distance calculations so that searching doesn't allocate per word.
+    private int[] mPreviousRow = new int[32];
+    private int[] mCurrentRow = new int[32];
+
+    /**
+     * @param cards cards to index. The position of a card in the list is its index.
+     */
+    public CardFuzzySearch(List<CardDetails> cards) {
+        mCards = cards;
+
+        Map<String, Node> nodes = new HashMap<>();
+        for (int i = 0; i < cards.size(); i++) {
+            String name = normalise(cards.get(i).getName());
+            for (String word : name.split(" ")) {
+                addWord(nodes, word, i);
+            }
+            // Let people search the full name without spaces too, e.g. "geraltigni".
+            addWord(nodes, name.replace(" ", ""), i);
+        }
+    }
+
+    /**
+     * Not thread safe, as the distance buffers are shared.
+     * @return up to limit cards whose names are closest to the query, closest first.
+     */
+    public List<CardDetails> search(String query, int limit) {
+        return search(query, null, limit);
+    }
+
+    /**
+     * Not thread safe, as the distance buffers are shared.
+     * @param allowed the indexes of the cards that can be returned, or null for any card. These
+     *                are picked from before the limit is applied.
+     * @return up to limit of the allowed cards whose names are closest to the query, closest
+     * first.
+     */
+    public List<CardDetails> search(String query, BitSet allowed, int limit) {
+        List<CardDetails> cards = new ArrayList<>();
+        String[] terms = normalise(query).split(" ");
+        if (mRoot == null || terms.length == 0 || terms[0].isEmpty()) {
+            return cards;
+        }
+
+        // Total distance for each card. A card has to be close to every term to be included.
+        final int[] distances = new int[mCards.size()];
+        BitSet matches = new BitSet(mCards.size());
+        if (allowed != null) {
+            matches.or(allowed);
+        } else {
+            matches.set(0, mCards.size());
+        }
+
+        for (String term : terms) {
+            int[] termDistances = new int[mCards.size()];
+            Arrays.fill(termDistances, Integer.MAX_VALUE);
+            BitSet termMatches = new BitSet(mCards.size());
+            search(mRoot, term, getMaxDistance(term), termDistances, termMatches);
+
+            matches.and(termMatches);
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                distances[i] += termDistances[i];
+            }
+        }
+
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            indexes.add(i);
+        }
+        Collections.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                if (distances[first] != distances[second]) {
+                    return distances[first] - distances[second];
+                }
+                return first - second;
+            }
+        });
+
+        for (int i = 0; i < indexes.size() && i < limit; i++) {
+            cards.add(mCards.get(indexes.get(i)));
+        }
+        return cards;
+    }
+
+    private void search(Node node, String term, int maxDistance,
+                        int[] distances, BitSet matches) {
+        int distance = distance(node.mWord, term);
+        if (distance <= maxDistance) {
+            for (int i = node.mCards.nextSetBit(0); i >= 0; i = node.mCards.nextSetBit(i + 1)) {
+                distances[i] = Math.min(distances[i], distance);
+                matches.set(i);
+            }
+        }
+
+        // Only children whose edge is within maxDistance of our distance can hold a match.
+        for (int edge = Math.max(1, distance - maxDistance);
+             edge <= distance + maxDistance && edge < node.mChildren.length; edge++) {
+            if (node.mChildren[edge] != null) {
+                search(node.mChildren[edge], term, maxDistance, distances, matches);
+            }
+        }
+    }
+
+    private void addWord(Map<String, Node> nodes, String word, int cardIndex) {
+        if (word.isEmpty()) {
+            return;
+        }
+
+        Node existing = nodes.get(word);
+        if (existing != null) {
+            existing.mCards.set(cardIndex);
+            return;
+        }
+
+        Node node = new Node(word);
+        node.mCards.set(cardIndex);
+        nodes.put(word, node);
+
+        if (mRoot == null) {
+            mRoot = node;
+            return;
+        }
+
+        Node parent = mRoot;
+        while (true) {
+            int distance = distance(parent.mWord, word);
+            if (distance >= parent.mChildren.length) {
+                Node[] children = new Node[distance + 1];
+                System.arraycopy(parent.mChildren, 0, children, 0, parent.mChildren.length);
+                parent.mChildren = children;
+            }
+
+            if (parent.mChildren[distance] == null) {
+                parent.mChildren[distance] = node;
+                return;
+            }
+            parent = parent.mChildren[distance];
+        }
+    }
+
+    /**
+     * Levenshtein distance between two words. This has to be exact, rather than stopping once
+     * past the limit, as the tree is pruned using it.
+     */
+    private int distance(String first, String second) {
+        int firstLength = first.length();
+        int secondLength = second.length();
+
+        if (mPreviousRow.length <= secondLength) {
+            mPreviousRow = new int[secondLength + 1];
+            mCurrentRow = new int[secondLength + 1];
+        }
+        int[] previous = mPreviousRow;
+        int[] current = mCurrentRow;
+
+        for (int j = 0; j <= secondLength; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= firstLength; i++) {
+            current[0] = i;
+            char firstChar = first.charAt(i - 1);
+            for (int j = 1; j <= secondLength; j++) {
+                int cost = firstChar == second.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1),
+                        previous[j - 1] + cost);
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[secondLength];
+    }
+
+    /**
+     * Short terms would match almost anything with two edits, so allow fewer.
+     */
+    private static int getMaxDistance(String term) {
+        if (term.length() <= 2) {
+            return 0;
+        } else if (term.length() <= 4) {
+            return 1;
+        } else {
+            return MAX_DISTANCE;
+        }
+    }
+
+    /**
+     * Lower case, without punctuation, so "Scoia'tael" and "scoiatael" are the same word.
+     */
+    private static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean lastWasSpace = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                builder.append(Character.toLowerCase(c));
+                lastWasSpace = false;
+            } else if (Character.isWhitespace(c) && !lastWasSpace) {
+                builder.append(' ');
+                lastWasSpace = true;
+            }
+        }
+        return builder.toString().trim();
+    }
+
+    private static class Node {
+        private final String mWord;
+        private final BitSet mCards = new BitSet();
+        private Node[] mChildren = new Node[0];
+
+        private Node(String word) {
+            mWord = word;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.card.CardFilter;
+import com.jamieadkins.gwent.data.CardDetails;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide cache of card query results, keyed by patch and filter.
+ *
+ * Screens ask for the same few filters again and again, e.g. every card when switching tabs or
+ * the leaders of a faction when creating a deck. The least recently used result is dropped once
+ * the cache is full.
+ */
+
+public class CardQueryCache {
+    public static final int MAX_ENTRIES = 32;
+
+    private static CardQueryCache sInstance;
+
+    private final Map<Key, List<CardDetails>> mResults =
+            new LinkedHashMap<Key, List<CardDetails>>(MAX_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, List<CardDetails>> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+    private String mLatestPatch;
+    private int mHitCount = 0;
+    private int mMissCount = 0;
+
+    public static synchronized CardQueryCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new CardQueryCache();
+        }
+        return sInstance;
+    }
+
+    /**
+     * @return the cached cards for this filter, or null if they need to be queried.
+     */
+    public synchronized List<CardDetails> get(String patch, CardFilter filter) {
+        List<CardDetails> cards = mResults.get(new Key(patch, filter));
+        if (cards != null) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return cards;
+    }
+
+    /**
+     * @param cards should not be changed after being cached, as they are shared with every
+     *              later caller.
+     */
+    public synchronized void put(String patch, CardFilter filter, List<CardDetails> cards) {
+        // Copy the filter, so later changes to it can't change the key.
+        mResults.put(new Key(patch, new CardFilter(filter)), cards);
+    }
+
+    /**
+     * Drops every result for a patch, e.g. when its cards have been reloaded.
+     */
+    public synchronized void invalidate(String patch) {
+        Iterator<Key> keys = mResults.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().mPatch.equals(patch)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Called with the latest patch. If it has changed, results for older patches are dropped as
+     * they won't be asked for again.
+     */
+    public synchronized void onLatestPatch(String patch) {
+        if (patch == null || patch.equals(mLatestPatch)) {
+            return;
+        }
+
+        Iterator<Key> keys = mResults.keySet().iterator();
+        while (keys.hasNext()) {
+            if (!keys.next().mPatch.equals(patch)) {
+                keys.remove();
+            }
+        }
+        mLatestPatch = patch;
+    }
+
+    public synchronized void clear() {
+        mResults.clear();
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    public synchronized int size() {
+        return mResults.size();
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    private static class Key {
+        private final String mPatch;
+        private final CardFilter mFilter;
+
+        private Key(String patch, CardFilter filter) {
+            mPatch = patch;
+            mFilter = filter;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) object;
+            return mPatch.equals(other.mPatch) && mFilter.equals(other.mFilter);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mPatch.hashCode() + mFilter.hashCode();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.card.CardFilter;
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.Faction;
+import com.jamieadkins.gwent.data.Position;
+import com.jamieadkins.gwent.data.Rarity;
+import com.jamieadkins.gwent.data.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide, in-memory copy of every card in a patch. There is one repository per patch, and
+ * several can be loaded at once as cards are shared between them through the {@link CardStore}.
+ *
+ * Cards are held in name order and given a dense index, so that each faction, rarity, type and
+ * lane can be kept as a bitmap. A filter query is then just a few bitmap intersections instead
+ * of a download and a scan of the whole card tree.
+ */
+
+public class CardRepository {
+    private static final Map<String, CardRepository> sRepositories = new HashMap<>();
+
+    private static final String[] ALL_LANES = new String[] {
+            Position.EVENT, Position.MELEE, Position.RANGED, Position.SIEGE};
+    private static final int FUZZY_SEARCH_LIMIT = 10;
+
+    private final String mPatch;
+    private List<CardDetails> mCards;
+    private Map<String, Integer> mCardIndexes;
+    // Card ids in id order, which unlike names don't change with the language.
+    private String[] mIdOrder;
+    private int mIdHash;
+    private Map<String, BitSet> mFactionIndex;
+    private Map<String, BitSet> mRarityIndex;
+    private Map<String, BitSet> mTypeIndex;
+    private Map<String, BitSet> mLaneIndex;
+    private BitSet mReleased;
+    private CardSearchIndex mSearchIndex;
+    private CardFuzzySearch mFuzzySearch;
+    private boolean mLoaded = false;
+
+    public static synchronized CardRepository getInstance(String patch) {
+        CardRepository repository = sRepositories.get(patch);
+        if (repository == null) {
+            repository = new CardRepository(patch);
+            sRepositories.put(patch, repository);
+        }
+        return repository;
+    }
+
+    /**
+     * Forgets the patch's repository and lets go of its cards, for when it won't be used again.
+     */
+    public static synchronized void remove(String patch) {
+        if (sRepositories.remove(patch) != null) {
+            CardStore.getInstance().release(patch);
+            CardQueryCache.getInstance().invalidate(patch);
+        }
+    }
+
+    private CardRepository(String patch) {
+        mPatch = patch;
+    }
+
+    public String getPatch() {
+        return mPatch;
+    }
+
+    public synchronized boolean isLoaded() {
+        return mLoaded;
+    }
+
+    /**
+     * Replaces the contents of the repository and rebuilds all of the indexes. Cards that are
+     * the same as in a patch that is already loaded are replaced by that patch's copy.
+     * @param cards every card in the patch
+     */
+    public synchronized void load(Collection<CardDetails> cards) {
+        CardStore store = CardStore.getInstance();
+        // Let go of the cards from last time, so changed ones aren't held forever.
+        store.release(mPatch);
+        List<CardDetails> sorted = new ArrayList<>(cards.size());
+        for (CardDetails card : cards) {
+            sorted.add(store.intern(card, mPatch));
+        }
+        // Keep the same order Firebase gives us when ordering by name.
+        Collections.sort(sorted, new Comparator<CardDetails>() {
+            @Override
+            public int compare(CardDetails first, CardDetails second) {
+                if (first.getName() == null) {
+                    return second.getName() == null ? 0 : -1;
+                } else if (second.getName() == null) {
+                    return 1;
+                }
+                return first.getName().compareTo(second.getName());
+            }
+        });
+
+        mCards = Collections.unmodifiableList(sorted);
+        mCardIndexes = new HashMap<>();
+        mFactionIndex = createIndex(Faction.ALL_FACTIONS);
+        mRarityIndex = createIndex(Rarity.ALL_RARITIES);
+        mTypeIndex = createIndex(Type.ALL_TYPES);
+        mLaneIndex = createIndex(ALL_LANES);
+        mReleased = new BitSet(sorted.size());
+
+        for (int i = 0; i < sorted.size(); i++) {
+            CardDetails card = sorted.get(i);
+            mCardIndexes.put(card.getIngameId(), i);
+            setBit(mFactionIndex, card.getFaction(), i);
+            setBit(mTypeIndex, card.getType(), i);
+            if (card.getVariations() != null) {
+                setBit(mRarityIndex, card.getRarity(), i);
+            }
+            if (card.getLane() != null) {
+                for (String lane : card.getLane()) {
+                    setBit(mLaneIndex, lane, i);
+                }
+            }
+            if (card.isReleased()) {
+                mReleased.set(i);
+            }
+        }
+
+        List<String> ids = new ArrayList<>(sorted.size());
+        for (CardDetails card : sorted) {
+            if (card.getIngameId() != null) {
+                ids.add(card.getIngameId());
+            }
+        }
+        mIdOrder = ids.toArray(new String[ids.size()]);
+        Arrays.sort(mIdOrder);
+        mIdHash = Arrays.hashCode(mIdOrder);
+
+        mSearchIndex = new CardSearchIndex(mCards);
+        mFuzzySearch = new CardFuzzySearch(mCards);
+        mLoaded = true;
+        CardQueryCache.getInstance().invalidate(mPatch);
+    }
+
+    public synchronized CardDetails getCard(String cardId) {
+        Integer index = mCardIndexes != null ? mCardIndexes.get(cardId) : null;
+        return index != null ? mCards.get(index) : null;
+    }
+
+    /**
+     * @return the position of the card among the patch's card ids in id order, or a negative
+     * number if it isn't in the patch. Stable for as long as the patch's cards don't change.
+     */
+    public synchronized int getIdIndex(String cardId) {
+        return mIdOrder != null && cardId != null ? Arrays.binarySearch(mIdOrder, cardId) : -1;
+    }
+
+    /**
+     * @return the card id at the position, see {@link #getIdIndex(String)}, or null.
+     */
+    public synchronized String getIdAt(int idIndex) {
+        return mIdOrder != null && idIndex >= 0 && idIndex < mIdOrder.length ?
+                mIdOrder[idIndex] : null;
+    }
+
+    /**
+     * @return the number of card ids, see {@link #getIdIndex(String)}.
+     */
+    public synchronized int getIdCount() {
+        return mIdOrder != null ? mIdOrder.length : 0;
+    }
+
+    /**
+     * @return a hash of the card ids in id order, to tell whether two copies of the patch have
+     * the same ids. String hashes are the same on every device.
+     */
+    public synchronized int getIdHash() {
+        return mIdHash;
+    }
+
+    public synchronized List<CardDetails> getAllCards() {
+        return mCards != null ? mCards : Collections.<CardDetails>emptyList();
+    }
+
+    /**
+     * @return all cards that meet the filter. Cards are in name order, unless the filter has a
+     * search query in which case the best matches come first. If nothing contains the search
+     * query, the cards with the closest names are returned instead.
+     */
+    public synchronized List<CardDetails> getCards(CardFilter filter) {
+        return getCards(filter, null);
+    }
+
+    /**
+     * Same as {@link #getCards(CardFilter)}, but only considers the given cards.
+     * @param candidates cards to choose from, or null for every card
+     * @return an unmodifiable list, which may be shared with other callers.
+     */
+    public synchronized List<CardDetails> getCards(CardFilter filter,
+                                                   Collection<CardDetails> candidates) {
+        if (!mLoaded || candidates != null) {
+            // Candidates change with every search, so aren't worth caching.
+            return Collections.unmodifiableList(queryCards(filter, candidates));
+        }
+
+        CardQueryCache cache = CardQueryCache.getInstance();
+        List<CardDetails> cards = cache.get(mPatch, filter);
+        if (cards == null) {
+            cards = Collections.unmodifiableList(queryCards(filter, null));
+            cache.put(mPatch, filter, cards);
+        }
+        return cards;
+    }
+
+    private List<CardDetails> queryCards(CardFilter filter, Collection<CardDetails> candidates) {
+        List<CardDetails> cards = new ArrayList<>();
+        if (!mLoaded) {
+            return cards;
+        }
+
+        if (filter.getCardIds() != null) {
+            // If there are card ids specified, use them only.
+            for (String cardId : filter.getCardIds()) {
+                CardDetails card = getCard(cardId);
+                if (card != null && (candidates == null || candidates.contains(card))) {
+                    cards.add(card);
+                }
+            }
+            return cards;
+        }
+
+        BitSet matches = (BitSet) mReleased.clone();
+        matches.and(union(mFactionIndex, filter));
+        matches.and(union(mRarityIndex, filter));
+        matches.and(union(mTypeIndex, filter));
+        if (candidates != null) {
+            matches.and(getIndexes(candidates));
+        }
+
+        if (filter.getSearchQuery() != null) {
+            for (CardSearchResult result : mSearchIndex.search(filter.getSearchQuery())) {
+                if (matches.get(result.getIndex())) {
+                    cards.add(result.getCard());
+                }
+            }
+
+            if (cards.isEmpty()) {
+                // Probably a typo. Only look among the cards that pass the filter, so that the
+                // closest matches outside it don't use up the limit.
+                cards.addAll(mFuzzySearch.search(
+                        filter.getSearchQuery(), matches, FUZZY_SEARCH_LIMIT));
+            }
+            return cards;
+        }
+
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            cards.add(mCards.get(i));
+        }
+        return cards;
+    }
+
+    /**
+     * Case insensitive substring search over card names and info.
+     * @return matching cards, best match first, with offsets to highlight.
+     */
+    public synchronized List<CardSearchResult> search(String query) {
+        if (!mLoaded) {
+            return new ArrayList<>();
+        }
+        return mSearchIndex.search(query);
+    }
+
+    /**
+     * Typo tolerant search over card names, allowing up to
+     * {@link CardFuzzySearch#MAX_DISTANCE} edits per word.
+     * @return up to limit cards, closest match first.
+     */
+    public synchronized List<CardDetails> fuzzySearch(String query, int limit) {
+        if (!mLoaded) {
+            return new ArrayList<>();
+        }
+        return mFuzzySearch.search(query, limit);
+    }
+
+    /**
+     * @return a copy of the bitmap of card indexes that can be played in the given lane.
+     */
+    public synchronized BitSet getLaneIndex(String lane) {
+        BitSet bits = mLaneIndex != null ? mLaneIndex.get(lane) : null;
+        return bits != null ? (BitSet) bits.clone() : new BitSet();
+    }
+
+    private BitSet getIndexes(Collection<CardDetails> cards) {
+        BitSet indexes = new BitSet(mCards.size());
+        for (CardDetails card : cards) {
+            Integer index = mCardIndexes.get(card.getIngameId());
+            if (index != null) {
+                indexes.set(index);
+            }
+        }
+        return indexes;
+    }
+
+    private static Map<String, BitSet> createIndex(String[] keys) {
+        Map<String, BitSet> index = new HashMap<>();
+        for (String key : keys) {
+            index.put(key, new BitSet());
+        }
+        return index;
+    }
+
+    private static void setBit(Map<String, BitSet> index, String key, int bit) {
+        if (key == null) {
+            return;
+        }
+
+        BitSet bits = index.get(key);
+        if (bits == null) {
+            bits = new BitSet();
+            index.put(key, bits);
+        }
+        bits.set(bit);
+    }
+
+    private static BitSet union(Map<String, BitSet> index, CardFilter filter) {
+        BitSet result = new BitSet();
+        for (String key : index.keySet()) {
+            if (filter.get(key)) {
+                result.or(index.get(key));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigram inverted index over card names and info text.
+ *
+ * Each query term is narrowed down to candidate cards by intersecting the postings of its
+ * trigrams, then confirmed with a substring check that also records where it matched. Matching
+ * is case insensitive and every term in the query has to be found in either the name or info.
+ */
+
+public class CardSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    // Scores for where a term was found. Name matches matter far more than info matches.
+    private static final int SCORE_NAME_PREFIX = 100;
+    private static final int SCORE_NAME_WORD = 60;
+    private static final int SCORE_NAME = 40;
+    private static final int SCORE_INFO_WORD = 10;
+    private static final int SCORE_INFO = 5;
+
+    private final List<CardDetails> mCards;
+    private final String[] mNames;
+    private final String[] mInfos;
+    private final Map<String, BitSet> mPostings;
+
+    /**
+     * @param cards cards to index. The position of a card in the list is its index.
+     */
+    public CardSearchIndex(List<CardDetails> cards) {
+        mCards = cards;
+        mNames = new String[cards.size()];
+        mInfos = new String[cards.size()];
+        mPostings = new HashMap<>();
+
+        for (int i = 0; i < cards.size(); i++) {
+            CardDetails card = cards.get(i);
+            mNames[i] = normalise(card.getName());
+            mInfos[i] = normalise(card.getInfo());
+            addGrams(mNames[i], i);
+            addGrams(mInfos[i], i);
+        }
+    }
+
+    /**
+     * @return cards that contain every term of the query, highest scoring first.
+     */
+    public List<CardSearchResult> search(String query) {
+        String[] terms = tokenise(query);
+        List<CardSearchResult> results = new ArrayList<>();
+        if (terms.length == 0) {
+            return results;
+        }
+
+        BitSet candidates = new BitSet(mCards.size());
+        candidates.set(0, mCards.size());
+        for (String term : terms) {
+            candidates.and(getCandidates(term));
+        }
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            CardSearchResult result = match(i, terms);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+
+        Collections.sort(results, new Comparator<CardSearchResult>() {
+            @Override
+            public int compare(CardSearchResult first, CardSearchResult second) {
+                if (first.getScore() != second.getScore()) {
+                    return second.getScore() - first.getScore();
+                }
+                // Fall back to name order, which is the order of the indexed list.
+                return first.getIndex() - second.getIndex();
+            }
+        });
+        return results;
+    }
+
+    private CardSearchResult match(int index, String[] terms) {
+        List<int[]> nameOffsets = new ArrayList<>();
+        List<int[]> infoOffsets = new ArrayList<>();
+        int score = 0;
+
+        for (String term : terms) {
+            int nameStart = mNames[index].indexOf(term);
+            int infoStart = mInfos[index].indexOf(term);
+            if (nameStart < 0 && infoStart < 0) {
+                return null;
+            }
+
+            if (nameStart >= 0) {
+                nameOffsets.add(new int[] {nameStart, nameStart + term.length()});
+                if (nameStart == 0) {
+                    score += SCORE_NAME_PREFIX;
+                } else if (isWordStart(mNames[index], nameStart)) {
+                    score += SCORE_NAME_WORD;
+                } else {
+                    score += SCORE_NAME;
+                }
+            }
+
+            if (infoStart >= 0) {
+                infoOffsets.add(new int[] {infoStart, infoStart + term.length()});
+                score += isWordStart(mInfos[index], infoStart) ? SCORE_INFO_WORD : SCORE_INFO;
+            }
+        }
+
+        return new CardSearchResult(mCards.get(index), index, score, nameOffsets, infoOffsets);
+    }
+
+    private BitSet getCandidates(String term) {
+        BitSet candidates = new BitSet(mCards.size());
+        candidates.set(0, mCards.size());
+        if (term.length() < GRAM_LENGTH) {
+            // Too short to have a trigram, every card has to be checked.
+            return candidates;
+        }
+
+        for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+            BitSet postings = mPostings.get(term.substring(i, i + GRAM_LENGTH));
+            if (postings == null) {
+                candidates.clear();
+                break;
+            }
+            candidates.and(postings);
+        }
+        return candidates;
+    }
+
+    private void addGrams(String text, int index) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM_LENGTH);
+            BitSet postings = mPostings.get(gram);
+            if (postings == null) {
+                postings = new BitSet();
+                mPostings.put(gram, postings);
+            }
+            postings.set(index);
+        }
+    }
+
+    private static boolean isWordStart(String text, int position) {
+        return position == 0 || !Character.isLetterOrDigit(text.charAt(position - 1));
+    }
+
+    private static String[] tokenise(String query) {
+        if (query == null) {
+            return new String[0];
+        }
+
+        String normalised = normalise(query).trim();
+        if (normalised.isEmpty()) {
+            return new String[0];
+        }
+        return normalised.split("\\s+");
+    }
+
+    /**
+     * Lower cases the text one character at a time, so that offsets into the normalised text are
+     * also offsets into the original.
+     */
+    private static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(text.charAt(i));
+        }
+        return new String(chars);
+    }
+}
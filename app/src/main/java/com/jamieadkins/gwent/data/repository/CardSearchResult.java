@@ -0,0 +1,47 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+
+import java.util.List;
+
+/**
+ * A card that matched a search, with where it matched so it can be highlighted.
+ */
+
+public class CardSearchResult {
+    private final CardDetails mCard;
+    private final int mIndex;
+    private final int mScore;
+    // Each offset is a {start, end} pair, end exclusive.
+    private final List<int[]> mNameOffsets;
+    private final List<int[]> mInfoOffsets;
+
+    public CardSearchResult(CardDetails card, int index, int score,
+                            List<int[]> nameOffsets, List<int[]> infoOffsets) {
+        mCard = card;
+        mIndex = index;
+        mScore = score;
+        mNameOffsets = nameOffsets;
+        mInfoOffsets = infoOffsets;
+    }
+
+    public CardDetails getCard() {
+        return mCard;
+    }
+
+    public int getIndex() {
+        return mIndex;
+    }
+
+    public int getScore() {
+        return mScore;
+    }
+
+    public List<int[]> getNameOffsets() {
+        return mNameOffsets;
+    }
+
+    public List<int[]> getInfoOffsets() {
+        return mInfoOffsets;
+    }
+}
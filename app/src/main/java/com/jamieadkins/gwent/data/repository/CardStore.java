@@ -0,0 +1,121 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every distinct version of every card, across all of the patches that have been loaded.
+ *
+ * Most cards don't change between patches, so each {@link CardRepository} interns its cards
+ * here and a card that is the same in several patches is only held once. Keeping a few patches
+ * in memory then costs little more than keeping one.
+ *
+ * Each version remembers which patches hold it. When a patch is loaded again its old cards are
+ * released, and versions no patch holds any more are forgotten, so the store only grows with the
+ * patches that are loaded rather than with every load.
+ */
+
+public class CardStore {
+    private static CardStore sInstance;
+
+    // Card id to each version of that card we have seen.
+    private final Map<String, List<Version>> mVersions = new HashMap<>();
+    private int mVersionCount = 0;
+    private int mSharedCount = 0;
+
+    public static synchronized CardStore getInstance() {
+        if (sInstance == null) {
+            sInstance = new CardStore();
+        }
+        return sInstance;
+    }
+
+    /**
+     * @param patch the patch that holds the card, until it calls {@link #release(String)}.
+     * @return a card with the same content that is already held, or the card itself if it
+     * hasn't been seen before. The returned card keeps the patch it was first loaded from.
+     */
+    public synchronized CardDetails intern(CardDetails card, String patch) {
+        int hash = CardContent.hash(card);
+        List<Version> versions = mVersions.get(card.getIngameId());
+        if (versions == null) {
+            // Cards rarely change, so there is usually only one version.
+            versions = new ArrayList<>(1);
+            mVersions.put(card.getIngameId(), versions);
+        }
+
+        for (Version version : versions) {
+            if (version.mHash == hash && CardContent.isSame(version.mCard, card)) {
+                mSharedCount++;
+                version.mPatches.add(patch);
+                return version.mCard;
+            }
+        }
+
+        Version version = new Version(card, hash);
+        version.mPatches.add(patch);
+        versions.add(version);
+        mVersionCount++;
+        return card;
+    }
+
+    /**
+     * Lets go of every card the patch holds. Cards other patches still hold are kept.
+     */
+    public synchronized void release(String patch) {
+        Iterator<List<Version>> cards = mVersions.values().iterator();
+        while (cards.hasNext()) {
+            List<Version> versions = cards.next();
+            Iterator<Version> iterator = versions.iterator();
+            while (iterator.hasNext()) {
+                Version version = iterator.next();
+                if (version.mPatches.remove(patch) && version.mPatches.isEmpty()) {
+                    iterator.remove();
+                    mVersionCount--;
+                }
+            }
+            if (versions.isEmpty()) {
+                cards.remove();
+            }
+        }
+    }
+
+    /**
+     * @return how many distinct card objects are held.
+     */
+    public synchronized int getVersionCount() {
+        return mVersionCount;
+    }
+
+    /**
+     * @return how many times a card has been replaced by one that was already held.
+     */
+    public synchronized int getSharedCount() {
+        return mSharedCount;
+    }
+
+    public synchronized void clear() {
+        mVersions.clear();
+        mVersionCount = 0;
+        mSharedCount = 0;
+    }
+
+    private static class Version {
+        private final CardDetails mCard;
+        private final int mHash;
+        // Usually just one or two.
+        private final Set<String> mPatches = new HashSet<>(4);
+
+        private Version(CardDetails card, int hash) {
+            mCard = card;
+            mHash = hash;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every card that changed between two patches.
+ *
+ * Computed in linear time: cards are matched up by id, and each pair is first checked by
+ * identity, which catches cards shared through the {@link CardStore}, then by content hash.
+ * Only cards whose hashes differ, or collide, are compared field by field.
+ */
+
+public class PatchDiff {
+    private final String mOldPatch;
+    private final String mNewPatch;
+    private final List<CardChange> mAdded;
+    private final List<CardChange> mRemoved;
+    private final List<CardChange> mModified;
+
+    private PatchDiff(String oldPatch, String newPatch, List<CardChange> added,
+                      List<CardChange> removed, List<CardChange> modified) {
+        mOldPatch = oldPatch;
+        mNewPatch = newPatch;
+        mAdded = Collections.unmodifiableList(added);
+        mRemoved = Collections.unmodifiableList(removed);
+        mModified = Collections.unmodifiableList(modified);
+    }
+
+    /**
+     * @param oldCards every card in the old patch
+     * @param newCards every card in the new patch
+     */
+    public static PatchDiff diff(String oldPatch, Collection<CardDetails> oldCards,
+                                 String newPatch, Collection<CardDetails> newCards) {
+        Map<String, CardDetails> oldCardsById = new HashMap<>();
+        for (CardDetails card : oldCards) {
+            oldCardsById.put(card.getIngameId(), card);
+        }
+
+        List<CardChange> added = new ArrayList<>();
+        List<CardChange> modified = new ArrayList<>();
+        Map<String, CardDetails> newCardsById = new HashMap<>();
+        for (CardDetails newCard : newCards) {
+            newCardsById.put(newCard.getIngameId(), newCard);
+            CardDetails oldCard = oldCardsById.get(newCard.getIngameId());
+            if (oldCard == null) {
+                added.add(new CardChange(CardChange.Kind.ADDED, null, newCard,
+                        Collections.<String>emptyList(), newPatch));
+            } else if (oldCard != newCard
+                    && (CardContent.hash(oldCard) != CardContent.hash(newCard)
+                    || !CardContent.isSame(oldCard, newCard))) {
+                modified.add(new CardChange(CardChange.Kind.MODIFIED, oldCard, newCard,
+                        getChangedFields(oldCard, newCard), newPatch));
+            }
+        }
+
+        List<CardChange> removed = new ArrayList<>();
+        for (CardDetails oldCard : oldCards) {
+            if (!newCardsById.containsKey(oldCard.getIngameId())) {
+                removed.add(new CardChange(CardChange.Kind.REMOVED, oldCard, null,
+                        Collections.<String>emptyList(), oldPatch));
+            }
+        }
+
+        return new PatchDiff(oldPatch, newPatch, added, removed, modified);
+    }
+
+    private static List<String> getChangedFields(CardDetails oldCard, CardDetails newCard) {
+        List<String> fields = new ArrayList<>();
+        addIfChanged(fields, CardChange.NAME, oldCard.getName(), newCard.getName());
+        addIfChanged(fields, CardChange.INFO, oldCard.getInfo(), newCard.getInfo());
+        addIfChanged(fields, CardChange.FACTION, oldCard.getFaction(), newCard.getFaction());
+        addIfChanged(fields, CardChange.TYPE, oldCard.getType(), newCard.getType());
+        addIfChanged(fields, CardChange.RARITY, getRarity(oldCard), getRarity(newCard));
+        if (oldCard.getStrength() != newCard.getStrength()) {
+            fields.add(CardChange.STRENGTH);
+        }
+        addIfChanged(fields, CardChange.LANE, oldCard.getLane(), newCard.getLane());
+        addIfChanged(fields, CardChange.LOYALTY, oldCard.getLoyalty(), newCard.getLoyalty());
+
+        if (fields.isEmpty()) {
+            // The content differs, so it must be something we don't list separately.
+            fields.add(CardChange.OTHER);
+        }
+        return fields;
+    }
+
+    private static String getRarity(CardDetails card) {
+        return card.getVariations() != null ? card.getRarity() : null;
+    }
+
+    private static void addIfChanged(List<String> fields, String field,
+                                     Object oldValue, Object newValue) {
+        if (oldValue == null ? newValue != null : !oldValue.equals(newValue)) {
+            fields.add(field);
+        }
+    }
+
+    public String getOldPatch() {
+        return mOldPatch;
+    }
+
+    public String getNewPatch() {
+        return mNewPatch;
+    }
+
+    public List<CardChange> getAdded() {
+        return mAdded;
+    }
+
+    public List<CardChange> getRemoved() {
+        return mRemoved;
+    }
+
+    public List<CardChange> getModified() {
+        return mModified;
+    }
+
+    /**
+     * @return added, then modified, then removed cards.
+     */
+    public List<CardChange> getChanges() {
+        List<CardChange> changes =
+                new ArrayList<>(mAdded.size() + mModified.size() + mRemoved.size());
+        changes.addAll(mAdded);
+        changes.addAll(mModified);
+        changes.addAll(mRemoved);
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return mAdded.isEmpty() && mRemoved.isEmpty() && mModified.isEmpty();
+    }
+}
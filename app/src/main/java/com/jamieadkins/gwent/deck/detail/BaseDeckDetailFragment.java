@@ -4,18 +4,30 @@ import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.design.widget.BottomSheetBehavior;
 import android.view.View;
+import android.widget.TextView;
 
 import com.jamieadkins.gwent.R;
 import com.jamieadkins.gwent.card.CardFilter;
 import com.jamieadkins.gwent.card.list.BaseCardListFragment;
 import com.jamieadkins.gwent.card.list.CardRecyclerViewAdapter;
+import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.Deck;
+import com.jamieadkins.gwent.data.DrawOdds;
+import com.jamieadkins.gwent.data.Type;
 import com.jamieadkins.gwent.data.interactor.RxDatabaseEvent;
 import com.jamieadkins.gwent.deck.list.DecksContract;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import io.reactivex.Observer;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
 import io.reactivex.schedulers.Schedulers;
 
 /**
@@ -25,6 +37,11 @@ import io.reactivex.schedulers.Schedulers;
 public abstract class BaseDeckDetailFragment extends BaseCardListFragment implements DecksContract.View {
     protected DecksContract.Presenter mDecksPresenter;
     protected String mDeckId;
+    private TextView mDrawOdds;
+    private CardRecyclerViewAdapter mAdapter;
+    // The last deck shown, whose draw odds the next one starts from. Only used off the main
+    // thread, one event at a time.
+    private Deck mPreviousDeck;
 
     public BaseDeckDetailFragment() {
     }
@@ -32,7 +49,14 @@ public abstract class BaseDeckDetailFragment extends BaseCardListFragment implem
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        setRecyclerViewAdapter(new CardRecyclerViewAdapter(CardRecyclerViewAdapter.Detail.LARGE));
+        mAdapter = new CardRecyclerViewAdapter(CardRecyclerViewAdapter.Detail.LARGE);
+        setRecyclerViewAdapter(mAdapter);
+    }
+
+    @Override
+    public void setupViews(View rootView) {
+        super.setupViews(rootView);
+        mDrawOdds = (TextView) rootView.findViewById(R.id.draw_odds);
     }
 
     @Override
@@ -45,6 +69,26 @@ public abstract class BaseDeckDetailFragment extends BaseCardListFragment implem
     public void onLoadData() {
         mDecksPresenter.getDeck(mDeckId)
                 .subscribeOn(Schedulers.io())
+                .observeOn(Schedulers.computation())
+                .map(new Function<RxDatabaseEvent<Deck>, RxDatabaseEvent<Deck>>() {
+                    @Override
+                    public RxDatabaseEvent<Deck> apply(RxDatabaseEvent<Deck> event) throws Exception {
+                        // Work out the odds here, so that showing them is only lookups. There's no
+                        // deck once it has been deleted.
+                        Deck deck = event.getValue();
+                        if (deck != null) {
+                            // Each event is a new copy of the deck, usually a card away from
+                            // the last one.
+                            if (mPreviousDeck != null) {
+                                deck.carryDrawOddsFrom(mPreviousDeck);
+                            }
+                            deck.getDrawOdds().precompute(DrawOdds.OPENING_HAND,
+                                    DrawOdds.ROUND_TWO, DrawOdds.ROUND_THREE);
+                            mPreviousDeck = deck;
+                        }
+                        return event;
+                    }
+                })
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(new Observer<RxDatabaseEvent<Deck>>() {
                     @Override
@@ -54,12 +98,18 @@ public abstract class BaseDeckDetailFragment extends BaseCardListFragment implem
 
                     @Override
                     public void onNext(RxDatabaseEvent<Deck> value) {
+                        if (value.getValue() == null) {
+                            return;
+                        }
+
                         getActivity().setTitle(value.getValue().getName());
+                        mAdapter.setPatch(value.getValue().getPatch());
 
                         getRecyclerViewAdapter().clear();
                         for (String cardId : value.getValue().getCards().keySet()) {
                             getRecyclerViewAdapter().addItem(value.getValue().getCards().get(cardId));
                         }
+                        showDrawOdds(value.getValue());
                     }
 
                     @Override
@@ -74,6 +124,60 @@ public abstract class BaseDeckDetailFragment extends BaseCardListFragment implem
                 });
     }
 
+    private void showDrawOdds(Deck deck) {
+        Map<String, List<String>> cardIdsByType = new HashMap<>();
+        for (CardDetails card : deck.getCards().values()) {
+            List<String> cardIds = cardIdsByType.get(card.getType());
+            if (cardIds == null) {
+                cardIds = new ArrayList<>();
+                cardIdsByType.put(card.getType(), cardIds);
+            }
+            cardIds.add(card.getIngameId());
+        }
+
+        StringBuilder text = new StringBuilder();
+        appendOdds(text, deck, getString(R.string.gold), cardIdsByType.get(Type.GOLD));
+        appendOdds(text, deck, getString(R.string.silver), cardIdsByType.get(Type.SILVER));
+        appendOdds(text, deck, getString(R.string.bronze), cardIdsByType.get(Type.BRONZE));
+
+        List<CardDetails> cards = new ArrayList<>(deck.getCards().values());
+        Collections.sort(cards, new Comparator<CardDetails>() {
+            @Override
+            public int compare(CardDetails card, CardDetails otherCard) {
+                return card.getName().compareTo(otherCard.getName());
+            }
+        });
+        for (CardDetails card : cards) {
+            appendOdds(text, deck, card.getName(), Collections.singletonList(card.getIngameId()));
+        }
+        mDrawOdds.setText(text.toString().trim());
+    }
+
+    /**
+     * Adds a line with the chances of drawing at least one of the cards.
+     */
+    private void appendOdds(StringBuilder text, Deck deck, String name, List<String> cardIds) {
+        if (cardIds == null) {
+            return;
+        }
+
+        int copies = 0;
+        for (String cardId : cardIds) {
+            Integer count = deck.getCardCount().get(cardId);
+            copies += count != null ? count : 0;
+        }
+        DrawOdds odds = deck.getDrawOdds();
+        text.append(getString(R.string.draw_odds_line, name, copies,
+                toPercent(odds.getGroupChance(cardIds, DrawOdds.OPENING_HAND)),
+                toPercent(odds.getGroupChance(cardIds, DrawOdds.ROUND_TWO)),
+                toPercent(odds.getGroupChance(cardIds, DrawOdds.ROUND_THREE))))
+                .append('\n');
+    }
+
+    private static int toPercent(double chance) {
+        return (int) Math.round(chance * 100);
+    }
+
     @Override
     public void onStop() {
         super.onStop();
@@ -1,29 +1,49 @@
 package com.jamieadkins.gwent.deck.list;
 
+import android.content.DialogInterface;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.design.widget.FloatingActionButton;
 import android.support.v4.app.DialogFragment;
+import android.support.v7.app.AlertDialog;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.MenuInflater;
+import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.Toast;
 
 import com.jamieadkins.gwent.R;
 import com.jamieadkins.gwent.base.BaseFragment;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.Deck;
+import com.jamieadkins.gwent.data.DeckSummary;
+
+import java.util.List;
 
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
 import io.reactivex.schedulers.Schedulers;
 
 /**
  * UI fragment that shows a list of the users decks.
  */
 
-public class DeckListFragment extends BaseFragment<Deck> implements DecksContract.View,
+public class DeckListFragment extends BaseFragment<DeckSummary> implements DecksContract.View,
         NewDeckDialog.NewDeckDialogListener {
     private static final int REQUEST_CODE = 3414;
+    // Public decks are loaded a page at a time, keeping at most a few pages in memory.
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_PAGES = 5;
     private DecksContract.Presenter mDecksPresenter;
+    private final DeckPageWindow mPageWindow = new DeckPageWindow(PAGE_SIZE, MAX_PAGES);
+    private Disposable mPageRequest;
 
     // Set up to show user decks by default.
     private boolean mUserDecks = true;
@@ -41,6 +61,63 @@ public class DeckListFragment extends BaseFragment<Deck> implements DecksContrac
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setRecyclerViewAdapter(new DeckRecyclerViewAdapter());
+        setHasOptionsMenu(mUserDecks);
+    }
+
+    @Override
+    public void onCreateOptionsMenu(Menu menu, MenuInflater inflater) {
+        inflater.inflate(R.menu.deck_list, menu);
+        super.onCreateOptionsMenu(menu, inflater);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case R.id.action_import_deck:
+                showImportDialog();
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+
+    private void showImportDialog() {
+        final View rootView = getActivity().getLayoutInflater()
+                .inflate(R.layout.dialog_import_deck, null);
+        new AlertDialog.Builder(getActivity())
+                .setTitle(R.string.import_deck)
+                .setView(rootView)
+                .setNegativeButton(android.R.string.cancel, null)
+                .setPositiveButton(R.string.import_deck, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        EditText name = (EditText) rootView.findViewById(R.id.deck_name);
+                        EditText code = (EditText) rootView.findViewById(R.id.deck_code);
+                        importDeck(name.getText().toString(), code.getText().toString().trim());
+                    }
+                })
+                .show();
+    }
+
+    private void importDeck(String name, String code) {
+        mDecksPresenter.importDeck(name, code)
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Consumer<Deck>() {
+                    @Override
+                    public void accept(Deck deck) throws Exception {
+                        // The new deck shows up in the list by itself.
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        Log.e(getClass().getSimpleName(), "Failed to import deck.", throwable);
+                        if (getActivity() != null) {
+                            Toast.makeText(getActivity(), R.string.invalid_deck_code,
+                                    Toast.LENGTH_LONG).show();
+                        }
+                    }
+                });
     }
 
     @Override
@@ -66,6 +143,21 @@ public class DeckListFragment extends BaseFragment<Deck> implements DecksContrac
         } else {
             buttonNewDeck.setVisibility(View.GONE);
             buttonNewDeck.setEnabled(false);
+
+            getRecyclerView().addOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                    LinearLayoutManager layoutManager =
+                            (LinearLayoutManager) recyclerView.getLayoutManager();
+                    if (dy > 0 && mPageWindow.shouldLoadNext(
+                            layoutManager.findLastVisibleItemPosition())) {
+                        loadNextPage();
+                    } else if (dy < 0 && mPageWindow.shouldLoadPrevious(
+                            layoutManager.findFirstVisibleItemPosition())) {
+                        loadPreviousPage();
+                    }
+                }
+            });
         }
 
         return rootView;
@@ -80,15 +172,64 @@ public class DeckListFragment extends BaseFragment<Deck> implements DecksContrac
     @Override
     public void onLoadData() {
         super.onLoadData();
-        mDecksPresenter.getDecks()
+        if (mUserDecks) {
+            mDecksPresenter.getDecks()
+                    .subscribeOn(Schedulers.io())
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribe(getObserver());
+        } else {
+            mPageWindow.clear();
+            loadNextPage();
+        }
+    }
+
+    private void loadNextPage() {
+        mPageWindow.setLoading(true);
+        mPageRequest = mDecksPresenter.getDecksAfter(mPageWindow.getLastDeck(), PAGE_SIZE)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(getObserver());
+                .subscribe(new Consumer<List<DeckSummary>>() {
+                    @Override
+                    public void accept(List<DeckSummary> page) throws Exception {
+                        mPageWindow.appendPage(page);
+                        getRecyclerViewAdapter().setItems(mPageWindow.getDecks());
+                        setLoading(false);
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        mPageWindow.setLoading(false);
+                        setLoading(false);
+                    }
+                });
+    }
+
+    private void loadPreviousPage() {
+        mPageWindow.setLoading(true);
+        mPageRequest = mDecksPresenter.getDecksBefore(mPageWindow.getFirstDeck(), PAGE_SIZE)
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Consumer<List<DeckSummary>>() {
+                    @Override
+                    public void accept(List<DeckSummary> page) throws Exception {
+                        mPageWindow.prependPage(page);
+                        getRecyclerViewAdapter().setItems(mPageWindow.getDecks());
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        mPageWindow.setLoading(false);
+                    }
+                });
     }
 
     @Override
     public void onStop() {
         super.onStop();
+        if (mPageRequest != null) {
+            mPageRequest.dispose();
+            mPageRequest = null;
+        }
         getRecyclerViewAdapter().clear();
         mDecksPresenter.stop();
     }
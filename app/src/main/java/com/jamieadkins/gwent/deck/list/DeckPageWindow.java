@@ -0,0 +1,142 @@
+package com.jamieadkins.gwent.deck.list;
+
+import com.jamieadkins.gwent.data.DeckSummary;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The pages of decks currently held in memory while scrolling through a long list.
+ *
+ * Pages are added at either end as the list scrolls. Once there are more than the maximum, the
+ * page furthest from the one just loaded is dropped and will be loaded again if the user scrolls
+ * back to it.
+ */
+
+public class DeckPageWindow {
+    private final int mPageSize;
+    private final int mMaxPages;
+    private final LinkedList<List<DeckSummary>> mPages = new LinkedList<>();
+    private boolean mHasMoreBefore = false;
+    private boolean mHasMoreAfter = true;
+    private boolean mLoading = false;
+
+    public DeckPageWindow(int pageSize, int maxPages) {
+        if (pageSize < 1 || maxPages < 2) {
+            throw new IllegalArgumentException("Need at least two pages of at least one deck.");
+        }
+        mPageSize = pageSize;
+        mMaxPages = maxPages;
+    }
+
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * @return every deck held, in order.
+     */
+    public List<DeckSummary> getDecks() {
+        List<DeckSummary> decks = new ArrayList<>();
+        for (List<DeckSummary> page : mPages) {
+            decks.addAll(page);
+        }
+        return decks;
+    }
+
+    /**
+     * @return the first deck held, to load the page before it, or null if there are none.
+     */
+    public DeckSummary getFirstDeck() {
+        return mPages.isEmpty() ? null : mPages.getFirst().get(0);
+    }
+
+    /**
+     * @return the last deck held, to load the page after it, or null if there are none.
+     */
+    public DeckSummary getLastDeck() {
+        if (mPages.isEmpty()) {
+            return null;
+        }
+        List<DeckSummary> page = mPages.getLast();
+        return page.get(page.size() - 1);
+    }
+
+    /**
+     * @param lastVisiblePosition position of the last deck on screen.
+     * @return true if the next page should be requested now, so that it has loaded before the
+     * user reaches the end of the list.
+     */
+    public boolean shouldLoadNext(int lastVisiblePosition) {
+        return !mLoading && mHasMoreAfter
+                && lastVisiblePosition >= getDeckCount() - getPrefetchDistance();
+    }
+
+    /**
+     * @param firstVisiblePosition position of the first deck on screen.
+     * @return true if a page dropped earlier should be requested again.
+     */
+    public boolean shouldLoadPrevious(int firstVisiblePosition) {
+        return !mLoading && mHasMoreBefore && firstVisiblePosition < getPrefetchDistance();
+    }
+
+    public boolean isLoading() {
+        return mLoading;
+    }
+
+    /**
+     * Called when a page has been requested, so that it isn't requested again while scrolling.
+     */
+    public void setLoading(boolean loading) {
+        mLoading = loading;
+    }
+
+    public void appendPage(List<DeckSummary> page) {
+        mLoading = false;
+        // A short page means we have reached the end.
+        mHasMoreAfter = page.size() >= mPageSize;
+        if (page.isEmpty()) {
+            return;
+        }
+
+        mPages.addLast(new ArrayList<>(page));
+        if (mPages.size() > mMaxPages) {
+            mPages.removeFirst();
+            mHasMoreBefore = true;
+        }
+    }
+
+    public void prependPage(List<DeckSummary> page) {
+        mLoading = false;
+        mHasMoreBefore = page.size() >= mPageSize;
+        if (page.isEmpty()) {
+            return;
+        }
+
+        mPages.addFirst(new ArrayList<>(page));
+        if (mPages.size() > mMaxPages) {
+            mPages.removeLast();
+            mHasMoreAfter = true;
+        }
+    }
+
+    public void clear() {
+        mPages.clear();
+        mHasMoreBefore = false;
+        mHasMoreAfter = true;
+        mLoading = false;
+    }
+
+    private int getDeckCount() {
+        int count = 0;
+        for (List<DeckSummary> page : mPages) {
+            count += page.size();
+        }
+        return count;
+    }
+
+    private int getPrefetchDistance() {
+        return Math.max(mPageSize / 2, 1);
+    }
+}
@@ -5,13 +5,13 @@ import android.view.ViewGroup;
 
 import com.jamieadkins.commonutils.ui.BaseRecyclerViewAdapter;
 import com.jamieadkins.gwent.R;
-import com.jamieadkins.gwent.data.Deck;
+import com.jamieadkins.gwent.data.DeckSummary;
 
 /**
  * RecyclerViewAdapter that shows a list of cards.
  */
 
-public class DeckRecyclerViewAdapter extends BaseRecyclerViewAdapter<Deck> {
+public class DeckRecyclerViewAdapter extends BaseRecyclerViewAdapter<DeckSummary> {
 
     @Override
     public DeckViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
@@ -20,15 +20,15 @@ public class DeckRecyclerViewAdapter extends BaseRecyclerViewAdapter<Deck> {
     }
 
     @Override
-    public void addItem(Deck item) {
+    public void addItem(DeckSummary item) {
         super.addItem(item);
     }
 
     @Override
-    public void removeItem(Deck removedDeck) {
+    public void removeItem(DeckSummary removedDeck) {
         String removedDeckId = removedDeck.getId();
-        Deck deckToRemove = null;
-        for (Deck deck : getItems()) {
+        DeckSummary deckToRemove = null;
+        for (DeckSummary deck : getItems()) {
             if (deck.getId().equals(removedDeckId)) {
                 deckToRemove = deck;
             }
@@ -7,7 +7,7 @@ import android.widget.TextView;
 
 import com.jamieadkins.commonutils.ui.BaseViewHolder;
 import com.jamieadkins.gwent.R;
-import com.jamieadkins.gwent.data.Deck;
+import com.jamieadkins.gwent.data.DeckSummary;
 import com.jamieadkins.gwent.data.Faction;
 import com.jamieadkins.gwent.data.FirebaseUtils;
 import com.jamieadkins.gwent.data.Position;
@@ -17,7 +17,7 @@ import com.jamieadkins.gwent.deck.detail.DeckDetailActivity;
  * Holds much more detail about a card.
  */
 
-public class DeckViewHolder extends BaseViewHolder<Deck> {
+public class DeckViewHolder extends BaseViewHolder<DeckSummary> {
     private final TextView mDeckName;
     private final TextView mDeckLeader;
     private final TextView mDeckMelee;
@@ -38,7 +38,7 @@ public class DeckViewHolder extends BaseViewHolder<Deck> {
     }
 
     @Override
-    public void bindItem(Deck item) {
+    public void bindItem(DeckSummary item) {
         super.bindItem(item);
 
         getView().setOnClickListener(new View.OnClickListener() {
@@ -61,15 +61,16 @@ public class DeckViewHolder extends BaseViewHolder<Deck> {
             }
         });
 
-        mDeckName.setText(getBoundItem().getName());
-        mDeckLeader.setText(getBoundItem().getLeader().getName());
-        mDeckMelee.setText(String.valueOf(getBoundItem().getStrengthForPosition(Position.MELEE)));
-        mDeckRanged.setText(String.valueOf(getBoundItem().getStrengthForPosition(Position.RANGED)));
-        mDeckSiege.setText(String.valueOf(getBoundItem().getStrengthForPosition(Position.SIEGE)));
+        DeckSummary deck = getBoundItem();
+        mDeckName.setText(deck.getName());
+        mDeckLeader.setText(deck.getLeaderName());
+        mDeckMelee.setText(String.valueOf(deck.getStrengthForPosition(Position.MELEE)));
+        mDeckRanged.setText(String.valueOf(deck.getStrengthForPosition(Position.RANGED)));
+        mDeckSiege.setText(String.valueOf(deck.getStrengthForPosition(Position.SIEGE)));
         mDeckTotalCards.setText(String.format(
                 mDeckTotalCards.getContext().getString(R.string.total_cards),
-                getBoundItem().getTotalCardCount()));
-        mDeckTotalAttack.setText(String.valueOf(getBoundItem().getTotalStrength()));
+                deck.getCardCount()));
+        mDeckTotalAttack.setText(String.valueOf(deck.getTotalStrength()));
 
         int color;
         switch (getBoundItem().getFactionId()) {
@@ -3,10 +3,15 @@ package com.jamieadkins.gwent.deck.list;
 import com.jamieadkins.commonutils.mvp.BasePresenter;
 import com.jamieadkins.commonutils.mvp.BaseView;
 import com.jamieadkins.gwent.card.list.CardsContract;
+import com.jamieadkins.gwent.data.CardCooccurrence;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.Deck;
+import com.jamieadkins.gwent.data.DeckSummary;
+import com.jamieadkins.gwent.data.SimilarDeckIndex;
 import com.jamieadkins.gwent.data.interactor.RxDatabaseEvent;
 
+import java.util.List;
+
 import io.reactivex.Observable;
 
 /**
@@ -20,16 +25,35 @@ public interface DecksContract {
     }
 
     interface Presenter extends CardsContract.Presenter {
-        Observable<RxDatabaseEvent<Deck>> getDecks();
+        Observable<RxDatabaseEvent<DeckSummary>> getDecks();
 
         Observable<RxDatabaseEvent<Deck>> getDeck(String deckId);
 
+        Observable<Deck> readDecks(List<String> deckIds);
+
+        Observable<List<DeckSummary>> getDecksAfter(DeckSummary deck, int pageSize);
+
+        Observable<List<DeckSummary>> getDecksBefore(DeckSummary deck, int pageSize);
+
+        Observable<List<SimilarDeckIndex.Match>> getSimilarDecks(Deck deck, int count);
+
+        Observable<List<CardCooccurrence.Recommendation>> getRecommendations(Deck deck, int count);
+
         void stop();
 
         void createNewDeck(String name, String faction, CardDetails leader);
 
         void publishDeck(Deck deck);
 
+        Observable<Deck> importDeck(String name, String code);
+
+        /**
+         * Shown straight away, and written to Firebase in the background.
+         */
+        void addCardToDeck(Deck deck, CardDetails card);
+
+        void removeCardFromDeck(Deck deck, CardDetails card);
+
         void onLoadingComplete();
     }
 }
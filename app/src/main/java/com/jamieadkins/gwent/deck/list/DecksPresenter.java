@@ -3,8 +3,12 @@ package com.jamieadkins.gwent.deck.list;
 import android.support.annotation.NonNull;
 
 import com.jamieadkins.gwent.card.CardFilter;
+import com.jamieadkins.gwent.card.list.CardSearch;
+import com.jamieadkins.gwent.data.CardCooccurrence;
 import com.jamieadkins.gwent.data.CardDetails;
 import com.jamieadkins.gwent.data.Deck;
+import com.jamieadkins.gwent.data.DeckSummary;
+import com.jamieadkins.gwent.data.SimilarDeckIndex;
 import com.jamieadkins.gwent.data.interactor.CardsInteractor;
 import com.jamieadkins.gwent.data.interactor.CardsInteractorFirebase;
 import com.jamieadkins.gwent.data.interactor.DecksInteractor;
@@ -12,6 +16,8 @@ import com.jamieadkins.gwent.data.interactor.PatchInteractor;
 import com.jamieadkins.gwent.data.interactor.PatchInteractorFirebase;
 import com.jamieadkins.gwent.data.interactor.RxDatabaseEvent;
 
+import java.util.List;
+
 import io.reactivex.Observable;
 import io.reactivex.Observer;
 import io.reactivex.disposables.Disposable;
@@ -25,6 +31,7 @@ public class DecksPresenter implements DecksContract.Presenter {
     private final DecksInteractor mDecksInteractor;
     private final PatchInteractor mPatchInteractor;
     private final CardsInteractor mCardsInteractor;
+    private final CardSearch mCardSearch;
     private final DecksContract.View mDecksView;
 
     public DecksPresenter(@NonNull DecksContract.View decksView,
@@ -34,6 +41,7 @@ public class DecksPresenter implements DecksContract.Presenter {
 
         mPatchInteractor = new PatchInteractorFirebase();
         mCardsInteractor = new CardsInteractorFirebase();
+        mCardSearch = new CardSearch(mCardsInteractor);
 
         mDecksView = decksView;
         mDecksView.setPresenter(this);
@@ -70,7 +78,7 @@ public class DecksPresenter implements DecksContract.Presenter {
     }
 
     @Override
-    public Observable<RxDatabaseEvent<Deck>> getDecks() {
+    public Observable<RxDatabaseEvent<DeckSummary>> getDecks() {
         return mDecksInteractor.getDecks();
     }
 
@@ -79,14 +87,56 @@ public class DecksPresenter implements DecksContract.Presenter {
         return mDecksInteractor.getDeck(deckId);
     }
 
+    @Override
+    public Observable<List<DeckSummary>> getDecksAfter(DeckSummary deck, int pageSize) {
+        return mDecksInteractor.getDecksAfter(deck, pageSize);
+    }
+
+    @Override
+    public Observable<Deck> readDecks(List<String> deckIds) {
+        return mDecksInteractor.readDecks(deckIds);
+    }
+
+    @Override
+    public Observable<List<DeckSummary>> getDecksBefore(DeckSummary deck, int pageSize) {
+        return mDecksInteractor.getDecksBefore(deck, pageSize);
+    }
+
+    @Override
+    public Observable<List<SimilarDeckIndex.Match>> getSimilarDecks(Deck deck, int count) {
+        return mDecksInteractor.getSimilarDecks(deck, count);
+    }
+
+    @Override
+    public Observable<List<CardCooccurrence.Recommendation>> getRecommendations(Deck deck,
+                                                                               int count) {
+        return mDecksInteractor.getRecommendations(deck, count);
+    }
+
     @Override
     public void publishDeck(Deck deck) {
         mDecksInteractor.publishDeck(deck);
     }
 
+    @Override
+    public Observable<Deck> importDeck(String name, String code) {
+        return mDecksInteractor.importDeck(name, code);
+    }
+
+    @Override
+    public void addCardToDeck(Deck deck, CardDetails card) {
+        mDecksInteractor.addCardToDeck(deck, card);
+    }
+
+    @Override
+    public void removeCardFromDeck(Deck deck, CardDetails card) {
+        mDecksInteractor.removeCardFromDeck(deck, card);
+    }
+
     @Override
     public void stop() {
         mDecksInteractor.stopData();
+        mCardsInteractor.removeListeners();
     }
 
     @Override
@@ -94,6 +144,16 @@ public class DecksPresenter implements DecksContract.Presenter {
         return mCardsInteractor.getCards(cardFilter);
     }
 
+    @Override
+    public Observable<List<CardDetails>> getCardList(CardFilter cardFilter) {
+        return mCardsInteractor.getCardList(cardFilter);
+    }
+
+    @Override
+    public Observable<CardSearch.Results> searchCards(Observable<String> queries) {
+        return mCardSearch.search(queries);
+    }
+
     @Override
     public void onLoadingComplete() {
         mDecksView.setLoadingIndicator(false);
@@ -17,9 +17,10 @@ import android.widget.Spinner;
 import com.jamieadkins.gwent.R;
 import com.jamieadkins.gwent.card.CardFilter;
 import com.jamieadkins.gwent.data.Faction;
-import com.jamieadkins.gwent.data.interactor.RxDatabaseEvent;
 import com.jamieadkins.gwent.data.CardDetails;
 
+import java.util.List;
+
 import io.reactivex.Observer;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
@@ -81,7 +82,6 @@ public class NewDeckDialog extends DialogFragment {
             @Override
             public void onItemSelected(AdapterView<?> adapterView, View view, int i, long l) {
                 // Faction leader cards only.
-                leaderAdapter.clear();
                 cardFilter.clearFilters();
                 cardFilter.put("Bronze", false);
                 cardFilter.put("Silver", false);
@@ -92,22 +92,19 @@ public class NewDeckDialog extends DialogFragment {
                     }
                 }
 
-                mDeckPresenter.getCards(cardFilter)
+                mDeckPresenter.getCardList(cardFilter)
                         .subscribeOn(Schedulers.io())
                         .observeOn(AndroidSchedulers.mainThread())
-                        .subscribe(new Observer<RxDatabaseEvent<CardDetails>>() {
+                        .subscribe(new Observer<List<CardDetails>>() {
                             @Override
                             public void onSubscribe(Disposable d) {
 
                             }
 
                             @Override
-                            public void onNext(RxDatabaseEvent<CardDetails> value) {
-                                switch (value.getEventType()) {
-                                    case ADDED:
-                                        leaderAdapter.add(value.getValue());
-                                        break;
-                                }
+                            public void onNext(List<CardDetails> value) {
+                                leaderAdapter.clear();
+                                leaderAdapter.addAll(value);
                             }
 
                             @Override
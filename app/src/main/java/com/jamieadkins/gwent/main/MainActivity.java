@@ -39,6 +39,7 @@ import com.jamieadkins.gwent.data.interactor.DecksInteractorFirebase;
 import com.jamieadkins.gwent.deck.list.DecksContract;
 import com.jamieadkins.gwent.deck.list.DecksPresenter;
 import com.jamieadkins.gwent.deck.list.DeckListFragment;
+import com.jamieadkins.gwent.patch.PatchChangesActivity;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -125,7 +126,7 @@ public class MainActivity extends AuthenticationActivity implements CardFilterPr
                                 // Create the presenter.
                                 mDecksPresenter =
                                         new DecksPresenter((DecksContract.View) fragment,
-                                                new DecksInteractorFirebase());
+                                                new DecksInteractorFirebase(MainActivity.this));
                                 break;
                             case R.id.tab_collection:
                                 // Hide this feature in release versions for now.
@@ -199,7 +200,8 @@ public class MainActivity extends AuthenticationActivity implements CardFilterPr
                                 // Create the presenter.
                                 mPublicDecksPresenter =
                                         new DecksPresenter((DecksContract.View) fragment,
-                                                new DecksInteractorFirebase(true));
+                                                new DecksInteractorFirebase(
+                                                        MainActivity.this, true));
                                 break;
                             default:
                                 showSnackbar(getString(R.string.coming_soon));
@@ -263,13 +265,8 @@ public class MainActivity extends AuthenticationActivity implements CardFilterPr
                 }
                 @Override
                 public boolean onQueryTextChange(String query) {
-                    if (query.equals("")) {
-                        // Don't search for everything!
-                        mCardFilters.get(mCurrentTab).setSearchQuery(null);
-                        return false;
-                    }
-
-                    mCardFilters.get(mCurrentTab).setSearchQuery(query);
+                    // The list debounces these, so it is fine to update on every key press.
+                    mCardFilters.get(mCurrentTab).setSearchQuery(query.equals("") ? null : query);
                     mCardFilterListener.onCardFilterUpdated();
                     return false;
                 }
@@ -369,6 +366,9 @@ public class MainActivity extends AuthenticationActivity implements CardFilterPr
                             }
                         });
                 break;
+            case R.id.action_what_changed:
+                startActivity(new Intent(this, PatchChangesActivity.class));
+                return true;
             case R.id.action_about:
                 Intent about = new Intent(this, BasePreferenceActivity.class);
                 about.putExtra(BasePreferenceActivity.EXTRA_PREFERENCE_LAYOUT, R.xml.about);
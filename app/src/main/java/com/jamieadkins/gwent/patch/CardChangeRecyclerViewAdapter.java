@@ -0,0 +1,21 @@
+package com.jamieadkins.gwent.patch;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import com.jamieadkins.commonutils.ui.BaseRecyclerViewAdapter;
+import com.jamieadkins.gwent.R;
+import com.jamieadkins.gwent.data.repository.CardChange;
+
+/**
+ * RecyclerViewAdapter that shows a list of card changes.
+ */
+
+public class CardChangeRecyclerViewAdapter extends BaseRecyclerViewAdapter<CardChange> {
+
+    @Override
+    public CardChangeViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        return new CardChangeViewHolder(LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_card_change, parent, false));
+    }
+}
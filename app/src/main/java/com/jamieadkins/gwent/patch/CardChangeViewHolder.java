@@ -0,0 +1,116 @@
+package com.jamieadkins.gwent.patch;
+
+import android.content.Context;
+import android.content.Intent;
+import android.support.v4.content.ContextCompat;
+import android.text.TextUtils;
+import android.view.View;
+import android.widget.TextView;
+
+import com.jamieadkins.commonutils.ui.BaseViewHolder;
+import com.jamieadkins.gwent.R;
+import com.jamieadkins.gwent.card.detail.DetailActivity;
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.repository.CardChange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds a card that has changed, and what about it changed.
+ */
+
+public class CardChangeViewHolder extends BaseViewHolder<CardChange> {
+    private final TextView mCardName;
+    private final TextView mChangeKind;
+    private final TextView mChangedFields;
+
+    public CardChangeViewHolder(View view) {
+        super(view);
+        mCardName = (TextView) view.findViewById(R.id.card_name);
+        mChangeKind = (TextView) view.findViewById(R.id.card_change_kind);
+        mChangedFields = (TextView) view.findViewById(R.id.card_changed_fields);
+    }
+
+    @Override
+    public void bindItem(CardChange item) {
+        super.bindItem(item);
+
+        getView().setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                CardDetails card = getBoundItem().getCard();
+                Intent intent = new Intent(getView().getContext(), DetailActivity.class);
+                intent.putExtra(DetailActivity.EXTRA_CARD_ID, card.getIngameId());
+                intent.putExtra(DetailActivity.EXTRA_PATCH, getBoundItem().getPatch());
+                getView().getContext().startActivity(intent);
+            }
+        });
+
+        Context context = getView().getContext();
+        mCardName.setText(item.getCard().getName());
+
+        int kind;
+        int color;
+        switch (item.getKind()) {
+            case ADDED:
+                kind = R.string.card_added;
+                color = ContextCompat.getColor(context, R.color.scoiatael);
+                break;
+            case REMOVED:
+                kind = R.string.card_removed;
+                color = ContextCompat.getColor(context, R.color.monsters);
+                break;
+            default:
+                kind = R.string.card_modified;
+                color = ContextCompat.getColor(context, R.color.gwentAccent);
+                break;
+        }
+        mChangeKind.setText(kind);
+        mChangeKind.setTextColor(color);
+
+        if (item.getChangedFields().isEmpty()) {
+            mChangedFields.setVisibility(View.GONE);
+        } else {
+            mChangedFields.setVisibility(View.VISIBLE);
+            mChangedFields.setText(String.format(context.getString(R.string.changed_fields),
+                    TextUtils.join(", ", getFieldNames(context, item.getChangedFields()))));
+        }
+    }
+
+    private static List<String> getFieldNames(Context context, List<String> fields) {
+        List<String> names = new ArrayList<>();
+        for (String field : fields) {
+            switch (field) {
+                case CardChange.NAME:
+                    names.add(context.getString(R.string.field_name));
+                    break;
+                case CardChange.INFO:
+                    names.add(context.getString(R.string.field_info));
+                    break;
+                case CardChange.FACTION:
+                    names.add(context.getString(R.string.faction));
+                    break;
+                case CardChange.TYPE:
+                    names.add(context.getString(R.string.type));
+                    break;
+                case CardChange.RARITY:
+                    names.add(context.getString(R.string.rarity));
+                    break;
+                case CardChange.STRENGTH:
+                    names.add(context.getString(R.string.field_strength));
+                    break;
+                case CardChange.LANE:
+                    names.add(context.getString(R.string.field_lane));
+                    break;
+                case CardChange.LOYALTY:
+                    names.add(context.getString(R.string.field_loyalty));
+                    break;
+                default:
+                    names.add(context.getString(R.string.field_other));
+                    break;
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,51 @@
+package com.jamieadkins.gwent.patch;
+
+import android.os.Bundle;
+import android.view.MenuItem;
+
+import com.jamieadkins.gwent.R;
+import com.jamieadkins.gwent.base.BaseActivity;
+import com.jamieadkins.gwent.data.interactor.PatchInteractorFirebase;
+
+/**
+ * Shows the cards that changed in the latest patch.
+ */
+
+public class PatchChangesActivity extends BaseActivity {
+    public static final String EXTRA_OLD_PATCH = "com.jamieadkins.gwent.patch.old";
+    public static final String EXTRA_NEW_PATCH = "com.jamieadkins.gwent.patch.new";
+
+    @Override
+    public void initialiseContentView() {
+        setContentView(R.layout.activity_preference);
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        setTitle(R.string.what_changed);
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        PatchChangesFragment fragment = PatchChangesFragment.newInstance(
+                getIntent().getStringExtra(EXTRA_OLD_PATCH),
+                getIntent().getStringExtra(EXTRA_NEW_PATCH));
+
+        getSupportFragmentManager().beginTransaction()
+                .replace(R.id.contentContainer, fragment, fragment.getClass().getSimpleName())
+                .commit();
+
+        new PatchChangesPresenter(fragment, new PatchInteractorFirebase());
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case android.R.id.home:
+                onBackPressed();
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+}
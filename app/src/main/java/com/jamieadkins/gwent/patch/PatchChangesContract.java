@@ -0,0 +1,24 @@
+package com.jamieadkins.gwent.patch;
+
+import com.jamieadkins.commonutils.mvp.BasePresenter;
+import com.jamieadkins.commonutils.mvp.BaseView;
+import com.jamieadkins.gwent.data.repository.PatchDiff;
+
+import io.reactivex.Observable;
+
+/**
+ * Specifies the contract between the view and the presenter.
+ */
+
+public interface PatchChangesContract {
+    interface View extends BaseView<Presenter> {
+
+        void setLoadingIndicator(boolean active);
+    }
+
+    interface Presenter extends BasePresenter {
+        Observable<String> getLatestPatch();
+
+        Observable<PatchDiff> getPatchChanges(String oldPatch, String newPatch);
+    }
+}
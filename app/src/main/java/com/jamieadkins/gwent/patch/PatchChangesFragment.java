@@ -0,0 +1,156 @@
+package com.jamieadkins.gwent.patch;
+
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.preference.PreferenceManager;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.jamieadkins.gwent.R;
+import com.jamieadkins.gwent.base.BaseFragment;
+import com.jamieadkins.gwent.data.Patch;
+import com.jamieadkins.gwent.data.repository.CardChange;
+import com.jamieadkins.gwent.data.repository.PatchDiff;
+
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * UI fragment that shows the cards that were added, removed or modified between two patches.
+ */
+
+public class PatchChangesFragment extends BaseFragment<CardChange>
+        implements PatchChangesContract.View {
+    // The latest patch we have seen, and the one before it.
+    private static final String PREFERENCE_CURRENT_PATCH = "com.jamieadkins.gwent.patch.current";
+    private static final String PREFERENCE_PREVIOUS_PATCH = "com.jamieadkins.gwent.patch.previous";
+
+    private PatchChangesContract.Presenter mPresenter;
+    private String mOldPatch;
+    private String mNewPatch;
+    private Disposable mSubscription;
+
+    public PatchChangesFragment() {
+    }
+
+    /**
+     * @param oldPatch to compare against, or null for the patch before the latest one.
+     * @param newPatch to compare, or null for the latest patch.
+     */
+    public static PatchChangesFragment newInstance(String oldPatch, String newPatch) {
+        PatchChangesFragment fragment = new PatchChangesFragment();
+        fragment.mOldPatch = oldPatch;
+        fragment.mNewPatch = newPatch;
+        return fragment;
+    }
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setRecyclerViewAdapter(new CardChangeRecyclerViewAdapter());
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        View rootView = inflater.inflate(R.layout.fragment_card_list, container, false);
+        setupViews(rootView);
+        return rootView;
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        if (mSubscription == null) {
+            onLoadData();
+        }
+    }
+
+    @Override
+    public void onLoadData() {
+        super.onLoadData();
+        mPresenter.getLatestPatch()
+                .flatMap(new Function<String, ObservableSource<PatchDiff>>() {
+                    @Override
+                    public ObservableSource<PatchDiff> apply(String latestPatch) throws Exception {
+                        String newPatch = mNewPatch != null ? mNewPatch : latestPatch;
+                        String oldPatch = mOldPatch != null ?
+                                mOldPatch : getPreviousPatch(latestPatch);
+                        return mPresenter.getPatchChanges(oldPatch, newPatch);
+                    }
+                })
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Observer<PatchDiff>() {
+                    @Override
+                    public void onSubscribe(Disposable d) {
+                        mSubscription = d;
+                    }
+
+                    @Override
+                    public void onNext(PatchDiff diff) {
+                        getRecyclerViewAdapter().setItems(diff.getChanges());
+                        ((AppCompatActivity) getActivity()).getSupportActionBar().setSubtitle(
+                                diff.isEmpty() ? getString(R.string.no_card_changes) :
+                                        String.format(getString(R.string.patch_changes),
+                                                diff.getOldPatch(), diff.getNewPatch()));
+                        setLoading(false);
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+
+                    }
+
+                    @Override
+                    public void onComplete() {
+
+                    }
+                });
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (mSubscription != null) {
+            // Lets go of the card data for both patches if they are still loading.
+            mSubscription.dispose();
+        }
+    }
+
+    /**
+     * Firebase only tells us the latest patch, so we remember the patch we saw before it. Until
+     * a new patch comes out, that is the one the app was released with.
+     */
+    private String getPreviousPatch(String latestPatch) {
+        SharedPreferences preferences =
+                PreferenceManager.getDefaultSharedPreferences(getActivity());
+        String currentPatch = preferences.getString(PREFERENCE_CURRENT_PATCH, Patch.DEFAULT);
+        String previousPatch = preferences.getString(PREFERENCE_PREVIOUS_PATCH, Patch.DEFAULT);
+        if (latestPatch != null && !latestPatch.equals(currentPatch)) {
+            previousPatch = currentPatch;
+            preferences.edit()
+                    .putString(PREFERENCE_PREVIOUS_PATCH, previousPatch)
+                    .putString(PREFERENCE_CURRENT_PATCH, latestPatch)
+                    .apply();
+        }
+        return previousPatch;
+    }
+
+    @Override
+    public void setLoadingIndicator(boolean active) {
+        setLoading(active);
+    }
+
+    @Override
+    public void setPresenter(PatchChangesContract.Presenter presenter) {
+        mPresenter = presenter;
+    }
+}
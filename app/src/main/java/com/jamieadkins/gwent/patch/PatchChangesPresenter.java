@@ -0,0 +1,42 @@
+package com.jamieadkins.gwent.patch;
+
+import android.support.annotation.NonNull;
+
+import com.jamieadkins.gwent.data.interactor.PatchInteractor;
+import com.jamieadkins.gwent.data.repository.PatchDiff;
+
+import io.reactivex.Observable;
+
+/**
+ * Listens to user actions from the UI, retrieves the data and updates the
+ * UI as required.
+ */
+
+public class PatchChangesPresenter implements PatchChangesContract.Presenter {
+    private final PatchInteractor mPatchInteractor;
+    private final PatchChangesContract.View mPatchChangesView;
+
+    public PatchChangesPresenter(@NonNull PatchChangesContract.View patchChangesView,
+                                 @NonNull PatchInteractor patchInteractor) {
+        mPatchInteractor = patchInteractor;
+        mPatchInteractor.setPresenter(this);
+
+        mPatchChangesView = patchChangesView;
+        mPatchChangesView.setPresenter(this);
+    }
+
+    @Override
+    public void start() {
+        mPatchChangesView.setLoadingIndicator(true);
+    }
+
+    @Override
+    public Observable<String> getLatestPatch() {
+        return mPatchInteractor.getLatestPatch();
+    }
+
+    @Override
+    public Observable<PatchDiff> getPatchChanges(String oldPatch, String newPatch) {
+        return mPatchInteractor.getPatchChanges(oldPatch, newPatch);
+    }
+}
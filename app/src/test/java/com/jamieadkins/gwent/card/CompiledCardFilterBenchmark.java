@@ -0,0 +1,82 @@
+package com.jamieadkins.gwent.card;
+
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.Faction;
+import com.jamieadkins.gwent.data.Rarity;
+import com.jamieadkins.gwent.data.Type;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the time and allocation of checking cards against the compiled filter with the map
+ * based one it replaced.
+ *
+ * Not a test, as the timings depend on the machine. Run main() by hand, on a device if possible.
+ */
+public class CompiledCardFilterBenchmark {
+    private static final int ROUNDS = 20000;
+    private static final int WARM_UP_RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        List<CardDetails> cards = CompiledCardFilterTest.createCards();
+        CardFilter filter = new CardFilter();
+        filter.put(Faction.MONSTERS, false);
+        filter.put(Rarity.EPIC, false);
+        filter.put(Type.LEADER, false);
+
+        for (int run = 0; run < WARM_UP_RUNS; run++) {
+            runMapFilter(filter, cards);
+            runCompiledFilter(filter, cards);
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long checks = (long) ROUNDS * cards.size();
+
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int mapMatches = runMapFilter(filter, cards);
+        long mapTime = System.nanoTime() - start;
+        long mapBytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+
+        bytes = threads.getThreadAllocatedBytes(threadId);
+        start = System.nanoTime();
+        int compiledMatches = runCompiledFilter(filter, cards);
+        long compiledTime = System.nanoTime() - start;
+        long compiledBytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+
+        System.out.println(String.format(Locale.ENGLISH,
+                "map filter: %.1f ns per card, %,d bytes allocated, %,d matches",
+                (double) mapTime / checks, mapBytes, mapMatches));
+        System.out.println(String.format(Locale.ENGLISH,
+                "compiled filter: %.1f ns per card, %,d bytes allocated, %,d matches",
+                (double) compiledTime / checks, compiledBytes, compiledMatches));
+    }
+
+    private static int runMapFilter(CardFilter filter, List<CardDetails> cards) {
+        int matches = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (CardDetails card : cards) {
+                if (CompiledCardFilterTest.mapFilter(filter, card)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static int runCompiledFilter(CardFilter filter, List<CardDetails> cards) {
+        int matches = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (CardDetails card : cards) {
+                if (filter.doesCardMeetFilter(card)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+}
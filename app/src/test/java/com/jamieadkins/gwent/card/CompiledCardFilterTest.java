@@ -0,0 +1,120 @@
+package com.jamieadkins.gwent.card;
+
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.Faction;
+import com.jamieadkins.gwent.data.Rarity;
+import com.jamieadkins.gwent.data.Type;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks the compiled filter agrees with the map based one.
+ */
+public class CompiledCardFilterTest {
+    private static List<CardDetails> mCards;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        mCards = createCards();
+    }
+
+    @Test
+    public void compiledFilterMatchesMapFilter() throws Exception {
+        CardFilter filter = new CardFilter();
+        filter.put(Faction.MONSTERS, false);
+        filter.put(Rarity.EPIC, false);
+        filter.put(Type.LEADER, false);
+
+        int matches = 0;
+        for (CardDetails card : mCards) {
+            boolean expected = mapFilter(filter, card);
+            assertEquals(expected, filter.doesCardMeetFilter(card));
+            if (expected) {
+                matches++;
+            }
+        }
+        // 5 factions, 3 rarities, 3 types, released only.
+        assertEquals(5 * 3 * 3, matches);
+    }
+
+    @Test
+    public void compiledFilterUsesCardIds() throws Exception {
+        CardFilter filter = new CardFilter();
+        filter.addCardId("3");
+        filter.addCardId("10");
+
+        assertTrue(filter.doesCardMeetFilter(mCards.get(3)));
+        assertTrue(filter.doesCardMeetFilter(mCards.get(10)));
+        assertEquals(false, filter.doesCardMeetFilter(mCards.get(4)));
+    }
+
+    @Test
+    public void compiledFilterMatchesMapFilterAfterCompiling() throws Exception {
+        CardFilter filter = new CardFilter();
+        filter.put(Faction.NEUTRAL, false);
+        filter.put(Type.GOLD, false);
+        CompiledCardFilter compiled = filter.compile();
+
+        for (CardDetails card : mCards) {
+            assertEquals(mapFilter(filter, card), compiled.doesCardMeetFilter(card));
+        }
+    }
+
+    /**
+     * A released and unreleased card for every faction, rarity and type.
+     */
+    static List<CardDetails> createCards() throws Exception {
+        List<CardDetails> cards = new ArrayList<>();
+        int id = 0;
+        for (String faction : Faction.ALL_FACTIONS) {
+            for (String rarity : Rarity.ALL_RARITIES) {
+                for (String type : Type.ALL_TYPES) {
+                    cards.add(createCard(String.valueOf(id++), faction, rarity, type, true));
+                    cards.add(createCard(String.valueOf(id++), faction, rarity, type, false));
+                }
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * How CardFilter used to check cards.
+     */
+    static boolean mapFilter(CardFilter filter, CardDetails card) {
+        return filter.get(card.getFaction()) && filter.get(card.getRarity())
+                && filter.get(card.getType()) && card.isReleased();
+    }
+
+    private static CardDetails createCard(String id, String faction, String rarity, String type,
+                                          boolean released) throws Exception {
+        CardDetails.Variation variation = new CardDetails.Variation();
+        setField(variation, "rarity", rarity);
+        Map<String, CardDetails.Variation> variations = new HashMap<>();
+        variations.put(id, variation);
+
+        CardDetails card = new CardDetails();
+        setField(card, "ingameId", id);
+        setField(card, "faction", faction);
+        setField(card, "type", type);
+        setField(card, "released", released);
+        setField(card, "variations", variations);
+        return card;
+    }
+
+    private static void setField(Object object, String name, Object value) throws Exception {
+        // Firebase populates these, there are no setters.
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(object, value);
+    }
+}
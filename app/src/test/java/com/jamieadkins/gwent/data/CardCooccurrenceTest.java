@@ -0,0 +1,106 @@
+package com.jamieadkins.gwent.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks pair counts follow decks as they change and suggestions favour cards played together.
+ */
+public class CardCooccurrenceTest {
+
+    @Test
+    public void countsFollowChangingDecks() {
+        CardCooccurrence cooccurrence = new CardCooccurrence();
+        cooccurrence.putDeck("first", Arrays.asList("a", "b", "c"));
+        cooccurrence.putDeck("second", Arrays.asList("a", "b"));
+        assertEquals(2, cooccurrence.getDeckCount());
+        assertEquals(2, cooccurrence.getCount("a", "b"));
+        assertEquals(2, cooccurrence.getCount("b", "a"));
+        assertEquals(1, cooccurrence.getCount("a", "c"));
+        assertEquals(2, cooccurrence.getCount("a", "a"));
+        assertEquals(0, cooccurrence.getCount("a", "unknown"));
+
+        cooccurrence.putDeck("first", Arrays.asList("a", "c"));
+        assertEquals(2, cooccurrence.getDeckCount());
+        assertEquals(1, cooccurrence.getCount("a", "b"));
+        assertEquals(1, cooccurrence.getCount("a", "c"));
+        assertEquals(0, cooccurrence.getCount("b", "c"));
+
+        cooccurrence.removeDeck("second");
+        cooccurrence.removeDeck("missing");
+        assertEquals(1, cooccurrence.getDeckCount());
+        assertEquals(0, cooccurrence.getCount("a", "b"));
+        assertEquals(1, cooccurrence.getCount("c", "a"));
+    }
+
+    @Test
+    public void rowsGrowToHoldEveryPair() {
+        CardCooccurrence cooccurrence = new CardCooccurrence();
+        List<String> cards = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            cards.add("card" + i);
+        }
+        cooccurrence.putDeck("big", cards);
+        cooccurrence.putDeck("small", cards.subList(0, 10));
+
+        for (int i = 0; i < cards.size(); i++) {
+            for (int j = 0; j < cards.size(); j++) {
+                int expected = i < 10 && j < 10 ? 2 : 1;
+                assertEquals(expected, cooccurrence.getCount(cards.get(i), cards.get(j)));
+            }
+        }
+    }
+
+    @Test
+    public void suggestsCardsPlayedTogether() {
+        Random random = new Random(1);
+        CardCooccurrence cooccurrence = new CardCooccurrence();
+        // Two archetypes that share a card everyone plays, padded out with random cards.
+        for (int i = 0; i < 200; i++) {
+            String archetype = i % 2 == 0 ? "monsters" : "elves";
+            Set<String> deck = new HashSet<>();
+            for (int card = 0; card < 6; card++) {
+                deck.add(archetype + card);
+            }
+            deck.add("popular");
+            while (deck.size() < 20) {
+                deck.add("filler" + random.nextInt(300));
+            }
+            cooccurrence.putDeck("deck" + i, deck);
+        }
+
+        List<CardCooccurrence.Recommendation> recommendations =
+                cooccurrence.recommend(Arrays.asList("monsters0", "monsters1", "unknown"), 4);
+        assertEquals(4, recommendations.size());
+        Set<String> suggested = new HashSet<>();
+        for (int i = 0; i < recommendations.size(); i++) {
+            suggested.add(recommendations.get(i).getCardId());
+            if (i > 0) {
+                assertTrue(recommendations.get(i - 1).getScore()
+                        >= recommendations.get(i).getScore());
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList("monsters2", "monsters3", "monsters4",
+                "monsters5")), suggested);
+
+        // Played with everything, so it says nothing about these cards.
+        for (CardCooccurrence.Recommendation recommendation :
+                cooccurrence.recommend(Arrays.asList("monsters0"), 100)) {
+            assertFalse(recommendation.getCardId().equals("popular"));
+            assertFalse(recommendation.getCardId().equals("monsters0"));
+            assertFalse(recommendation.getCardId().startsWith("elves"));
+        }
+
+        assertTrue(cooccurrence.recommend(Arrays.asList("unknown"), 10).isEmpty());
+    }
+}
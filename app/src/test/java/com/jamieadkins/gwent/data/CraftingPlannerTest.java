@@ -0,0 +1,140 @@
+package com.jamieadkins.gwent.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks shared cards are only crafted once and only copies no deck can use are milled.
+ */
+public class CraftingPlannerTest {
+
+    @Test
+    public void sharedCardsAreCraftedOnce() {
+        Map<String, CardDetails> cards = createCards();
+        Map<String, Integer> first = new HashMap<>();
+        first.put("bronze", 3);
+        first.put("gold", 1);
+        first.put("uncraftable", 1);
+        Map<String, Integer> second = new HashMap<>();
+        second.put("bronze", 2);
+        second.put("silver", 1);
+        second.put("gold", 1);
+
+        Map<String, Integer> owned = new HashMap<>();
+        owned.put("bronze", 1);
+        owned.put("silver", 3);
+        owned.put("otherBronze", 5);
+
+        CraftingPlanner.Plan plan = CraftingPlanner.plan(Arrays.asList(first, second), owned,
+                cards, false);
+        assertEquals(2, (int) plan.getToCraft().get("bronze"));
+        assertEquals(1, (int) plan.getToCraft().get("gold"));
+        assertEquals(2, plan.getToCraft().size());
+        assertEquals(1, (int) plan.getUncraftable().get("uncraftable"));
+        assertEquals(2 * 30 + 800, plan.getCraftCost());
+        assertEquals(2 * 30 + 800, plan.getDeckCosts()[0]);
+        assertEquals(30 + 800, plan.getDeckCosts()[1]);
+        assertEquals(30 + 800, plan.getSharedSaving());
+        assertTrue(plan.getToMill().isEmpty());
+        assertEquals(plan.getCraftCost(), plan.getScrapNeeded());
+
+        // The same deck twice costs no more than once.
+        CraftingPlanner.Plan twice = CraftingPlanner.plan(Arrays.asList(first, first), owned,
+                cards, false);
+        assertEquals(plan.getDeckCosts()[0], twice.getCraftCost());
+    }
+
+    @Test
+    public void onlyUnusableCopiesAreMilled() {
+        Map<String, CardDetails> cards = createCards();
+        Map<String, Integer> deck = new HashMap<>();
+        deck.put("bronze", 3);
+        deck.put("gold", 1);
+
+        Map<String, Integer> owned = new HashMap<>();
+        owned.put("bronze", 4);
+        owned.put("silver", 3);
+        owned.put("otherBronze", 3);
+        owned.put("uncraftable", 2);
+
+        CraftingPlanner.Plan plan = CraftingPlanner.plan(Arrays.asList(deck), owned, cards, true);
+        assertEquals(1, (int) plan.getToMill().get("bronze"));
+        assertEquals(2, (int) plan.getToMill().get("silver"));
+        // Within the limit for a deck, so worth keeping, and the uncraftable card can't be milled.
+        assertEquals(2, plan.getToMill().size());
+        assertEquals(10 + 2 * 50, plan.getMillValue());
+        assertEquals(800 - 10 - 2 * 50, plan.getScrapNeeded());
+
+        owned.put("otherBronze", 80);
+        plan = CraftingPlanner.plan(Arrays.asList(deck), owned, cards, true);
+        assertEquals(77, (int) plan.getToMill().get("otherBronze"));
+        assertEquals(0, plan.getScrapNeeded());
+    }
+
+    @Test
+    public void manyDecks() {
+        Map<String, CardDetails> cards = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            cards.put("card" + i, createCard("card" + i, Type.BRONZE, 30, 10));
+        }
+
+        List<Map<String, Integer>> decks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Map<String, Integer> deck = new HashMap<>();
+            for (int card = 0; card < 25; card++) {
+                deck.put("card" + ((i * 7 + card) % 300), 1 + card % 3);
+            }
+            decks.add(deck);
+        }
+
+        CraftingPlanner.Plan plan = CraftingPlanner.plan(decks, new HashMap<String, Integer>(),
+                cards, true);
+        int copies = 0;
+        for (int count : plan.getToCraft().values()) {
+            assertTrue(count <= 3);
+            copies += count;
+        }
+        assertEquals(copies * 30, plan.getCraftCost());
+        assertTrue(plan.getSharedSaving() > 0);
+    }
+
+    private static Map<String, CardDetails> createCards() {
+        Map<String, CardDetails> cards = new HashMap<>();
+        cards.put("bronze", createCard("bronze", Type.BRONZE, 30, 10));
+        cards.put("otherBronze", createCard("otherBronze", Type.BRONZE, 30, 10));
+        cards.put("silver", createCard("silver", Type.SILVER, 200, 50));
+        cards.put("gold", createCard("gold", Type.GOLD, 800, 200));
+        cards.put("uncraftable", createCard("uncraftable", Type.GOLD, 0, 0));
+        return cards;
+    }
+
+    private static CardDetails createCard(String id, String type, long craftCost, long millValue) {
+        Map<String, Object> variation = new HashMap<>();
+        variation.put("variationId", id + "00");
+        if (craftCost > 0) {
+            Map<String, Object> craft = new HashMap<>();
+            craft.put(CraftingPlanner.STANDARD, craftCost);
+            Map<String, Object> mill = new HashMap<>();
+            mill.put(CraftingPlanner.STANDARD, millValue);
+            variation.put("craft", craft);
+            variation.put("mill", mill);
+        }
+        Map<String, Object> variations = new HashMap<>();
+        variations.put(id + "00", variation);
+
+        Map<String, Object> card = new HashMap<>();
+        card.put("ingameId", id);
+        card.put("name", id);
+        card.put("type", type);
+        card.put("variations", variations);
+        return CardDetails.fromMap(card);
+    }
+}
@@ -0,0 +1,160 @@
+package com.jamieadkins.gwent.data;
+
+import com.jamieadkins.gwent.data.repository.CardRepository;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+/**
+ * Checks decks survive a trip through a deck code, codes are short and URL safe, and broken
+ * codes are rejected.
+ */
+public class DeckCodeTest {
+    private static final String PATCH = "deck-code-test";
+    private static final int CARD_POOL = 300;
+
+    private static CardRepository sRepository;
+
+    @BeforeClass
+    public static void loadCards() {
+        sRepository = CardRepository.getInstance(PATCH);
+        sRepository.load(createCards(CARD_POOL));
+    }
+
+    private static List<CardDetails> createCards(int count) {
+        List<CardDetails> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> card = new HashMap<>();
+            card.put("ingameId", String.valueOf(100000 + i * 7));
+            card.put("name", "Card " + i);
+            card.put("type", i < 10 ? Type.LEADER : Type.BRONZE);
+            card.put("strength", (long) (i % 12));
+            cards.add(CardDetails.fromMap(card));
+        }
+        return cards;
+    }
+
+    @Test
+    public void decksSurviveTheirCode() {
+        Random random = new Random(1);
+        Deck deck = createDeck(random, sRepository.getCard("100000"));
+        String code = DeckCode.encode(deck, sRepository);
+        assertTrue(code.length() < 64);
+        assertTrue(code.matches("[A-Za-z0-9_-]+"));
+        assertEquals(PATCH, DeckCode.getPatch(code));
+
+        Deck decoded = DeckCode.decode(code, sRepository);
+        assertEquals(deck.getFactionId(), decoded.getFactionId());
+        assertEquals(deck.getLeaderId(), decoded.getLeaderId());
+        assertEquals(deck.getPatch(), decoded.getPatch());
+        assertEquals(deck.getCardCount(), decoded.getCardCount());
+        assertEquals(deck.getTotalStrength(), decoded.getTotalStrength());
+        assertEquals(code, DeckCode.encode(decoded, sRepository));
+    }
+
+    @Test
+    public void unusualDecksSurviveTheirCode() {
+        // No leader or faction, and more copies than fit in the low bits.
+        Deck deck = new Deck(null, null, null, null, null, PATCH);
+        for (int copy = 0; copy < 5; copy++) {
+            deck.addCard(sRepository.getCard("100070"));
+        }
+        deck.addCard(sRepository.getCard(String.valueOf(100000 + (CARD_POOL - 1) * 7)));
+
+        Deck decoded = DeckCode.decode(DeckCode.encode(deck, sRepository), sRepository);
+        assertNull(decoded.getLeaderId());
+        assertNull(decoded.getFactionId());
+        assertEquals(deck.getCardCount(), decoded.getCardCount());
+
+        Deck empty = new Deck(null, null, Faction.SKELLIGE, null, null, PATCH);
+        decoded = DeckCode.decode(DeckCode.encode(empty, sRepository), sRepository);
+        assertEquals(Faction.SKELLIGE, decoded.getFactionId());
+        assertTrue(decoded.getCardCount().isEmpty());
+    }
+
+    @Test
+    public void brokenCodesAreRejected() {
+        String code = DeckCode.encode(createDeck(new Random(2), null), sRepository);
+        assertRejected(null);
+        assertRejected("");
+        assertRejected("a");
+        assertRejected(code + "=");
+        assertRejected("$" + code.substring(1));
+        // A different version.
+        assertRejected("AQ" + code.substring(2));
+        // Cut off in the middle of the patch.
+        assertRejected(code.substring(0, 6));
+        assertRejected("/////////////////////////////");
+
+        CardRepository otherRepository = CardRepository.getInstance("other-patch");
+        try {
+            DeckCode.decode(code, otherRepository);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+
+        Deck unknownCards = new Deck(null, null, Faction.MONSTERS, null, null, PATCH);
+        unknownCards.getCardCount().put("not a card", 1);
+        try {
+            DeckCode.encode(unknownCards, sRepository);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void codesForOtherCardsAreRejected() {
+        CardRepository repository = CardRepository.getInstance("changed-patch");
+        repository.load(createCards(20));
+        Deck deck = new Deck(null, null, Faction.MONSTERS, null, null, "changed-patch");
+        deck.addCard(repository.getCard("100070"));
+        String code = DeckCode.encode(deck, repository);
+
+        // The patch gains a card, which moves every index after it.
+        repository.load(createCards(21));
+        try {
+            DeckCode.decode(code, repository);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+
+        repository.load(createCards(20));
+        assertEquals(1, (int) DeckCode.decode(code, repository).getCardCount().get("100070"));
+    }
+
+    private static void assertRejected(String code) {
+        try {
+            DeckCode.decode(code, sRepository);
+            fail(code);
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    private static Deck createDeck(Random random, CardDetails leader) {
+        Deck deck = new Deck("deck", "Test deck", Faction.MONSTERS, leader, "author", PATCH);
+        while (deck.getTotalCardCount() < 25) {
+            CardDetails card = sRepository.getCard(
+                    String.valueOf(100000 + (10 + random.nextInt(CARD_POOL - 10)) * 7));
+            Integer count = deck.getCardCount().get(card.getIngameId());
+            if (count == null || count < 3) {
+                deck.addCard(card);
+            }
+        }
+        return deck;
+    }
+}
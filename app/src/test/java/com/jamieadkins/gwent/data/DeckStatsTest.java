@@ -0,0 +1,128 @@
+package com.jamieadkins.gwent.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Checks deck totals count every copy and stay correct as cards are added and removed.
+ */
+public class DeckStatsTest {
+
+    @Test
+    public void totalsCountEveryCopy() {
+        Deck deck = createDeck();
+        DeckStats stats = deck.getStats();
+
+        assertEquals(6, stats.getCardCount());
+        assertEquals(3 * 4 + 2 * 8 + 5, stats.getTotalStrength());
+        assertEquals(3 * 4 + 5, stats.getStrength(Position.MELEE));
+        assertEquals(2 * 8 + 5, stats.getStrength(Position.RANGED));
+        assertEquals(0, stats.getStrength(Position.SIEGE));
+        assertEquals(5, stats.getTypeCount(Type.BRONZE));
+        assertEquals(1, stats.getTypeCount(Type.GOLD));
+        assertEquals(3, stats.getRarityCount(Rarity.COMMON));
+        assertEquals(2, stats.getRarityCount(Rarity.RARE));
+        assertEquals(1, stats.getRarityCount(Rarity.LEGENDARY));
+        assertEquals(5, stats.getFactionCount(Faction.MONSTERS));
+        assertEquals(1, stats.getFactionCount(Faction.NEUTRAL));
+    }
+
+    @Test
+    public void updatesMatchRebuilding() {
+        Deck deck = createDeck();
+        deck.getStats();
+
+        CardDetails extra = createCard("4", 6, Type.SILVER, Rarity.EPIC, Faction.MONSTERS,
+                Position.SIEGE);
+        deck.addCard(extra);
+        deck.addCard(deck.getCards().get("1"));
+        deck.removeCard(deck.getCards().get("2"));
+        deck.removeCard(deck.getCards().get("3"));
+
+        DeckStats updated = deck.getStats();
+        DeckStats rebuilt = DeckStats.of(deck.getCards(), deck.getCardCount());
+        assertEquals(rebuilt.getCardCount(), updated.getCardCount());
+        assertEquals(rebuilt.getTotalStrength(), updated.getTotalStrength());
+        for (String lane : new String[] {Position.MELEE, Position.RANGED, Position.SIEGE}) {
+            assertEquals(rebuilt.getStrength(lane), updated.getStrength(lane));
+        }
+        for (String type : Type.ALL_TYPES) {
+            assertEquals(rebuilt.getTypeCount(type), updated.getTypeCount(type));
+        }
+        assertEquals(0, updated.getTypeCount(Type.GOLD));
+        assertEquals(6, updated.getStrength(Position.SIEGE));
+    }
+
+    @Test
+    public void copiesKeepTheirOwnTotals() {
+        Deck deck = createDeck();
+        deck.getStats();
+        deck.getDrawOdds();
+
+        Deck copy = new Deck(deck);
+        copy.removeCard(copy.getCards().get("3"));
+        assertEquals(6, deck.getStats().getCardCount());
+        assertEquals(6, deck.getDrawOdds().getDeckSize());
+        assertEquals(5, copy.getStats().getCardCount());
+        assertEquals(5, copy.getDrawOdds().getDeckSize());
+    }
+
+    @Test
+    public void unresolvedCardsAreCountedButNotInTheStats() {
+        Deck deck = createDeck();
+        deck.getCardCount().put("unresolved", 2);
+        assertEquals(8, deck.getTotalCardCount());
+        assertEquals(6, deck.getStats().getCardCount());
+
+        deck.removeCard(createCard("unresolved", 7, Type.BRONZE, Rarity.COMMON,
+                Faction.MONSTERS, Position.SIEGE));
+        assertEquals(7, deck.getTotalCardCount());
+        assertEquals(6, deck.getStats().getCardCount());
+        assertEquals(0, deck.getStats().getStrength(Position.SIEGE));
+    }
+
+    private static Deck createDeck() {
+        Deck deck = new Deck();
+        deck.addCard(createCard("1", 4, Type.BRONZE, Rarity.COMMON, Faction.MONSTERS,
+                Position.MELEE));
+        deck.addCard(deck.getCards().get("1"));
+        deck.addCard(deck.getCards().get("1"));
+        deck.addCard(createCard("2", 8, Type.BRONZE, Rarity.RARE, Faction.MONSTERS,
+                Position.RANGED));
+        deck.addCard(deck.getCards().get("2"));
+        deck.addCard(createCard("3", 5, Type.GOLD, Rarity.LEGENDARY, Faction.NEUTRAL,
+                Position.MELEE, Position.RANGED));
+        return deck;
+    }
+
+    private static CardDetails createCard(String id, long strength, String type, String rarity,
+                                          String faction, String... lanes) {
+        Map<String, Object> variation = new HashMap<>();
+        variation.put("variationId", id + "00");
+        variation.put("rarity", rarity);
+
+        Map<String, Object> variations = new HashMap<>();
+        variations.put(id + "00", variation);
+
+        List<Object> laneValues = new ArrayList<>();
+        for (String lane : lanes) {
+            laneValues.add(lane);
+        }
+
+        Map<String, Object> value = new HashMap<>();
+        value.put("ingameId", id);
+        value.put("name", "Card " + id);
+        value.put("faction", faction);
+        value.put("type", type);
+        value.put("strength", strength);
+        value.put("lane", laneValues);
+        value.put("variations", variations);
+        return CardDetails.fromMap(value);
+    }
+}
@@ -0,0 +1,62 @@
+package com.jamieadkins.gwent.data;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Checks deck summaries survive a trip through the database and agree with their decks, using
+ * the cards in latest.json.
+ */
+public class DeckSummaryTest {
+    private static final Gson sGson = new Gson();
+    private static List<Map<String, Object>> mCardValues;
+
+    @BeforeClass
+    public static void loadCards() throws Exception {
+        mCardValues = ScrapedCards.loadSnapshotValues();
+    }
+
+    @Test
+    public void deckSummariesMatchTheirDecks() throws Exception {
+        Map<String, Object> cards = new HashMap<>();
+        Map<String, Object> cardCount = new HashMap<>();
+        for (int i = 0; i < 25; i++) {
+            Map<String, Object> card = mCardValues.get(i);
+            cards.put((String) card.get("ingameId"), card);
+            cardCount.put((String) card.get("ingameId"), (long) (i % 3 + 1));
+        }
+        Map<String, Object> deckValue = new HashMap<>();
+        deckValue.put("id", "deck");
+        deckValue.put("name", "Test deck");
+        deckValue.put("factionId", Faction.MONSTERS);
+        deckValue.put("leader", mCardValues.get(0));
+        deckValue.put("cards", cards);
+        deckValue.put("cardCount", cardCount);
+        Deck deck = Deck.fromMap(deckValue);
+
+        Map<String, Object> summaryValue = sGson.fromJson(
+                sGson.toJson(DeckSummary.of(deck).toMap()),
+                new TypeToken<Map<String, Object>>() {}.getType());
+
+        DeckSummary summary = DeckSummary.fromMap(summaryValue);
+        assertEquals(deck.getId(), summary.getId());
+        assertEquals(deck.getName(), summary.getName());
+        assertEquals(deck.getFactionId(), summary.getFactionId());
+        assertEquals(deck.getLeader().getName(), summary.getLeaderName());
+        assertEquals(deck.getTotalCardCount(), summary.getCardCount());
+        assertEquals(deck.getTotalStrength(), summary.getTotalStrength());
+        for (String position : new String[] {Position.MELEE, Position.RANGED, Position.SIEGE}) {
+            assertEquals(deck.getStrengthForPosition(position),
+                    summary.getStrengthForPosition(position));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.jamieadkins.gwent.data;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.jamieadkins.gwent.data.repository.CardRepository;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks decks saved without their cards resolve them from the repository, using the cards in
+ * latest.json.
+ */
+public class DeckTest {
+    private static final String PATCH = "deck-test";
+
+    private static final Gson sGson = new Gson();
+    private static List<Map<String, Object>> mCardValues;
+
+    @BeforeClass
+    public static void loadCards() throws Exception {
+        mCardValues = ScrapedCards.loadSnapshotValues();
+    }
+
+    @After
+    public void removeRepository() {
+        CardRepository.remove(PATCH);
+    }
+
+    @Test
+    public void compactDecksResolveTheirCards() throws Exception {
+        List<CardDetails> repositoryCards = new ArrayList<>();
+        Map<String, Object> cards = new HashMap<>();
+        Map<String, Object> cardCount = new HashMap<>();
+        for (int i = 0; i < mCardValues.size(); i++) {
+            Map<String, Object> card = mCardValues.get(i);
+            repositoryCards.add(CardDetails.fromMap(card));
+            if (i < 25) {
+                cards.put((String) card.get("ingameId"), card);
+                cardCount.put((String) card.get("ingameId"), (long) (i % 3 + 1));
+            }
+        }
+        CardRepository repository = CardRepository.getInstance(PATCH);
+        repository.load(repositoryCards);
+
+        // As saved by older versions, with every card embedded.
+        Map<String, Object> legacyValue = new HashMap<>();
+        legacyValue.put("id", "deck");
+        legacyValue.put("name", "Test deck");
+        legacyValue.put("factionId", Faction.MONSTERS);
+        legacyValue.put("leader", mCardValues.get(0));
+        legacyValue.put("patch", PATCH);
+        legacyValue.put("cards", cards);
+        legacyValue.put("cardCount", cardCount);
+
+        Deck legacyDeck = Deck.fromMap(legacyValue);
+        Map<String, Object> compactValue = sGson.fromJson(
+                sGson.toJson(legacyDeck.toMap()), new TypeToken<Map<String, Object>>() {}.getType());
+        int legacySize = sGson.toJson(legacyValue).length();
+        int compactSize = sGson.toJson(compactValue).length();
+        assertTrue(compactSize * 10 < legacySize);
+        // Older versions still need the leader.
+        assertTrue(compactValue.containsKey("leader"));
+        assertFalse(compactValue.containsKey(Deck.LEGACY_CARDS));
+
+        Deck compactDeck = Deck.fromMap(compactValue);
+        assertTrue(compactDeck.getCards().isEmpty());
+        compactDeck.resolveCards(repository);
+        assertEquals(legacyDeck.getLeaderId(), compactDeck.getLeaderId());
+        assertEquals(legacyDeck.getLeader().getName(), compactDeck.getLeader().getName());
+        assertEquals(legacyDeck.getCards().keySet(), compactDeck.getCards().keySet());
+        assertEquals(legacyDeck.getCardCount(), compactDeck.getCardCount());
+        assertEquals(legacyDeck.getTotalStrength(), compactDeck.getTotalStrength());
+        for (String cardId : compactDeck.getCards().keySet()) {
+            assertSame(repository.getCard(cardId), compactDeck.getCards().get(cardId));
+        }
+    }
+}
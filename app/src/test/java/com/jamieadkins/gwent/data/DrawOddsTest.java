@@ -0,0 +1,114 @@
+package com.jamieadkins.gwent.data;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Checks draw chances against exact values and stay correct as cards are added and removed.
+ */
+public class DrawOddsTest {
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void binomialsAreExactForFullDecks() {
+        for (int n = 0; n <= 40; n++) {
+            BigInteger expected = BigInteger.ONE;
+            for (int k = 0; k <= n; k++) {
+                assertEquals(expected.doubleValue(), DrawOdds.binomial(n, k));
+                expected = expected.multiply(BigInteger.valueOf(n - k))
+                        .divide(BigInteger.valueOf(k + 1));
+            }
+        }
+        assertEquals(0.0, DrawOdds.binomial(5, 6));
+    }
+
+    @Test
+    public void chancesMatchHypergeometric() {
+        DrawOdds odds = DrawOdds.of(createCardCount());
+        assertEquals(25, odds.getDeckSize());
+
+        // Three copies in 25 cards, none of them in a hand of 10 is C(22, 10) / C(25, 10).
+        assertEquals(1 - 646646.0 / 3268760.0,
+                odds.getCardChance("bronze", DrawOdds.OPENING_HAND), DELTA);
+        assertEquals(1 - 15.0 / 25.0, odds.getCardChance("gold", DrawOdds.OPENING_HAND), DELTA);
+        assertEquals(0.0, odds.getCardChance("missing", DrawOdds.OPENING_HAND));
+        assertEquals(1.0, odds.getCardChance("gold", 25), DELTA);
+
+        // Any of the four copies, the same as a single card with four copies.
+        assertEquals(odds.getChance(4, DrawOdds.ROUND_TWO),
+                odds.getGroupChance(Arrays.asList("bronze", "gold"), DrawOdds.ROUND_TWO));
+    }
+
+    @Test
+    public void updatesMatchRebuilding() {
+        Map<String, Integer> cardCount = createCardCount();
+        DrawOdds odds = DrawOdds.of(cardCount);
+        odds.precompute(DrawOdds.OPENING_HAND, DrawOdds.ROUND_TWO, DrawOdds.ROUND_THREE);
+
+        odds.add("bronze");
+        odds.add("silver");
+        odds.remove("gold");
+        odds.remove("missing");
+        cardCount.put("bronze", 4);
+        cardCount.put("silver", 1);
+        cardCount.remove("gold");
+
+        DrawOdds rebuilt = DrawOdds.of(cardCount);
+        assertEquals(rebuilt.getDeckSize(), odds.getDeckSize());
+        for (String cardId : new String[] {"bronze", "silver", "gold", "filler0"}) {
+            for (int draws = 1; draws <= DrawOdds.ROUND_THREE; draws++) {
+                assertEquals(rebuilt.getCardChance(cardId, draws),
+                        odds.getCardChance(cardId, draws));
+            }
+        }
+    }
+
+    @Test
+    public void carriedOddsMatchRebuilding() {
+        Deck previous = createDeck(createCardCount());
+        previous.getDrawOdds().precompute(DrawOdds.OPENING_HAND);
+
+        // Swap the gold card for a silver one and add a copy of the bronze card.
+        Map<String, Integer> cardCount = createCardCount();
+        cardCount.remove("gold");
+        cardCount.put("silver", 1);
+        cardCount.put("bronze", 4);
+        Deck deck = createDeck(cardCount);
+        deck.carryDrawOddsFrom(previous);
+
+        DrawOdds rebuilt = DrawOdds.of(cardCount);
+        assertEquals(rebuilt.getDeckSize(), deck.getDrawOdds().getDeckSize());
+        for (String cardId : new String[] {"bronze", "silver", "gold", "filler0"}) {
+            assertEquals(rebuilt.getCardChance(cardId, DrawOdds.OPENING_HAND),
+                    deck.getDrawOdds().getCardChance(cardId, DrawOdds.OPENING_HAND));
+        }
+        // The previous deck keeps its own odds.
+        assertEquals(25, previous.getDrawOdds().getDeckSize());
+    }
+
+    private static Deck createDeck(Map<String, Integer> cardCount) {
+        Map<String, Object> counts = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : cardCount.entrySet()) {
+            counts.put(entry.getKey(), (long) entry.getValue());
+        }
+        Map<String, Object> value = new HashMap<>();
+        value.put("cardCount", counts);
+        return Deck.fromMap(value);
+    }
+
+    private static Map<String, Integer> createCardCount() {
+        Map<String, Integer> cardCount = new HashMap<>();
+        cardCount.put("bronze", 3);
+        cardCount.put("gold", 1);
+        for (int i = 0; i < 7; i++) {
+            cardCount.put("filler" + i, 3);
+        }
+        return cardCount;
+    }
+}
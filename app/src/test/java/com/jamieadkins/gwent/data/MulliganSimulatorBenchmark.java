@@ -0,0 +1,61 @@
+package com.jamieadkins.gwent.data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Times the mulligan simulation for a typical deck, to size the number of trials the deck detail
+ * screen runs, and shows the standard error each number of trials gives.
+ *
+ * Not a test, as the timings depend on the machine. Run main() by hand, on a device if possible.
+ */
+public class MulliganSimulatorBenchmark {
+    private static final int[] TRIALS = {10000, 50000, 200000, 1000000};
+    private static final int WARM_UP_RUNS = 5;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        MulliganSimulator simulator = createSimulator();
+        List<MulliganSimulator.Policy> policies = simulator.getDefaultPolicies();
+        for (int run = 0; run < WARM_UP_RUNS; run++) {
+            simulator.simulate(policies, TRIALS[TRIALS.length - 1], run);
+        }
+
+        for (int trials : TRIALS) {
+            long best = Long.MAX_VALUE;
+            double standardError = 0;
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                List<MulliganSimulator.Result> results = simulator.simulate(policies, trials, run);
+                best = Math.min(best, System.nanoTime() - start);
+                for (MulliganSimulator.Result result : results) {
+                    standardError = Math.max(standardError, result.getStandardError());
+                }
+            }
+            System.out.println(String.format(Locale.ENGLISH,
+                    "%,d trials: %,d ms, standard error up to %.3f", trials, best / 1000000,
+                    standardError));
+        }
+    }
+
+    private static MulliganSimulator createSimulator() {
+        // 25 cards: bronzes with three copies, a couple of golds and some silvers.
+        Map<String, Integer> cardCount = new HashMap<>();
+        Map<String, Integer> scores = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            cardCount.put("bronze" + i, 3);
+            scores.put("bronze" + i, 4 + i * 2);
+        }
+        for (int i = 0; i < 2; i++) {
+            cardCount.put("gold" + i, 1);
+            scores.put("gold" + i, 14);
+        }
+        for (int i = 0; i < 8; i++) {
+            cardCount.put("silver" + i, 1);
+            scores.put("silver" + i, 8 + i);
+        }
+        return new MulliganSimulator(cardCount, scores);
+    }
+}
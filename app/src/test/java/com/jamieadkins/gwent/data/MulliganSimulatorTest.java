@@ -0,0 +1,103 @@
+package com.jamieadkins.gwent.data;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks simulated hands against exact expectations, and that mulligans only make hands better.
+ */
+public class MulliganSimulatorTest {
+    private static final long SEED = 42;
+    // Plenty to tell the default policies apart, while keeping the test quick.
+    private static final int TRIALS = 5000;
+
+    @Test
+    public void generatorMatchesReference() {
+        SplitMix64 random = new SplitMix64(0);
+        assertEquals(0xE220A8397B1DCDAFL, random.nextLong());
+        assertEquals(0x6E789E6AA1B965F4L, random.nextLong());
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt(25);
+            assertTrue(value >= 0 && value < 25);
+        }
+    }
+
+    @Test
+    public void keptHandsMatchExpectation() throws Exception {
+        MulliganSimulator simulator = createSimulator();
+        assertEquals(25, simulator.getDeckSize());
+
+        MulliganSimulator.Result result = simulator.simulate(
+                Collections.singletonList(new MulliganSimulator.Policy(0, 0)), TRIALS, SEED)
+                .get(0);
+
+        // Ten cards from a deck worth 100 in total.
+        double expected = 10 * 100.0 / 25;
+        assertEquals(expected, result.getMean(), 4 * result.getStandardError());
+    }
+
+    @Test
+    public void mulligansImproveHands() throws Exception {
+        MulliganSimulator simulator = createSimulator();
+        List<MulliganSimulator.Policy> policies = simulator.getDefaultPolicies();
+        assertEquals(4, policies.size());
+
+        List<MulliganSimulator.Result> results = simulator.simulate(policies, TRIALS, SEED);
+
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i).getMean() > results.get(i - 1).getMean());
+        }
+
+        // Same seed, same results, whatever threads ran them.
+        List<MulliganSimulator.Result> again = simulator.simulate(policies, TRIALS, SEED);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(results.get(i).getMean(), again.get(i).getMean());
+        }
+    }
+
+    @Test
+    public void mulliganedCardsAreNotRedrawn() throws Exception {
+        // Ten good cards and a bad card with three copies. Mulliganing a bad card can only ever
+        // draw a good one.
+        Map<String, Integer> cardCount = new HashMap<>();
+        Map<String, Integer> scores = new HashMap<>();
+        cardCount.put("bad", 3);
+        scores.put("bad", 0);
+        for (int i = 0; i < 10; i++) {
+            cardCount.put("good" + i, 1);
+            scores.put("good" + i, 1);
+        }
+        MulliganSimulator simulator = new MulliganSimulator(cardCount, scores);
+
+        MulliganSimulator.Result result = simulator.simulate(
+                Collections.singletonList(new MulliganSimulator.Policy(3, 1)), TRIALS, SEED)
+                .get(0);
+        assertEquals(10.0, result.getMean());
+    }
+
+    private static MulliganSimulator createSimulator() {
+        // 25 cards worth 100 in total.
+        Map<String, Integer> cardCount = new HashMap<>();
+        Map<String, Integer> scores = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            cardCount.put("card" + i, 3);
+            scores.put("card" + i, i * 2);
+        }
+        cardCount.put("gold0", 1);
+        scores.put("gold0", 10);
+        cardCount.put("gold1", 1);
+        scores.put("gold1", 10);
+        for (int i = 0; i < 8; i++) {
+            cardCount.put("silver" + i, 1);
+            scores.put("silver" + i, i < 4 ? 3 : 2);
+        }
+        return new MulliganSimulator(cardCount, scores);
+    }
+}
@@ -0,0 +1,106 @@
+package com.jamieadkins.gwent.data;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the cards in latest.json for the tests and benchmarks that need real card data.
+ */
+class ScrapedCards {
+    private static final String[] LANES = {"Event", "Melee", "Ranged", "Siege"};
+
+    private ScrapedCards() {
+    }
+
+    /**
+     * Every card in latest.json, as the values a DataSnapshot would give for them.
+     */
+    static List<Map<String, Object>> loadSnapshotValues() throws Exception {
+        File file = new File("../python/latest.json");
+        if (!file.exists()) {
+            file = new File("python/latest.json");
+        }
+
+        Map<String, Map<String, Object>> scraped;
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+        try {
+            scraped = new Gson().fromJson(reader,
+                    new TypeToken<Map<String, Map<String, Object>>>() {}.getType());
+        } finally {
+            reader.close();
+        }
+
+        List<Map<String, Object>> values = new ArrayList<>();
+        for (Map<String, Object> card : scraped.values()) {
+            values.add(toSnapshotValue(card));
+        }
+        return values;
+    }
+
+    /**
+     * latest.json is in the format the scraper produces, so convert each card into the shape
+     * CardDetails is stored in, with numbers as longs like DataSnapshot.getValue() gives.
+     */
+    private static Map<String, Object> toSnapshotValue(Map<String, Object> scraped) {
+        String id = (String) scraped.get("cardid");
+        String rarity = (String) scraped.get("rarity");
+
+        Map<String, Object> art = new HashMap<>();
+        art.put("fullsizeImageUrl", scraped.get("image"));
+        art.put("thumbnailImageUrl", scraped.get("image"));
+
+        long craftCost = Rarity.LEGENDARY.equals(rarity) ? 800 : Rarity.EPIC.equals(rarity) ? 200
+                : Rarity.RARE.equals(rarity) ? 80 : 30;
+        Map<String, Object> craft = new HashMap<>();
+        craft.put("standard", craftCost);
+        craft.put("premium", craftCost * 2);
+        Map<String, Object> mill = new HashMap<>();
+        mill.put("standard", craftCost / 4);
+        mill.put("premium", craftCost / 2);
+
+        Map<String, Object> variation = new HashMap<>();
+        variation.put("variationId", id + "00");
+        variation.put("availability", "BaseSet");
+        variation.put("rarity", rarity);
+        variation.put("collectible", true);
+        variation.put("art", art);
+        variation.put("craft", craft);
+        variation.put("mill", mill);
+        Map<String, Object> variations = new HashMap<>();
+        variations.put(id + "00", variation);
+
+        List<Object> lanes = new ArrayList<>();
+        Object rows = scraped.get("rows");
+        for (String lane : LANES) {
+            if (rows instanceof Map && ((Map<?, ?>) rows).containsKey(lane)) {
+                lanes.add(lane.toLowerCase());
+            }
+        }
+
+        Map<String, Object> value = new HashMap<>();
+        value.put("ingameId", id);
+        value.put("name", scraped.get("name"));
+        value.put("info", scraped.get("info"));
+        value.put("faction", scraped.get("faction"));
+        value.put("type", scraped.get("type"));
+        value.put("strength", Long.parseLong((String) scraped.get("strength")));
+        value.put("released", true);
+        value.put("lane", lanes);
+        if (scraped.get("loyalty") != null) {
+            List<Object> loyalty = new ArrayList<>();
+            loyalty.add(((String) scraped.get("loyalty")).toLowerCase());
+            value.put("loyalty", loyalty);
+        }
+        value.put("variations", variations);
+        return value;
+    }
+}
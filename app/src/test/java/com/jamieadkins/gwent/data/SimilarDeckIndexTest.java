@@ -0,0 +1,119 @@
+package com.jamieadkins.gwent.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks MinHash estimates deck similarity and the index finds near copies among many decks.
+ */
+public class SimilarDeckIndexTest {
+    private static final int CARD_POOL = 150;
+
+    @Test
+    public void signaturesEstimateSharedCopies() {
+        Random random = new Random(1);
+        Map<String, Integer> deck = createDeck(random);
+        Map<String, Integer> copy = new HashMap<>(deck);
+        assertEquals(1.0, MinHash.similarity(MinHash.signature(deck), MinHash.signature(copy)));
+
+        // Swap out about a quarter of the copies.
+        Map<String, Integer> changed = changeCards(deck, 6, random);
+        double similarity = jaccard(deck, changed);
+        double estimate = MinHash.similarity(MinHash.signature(deck), MinHash.signature(changed));
+        assertEquals(similarity, estimate, 0.25);
+
+        int[] signature = MinHash.signature(deck);
+        assertTrue(Arrays.equals(signature, MinHash.decode(MinHash.encode(signature))));
+        assertNull(MinHash.decode("not a signature"));
+    }
+
+    @Test
+    public void nearCopiesAreFound() {
+        Random random = new Random(2);
+        SimilarDeckIndex index = new SimilarDeckIndex();
+        for (int i = 0; i < 2000; i++) {
+            index.put(createSummary("deck" + i, createDeck(random)));
+        }
+        index.put(createSummary("legacy", null));
+        assertEquals(2000, index.size());
+
+        Map<String, Integer> deck = createDeck(random);
+        index.put(createSummary("mine", deck));
+        index.put(createSummary("nearCopy", changeCards(deck, 2, random)));
+
+        List<SimilarDeckIndex.Match> matches =
+                index.findSimilar(MinHash.signature(deck), 5, "mine");
+        assertTrue(matches.size() <= 5);
+        assertEquals("nearCopy", matches.get(0).getDeck().getId());
+        for (int i = 1; i < matches.size(); i++) {
+            assertTrue(matches.get(i - 1).getSimilarity() >= matches.get(i).getSimilarity());
+        }
+
+        index.remove("nearCopy");
+        for (SimilarDeckIndex.Match match :
+                index.findSimilar(MinHash.signature(deck), 5, "mine")) {
+            assertTrue(!match.getDeck().getId().equals("nearCopy"));
+        }
+    }
+
+    private static Map<String, Integer> createDeck(Random random) {
+        Map<String, Integer> deck = new HashMap<>();
+        int size = 0;
+        while (size < 25) {
+            String cardId = "card" + random.nextInt(CARD_POOL);
+            if (!deck.containsKey(cardId)) {
+                int copies = Math.min(random.nextInt(3) + 1, 25 - size);
+                deck.put(cardId, copies);
+                size += copies;
+            }
+        }
+        return deck;
+    }
+
+    private static Map<String, Integer> changeCards(Map<String, Integer> deck, int cards,
+                                                    Random random) {
+        Map<String, Integer> changed = new HashMap<>(deck);
+        for (int i = 0; i < cards; i++) {
+            String removed = changed.keySet().iterator().next();
+            int copies = changed.remove(removed);
+            changed.put("new" + i + "-" + random.nextInt(), copies);
+        }
+        return changed;
+    }
+
+    private static double jaccard(Map<String, Integer> deck, Map<String, Integer> otherDeck) {
+        int shared = 0;
+        int total = 0;
+        Map<String, Integer> all = new HashMap<>(deck);
+        for (Map.Entry<String, Integer> entry : otherDeck.entrySet()) {
+            Integer count = all.get(entry.getKey());
+            all.put(entry.getKey(), Math.max(count != null ? count : 0, entry.getValue()));
+        }
+        for (Map.Entry<String, Integer> entry : all.entrySet()) {
+            Integer count = deck.get(entry.getKey());
+            Integer otherCount = otherDeck.get(entry.getKey());
+            shared += Math.min(count != null ? count : 0, otherCount != null ? otherCount : 0);
+            total += entry.getValue();
+        }
+        return (double) shared / total;
+    }
+
+    private static DeckSummary createSummary(String id, Map<String, Integer> cardCount) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", id);
+        value.put("name", id);
+        if (cardCount != null) {
+            value.put("signature", MinHash.encode(MinHash.signature(cardCount)));
+        }
+        return DeckSummary.fromMap(value);
+    }
+}
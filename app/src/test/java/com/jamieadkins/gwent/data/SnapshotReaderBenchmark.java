@@ -0,0 +1,71 @@
+package com.jamieadkins.gwent.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares reading every card in latest.json by reflection with the hand written reader.
+ *
+ * Gson's reflective mapper stands in for Firebase's, which needs a real DataSnapshot. Not a test,
+ * as the timings depend on the machine. Run main() by hand, on a device if possible.
+ */
+public class SnapshotReaderBenchmark {
+    private static final int ROUNDS = 200;
+    private static final int WARM_UP_RUNS = 5;
+
+    private static final Gson sGson = new Gson();
+
+    public static void main(String[] args) throws Exception {
+        List<Map<String, Object>> values = ScrapedCards.loadSnapshotValues();
+        List<JsonElement> json = new ArrayList<>();
+        for (Map<String, Object> value : values) {
+            json.add(sGson.toJsonTree(value));
+        }
+
+        for (int run = 0; run < WARM_UP_RUNS; run++) {
+            runReflection(json);
+            runReader(values);
+        }
+
+        long start = System.nanoTime();
+        int reflectionStrength = runReflection(json);
+        long reflectionTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int readerStrength = runReader(values);
+        long readerTime = System.nanoTime() - start;
+
+        long cards = (long) ROUNDS * values.size();
+        System.out.println(String.format(Locale.ENGLISH,
+                "reflection: %.2f us per card, total strength %,d",
+                reflectionTime / 1000.0 / cards, reflectionStrength));
+        System.out.println(String.format(Locale.ENGLISH,
+                "reader: %.2f us per card, total strength %,d",
+                readerTime / 1000.0 / cards, readerStrength));
+    }
+
+    private static int runReflection(List<JsonElement> json) {
+        int strength = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (JsonElement card : json) {
+                strength += sGson.fromJson(card, CardDetails.class).getStrength();
+            }
+        }
+        return strength;
+    }
+
+    private static int runReader(List<Map<String, Object>> values) {
+        int strength = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Map<String, Object> value : values) {
+                strength += CardDetails.fromMap(value).getStrength();
+            }
+        }
+        return strength;
+    }
+}
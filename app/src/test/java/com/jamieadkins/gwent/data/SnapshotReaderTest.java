@@ -0,0 +1,105 @@
+package com.jamieadkins.gwent.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotNull;
+
+/**
+ * Checks the hand written readers agree with reflection on every card in latest.json.
+ *
+ * Firebase's own mapper needs a real DataSnapshot, so Gson's reflective mapper stands in for it
+ * here. Both walk the same fields of the same classes by reflection.
+ */
+public class SnapshotReaderTest {
+    private static final Gson sGson = new Gson();
+    private static List<Map<String, Object>> mCardValues;
+    private static List<JsonElement> mCardJson;
+
+    @BeforeClass
+    public static void loadCards() throws Exception {
+        mCardValues = ScrapedCards.loadSnapshotValues();
+        mCardJson = new ArrayList<>();
+        for (Map<String, Object> value : mCardValues) {
+            mCardJson.add(sGson.toJsonTree(value));
+        }
+    }
+
+    @Test
+    public void cardReaderMatchesReflection() throws Exception {
+        assertEquals(217, mCardValues.size());
+        for (int i = 0; i < mCardValues.size(); i++) {
+            CardDetails expected = sGson.fromJson(mCardJson.get(i), CardDetails.class);
+            CardDetails actual = CardDetails.fromMap(mCardValues.get(i));
+
+            assertEquals(expected.getIngameId(), actual.getIngameId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getInfo(), actual.getInfo());
+            assertEquals(expected.getFaction(), actual.getFaction());
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getStrength(), actual.getStrength());
+            assertEquals(expected.getLane(), actual.getLane());
+            assertEquals(expected.getLoyalty(), actual.getLoyalty());
+            assertEquals(expected.isReleased(), actual.isReleased());
+            assertEquals(expected.getRarity(), actual.getRarity());
+            assertEquals(expected.getImage(), actual.getImage());
+            assertEquals(expected.getFilterBits(), actual.getFilterBits());
+
+            for (String key : expected.getVariations().keySet()) {
+                CardDetails.Variation expectedVariation = expected.getVariations().get(key);
+                CardDetails.Variation actualVariation = actual.getVariations().get(key);
+                assertNotNull(actualVariation);
+                assertEquals(expectedVariation.getVariationId(), actualVariation.getVariationId());
+                assertEquals(expectedVariation.getCraft(), actualVariation.getCraft());
+                assertEquals(expectedVariation.getMill(), actualVariation.getMill());
+                assertEquals(expectedVariation.isCollectible(), actualVariation.isCollectible());
+            }
+        }
+    }
+
+    @Test
+    public void deckAndCollectionReadersMatchReflection() throws Exception {
+        Map<String, Object> cards = new HashMap<>();
+        Map<String, Object> cardCount = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            Map<String, Object> card = mCardValues.get(i);
+            cards.put((String) card.get("ingameId"), card);
+            cardCount.put((String) card.get("ingameId"), (long) (i % 3 + 1));
+        }
+
+        Map<String, Object> deckValue = new HashMap<>();
+        deckValue.put("id", "deck");
+        deckValue.put("name", "Test deck");
+        deckValue.put("author", "author");
+        deckValue.put("factionId", Faction.MONSTERS);
+        deckValue.put("leader", mCardValues.get(0));
+        deckValue.put("publicDeck", true);
+        deckValue.put("cards", cards);
+        deckValue.put("cardCount", cardCount);
+
+        Deck expected = sGson.fromJson(sGson.toJsonTree(deckValue), Deck.class);
+        Deck actual = Deck.fromMap(deckValue);
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getFactionId(), actual.getFactionId());
+        assertEquals(expected.getLeader(), actual.getLeader());
+        assertEquals(expected.getPatch(), actual.getPatch());
+        assertEquals(expected.isPublicDeck(), actual.isPublicDeck());
+        assertEquals(expected.getCards(), actual.getCards());
+        assertEquals(expected.getCardCount(), actual.getCardCount());
+        assertEquals(expected.getTotalStrength(), actual.getTotalStrength());
+
+        Map<String, Object> collectionValue = new HashMap<>();
+        collectionValue.put("cards", cardCount);
+        assertEquals(sGson.fromJson(sGson.toJsonTree(collectionValue), Collection.class).getCards(),
+                Collection.fromMap(collectionValue).getCards());
+    }
+}
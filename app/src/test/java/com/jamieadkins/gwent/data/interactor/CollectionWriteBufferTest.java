@@ -0,0 +1,90 @@
+package com.jamieadkins.gwent.data.interactor;
+
+import com.jamieadkins.gwent.data.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks taps on add and remove are coalesced into one update per card.
+ */
+public class CollectionWriteBufferTest {
+    private CollectionWriteBuffer mBuffer;
+    private Collection mStored;
+
+    @Before
+    public void setUp() {
+        mBuffer = new CollectionWriteBuffer();
+        mStored = new Collection();
+        mStored.getCards().put("1", 2);
+        mStored.getCards().put("2", 1);
+    }
+
+    @Test
+    public void tapsAreCoalesced() {
+        for (int i = 0; i < 5; i++) {
+            mBuffer.add("1", 1);
+        }
+        mBuffer.add("1", -1);
+        mBuffer.add("3", 1);
+
+        Collection shown = mBuffer.apply(mStored);
+        assertEquals(6, (int) shown.getCards().get("1"));
+        assertEquals(1, (int) shown.getCards().get("2"));
+        assertEquals(1, (int) shown.getCards().get("3"));
+        // The stored collection is left alone.
+        assertEquals(2, (int) mStored.getCards().get("1"));
+
+        Map<String, CollectionWriteBuffer.Change> changes = mBuffer.drain();
+        assertEquals(2, changes.size());
+        assertEquals(6, changes.get("1").apply(2));
+        assertEquals(1, changes.get("3").apply(0));
+        // Applied to whatever the count is when written, not what it was when tapped.
+        assertEquals(9, changes.get("1").apply(5));
+        assertTrue(mBuffer.isEmpty());
+    }
+
+    @Test
+    public void cancellingTapsWriteNothing() {
+        mBuffer.add("1", 1);
+        mBuffer.add("1", -1);
+        assertTrue(mBuffer.isEmpty());
+        assertTrue(mBuffer.drain().isEmpty());
+    }
+
+    @Test
+    public void countsNeverGoNegative() {
+        mBuffer.add("2", -1);
+        mBuffer.add("2", -1);
+        assertFalse(mBuffer.isEmpty());
+        assertEquals(0, (int) mBuffer.apply(mStored).getCards().get("2"));
+        assertEquals(0, mBuffer.drain().get("2").apply(1));
+    }
+
+    @Test
+    public void eachTapIsClampedOnItsOwn() {
+        // Removing a card there are none of does nothing, so adding one afterwards gives one.
+        mBuffer.add("3", -1);
+        mBuffer.add("3", 1);
+        assertFalse(mBuffer.isEmpty());
+        assertEquals(1, (int) mBuffer.apply(mStored).getCards().get("3"));
+
+        mBuffer.add("2", -1);
+        mBuffer.add("2", -1);
+        mBuffer.add("2", 1);
+        assertEquals(1, (int) mBuffer.apply(mStored).getCards().get("2"));
+
+        Map<String, CollectionWriteBuffer.Change> changes = mBuffer.drain();
+        assertEquals(1, changes.get("3").apply(0));
+        // Copies added elsewhere before the write are kept.
+        assertEquals(3, changes.get("3").apply(3));
+        assertEquals(1, changes.get("2").apply(0));
+        assertEquals(2, changes.get("2").apply(3));
+    }
+}
@@ -0,0 +1,119 @@
+package com.jamieadkins.gwent.data.interactor;
+
+import com.jamieadkins.gwent.data.Deck;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+
+/**
+ * Checks pending deck edits are applied in order on top of the latest remote deck.
+ */
+public class DeckOperationLogTest {
+    private static final String USER = "user";
+    private static final String DECK = "deck";
+
+    private DeckOperationLog mLog;
+
+    @Before
+    public void setUp() {
+        mLog = new DeckOperationLog();
+    }
+
+    @Test
+    public void pendingOperationsAreRebasedOntoRemoteChanges() {
+        mLog.append(USER, DECK, "1", 1);
+        mLog.append(USER, DECK, "2", -1);
+        mLog.append(USER, "other deck", "1", 1);
+
+        Deck remote = createDeck(1, 1);
+        Deck local = mLog.rebase(USER, remote, -1);
+        assertEquals(2, (int) local.getCardCount().get("1"));
+        assertFalse(local.getCardCount().containsKey("2"));
+        // The remote deck is left alone.
+        assertEquals(1, (int) remote.getCardCount().get("2"));
+
+        // Someone else adds another copy of card 2 before our edits are written.
+        local = mLog.rebase(USER, createDeck(1, 2), -1);
+        assertEquals(2, (int) local.getCardCount().get("1"));
+        assertEquals(1, (int) local.getCardCount().get("2"));
+    }
+
+    @Test
+    public void acknowledgedOperationsAreNoLongerApplied() {
+        DeckOperation first = mLog.append(USER, DECK, "1", 1);
+        DeckOperation second = mLog.append(USER, DECK, "1", 1);
+        assertEquals(first, mLog.peek());
+
+        mLog.acknowledge(first);
+        assertEquals(second, mLog.peek());
+        // Firebase now has the first operation.
+        assertEquals(3, (int) mLog.rebase(USER, createDeck(2, 0), -1).getCardCount().get("1"));
+
+        mLog.acknowledge(second);
+        assertNull(mLog.peek());
+    }
+
+    @Test
+    public void appliedOperationsAreNotAppliedTwice() {
+        DeckOperation first = mLog.append(USER, DECK, "1", 1);
+        mLog.append(USER, DECK, "1", 1);
+
+        // Firebase shows the first operation before it says it has been written.
+        Deck local = mLog.rebase(USER, createDeck(2, 0), first.getSequence());
+        assertEquals(3, (int) local.getCardCount().get("1"));
+    }
+
+    @Test
+    public void rebasedDecksKeepTheirDrawOddsUpToDate() {
+        mLog.append(USER, DECK, "1", 1);
+        mLog.append(USER, DECK, "2", -5);
+
+        Deck remote = createDeck(1, 1);
+        assertEquals(2, remote.getDrawOdds().getDeckSize());
+        Deck local = mLog.rebase(USER, remote, -1);
+        assertEquals(2, local.getDrawOdds().getDeckSize());
+        assertEquals(2, remote.getDrawOdds().getDeckSize());
+    }
+
+    @Test
+    public void logSurvivesEncoding() {
+        mLog.append(USER, DECK, "1", 1);
+        DeckOperation acknowledged = mLog.append(USER, DECK, "2", -1);
+        mLog.append(USER, DECK, "3", 1);
+        mLog.acknowledge(acknowledged);
+
+        DeckOperationLog decoded = DeckOperationLog.decode(mLog.encode() + "not an operation\n");
+        assertEquals(2, decoded.size());
+        assertEquals("1", decoded.peek().getCardId());
+        assertEquals(1, decoded.peek().getDelta());
+
+        // New operations still come after the decoded ones.
+        DeckOperation next = decoded.append(USER, DECK, "4", 1);
+        assertEquals(3, next.getSequence());
+
+        // Even once they have all been written.
+        decoded.acknowledge(decoded.peek());
+        decoded.acknowledge(decoded.peek());
+        decoded.acknowledge(next);
+        assertEquals(4, DeckOperationLog.decode(decoded.encode())
+                .append(USER, DECK, "1", 1).getSequence());
+    }
+
+    private static Deck createDeck(int firstCount, int secondCount) {
+        Map<String, Object> cardCount = new HashMap<>();
+        cardCount.put("1", (long) firstCount);
+        cardCount.put("2", (long) secondCount);
+
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", DECK);
+        value.put("cardCount", cardCount);
+        return Deck.fromMap(value);
+    }
+}
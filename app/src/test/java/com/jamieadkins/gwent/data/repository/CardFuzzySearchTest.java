@@ -0,0 +1,91 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks typo tolerant search finds close names, closest first, within the edit limits.
+ */
+public class CardFuzzySearchTest {
+    private static List<CardDetails> sCards;
+    private static CardFuzzySearch sSearch;
+
+    @BeforeClass
+    public static void createSearch() throws Exception {
+        sCards = new ArrayList<>();
+        sCards.add(createCard("Gerald the Baker"));
+        sCards.add(createCard("Geralt"));
+        sCards.add(createCard("Ciri"));
+        sCards.add(createCard("Scoia'tael Trapper"));
+        sCards.add(createCard("Geralt: Igni"));
+        sSearch = new CardFuzzySearch(sCards);
+    }
+
+    @Test
+    public void closestNamesComeFirst() {
+        List<CardDetails> cards = sSearch.search("geralt", 10);
+        assertEquals(3, cards.size());
+        // Exact matches tie, and keep their order in the list.
+        assertEquals("Geralt", cards.get(0).getName());
+        assertEquals("Geralt: Igni", cards.get(1).getName());
+        assertEquals("Gerald the Baker", cards.get(2).getName());
+
+        assertEquals(2, sSearch.search("geralt", 2).size());
+    }
+
+    @Test
+    public void caseAndPunctuationAreIgnored() {
+        assertEquals("Scoia'tael Trapper", sSearch.search("SCOIATAEL", 10).get(0).getName());
+        assertEquals("Geralt: Igni", sSearch.search("GeraltIgni", 10).get(0).getName());
+        assertEquals("Geralt: Igni", sSearch.search("geralt, igni!", 10).get(0).getName());
+    }
+
+    @Test
+    public void editsAreLimitedByTermLength() {
+        // Long terms allow two edits, so a swapped pair of letters still matches.
+        assertEquals("Geralt", sSearch.search("gerlat", 10).get(0).getName());
+        assertTrue(sSearch.search("gxrxlx", 10).isEmpty());
+
+        // Terms of three or four letters allow one.
+        assertEquals("Ciri", sSearch.search("cirk", 10).get(0).getName());
+        assertTrue(sSearch.search("cikk", 10).isEmpty());
+
+        // Shorter terms have to match exactly.
+        assertTrue(sSearch.search("ci", 10).isEmpty());
+        assertTrue(sSearch.search("", 10).isEmpty());
+    }
+
+    @Test
+    public void limitAppliesToAllowedCards() {
+        BitSet allowed = new BitSet(sCards.size());
+        allowed.set(0);
+        allowed.set(2);
+        List<CardDetails> cards = sSearch.search("geralt", allowed, 1);
+        assertEquals(1, cards.size());
+        assertEquals("Gerald the Baker", cards.get(0).getName());
+    }
+
+    private static CardDetails createCard(String name) throws Exception {
+        CardDetails card = new CardDetails();
+        setField(card, "ingameId", name);
+        setField(card, "name", name);
+        return card;
+    }
+
+    private static void setField(Object object, String name, Object value) throws Exception {
+        // Firebase populates these, there are no setters.
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(object, value);
+    }
+}
@@ -0,0 +1,113 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.card.CardFilter;
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.Faction;
+import com.jamieadkins.gwent.data.Type;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks filters that always give the same cards share a cache entry, and that the cache is
+ * bounded and invalidated.
+ */
+public class CardQueryCacheTest {
+    private static final String PATCH = "v0-8-60-2";
+    private static final String NEXT_PATCH = "v0-9-0";
+
+    private CardQueryCache mCache;
+
+    @Before
+    public void clearCache() {
+        mCache = CardQueryCache.getInstance();
+        mCache.clear();
+    }
+
+    @Test
+    public void equivalentFiltersAreEqual() {
+        CardFilter first = new CardFilter();
+        first.setSearchQuery("  Geralt   of Rivia");
+        first.put(Faction.MONSTERS, false);
+        first.put("not a filter", false);
+        first.addCardId("1");
+        first.addCardId("2");
+
+        CardFilter second = new CardFilter();
+        second.setSearchQuery("geralt of rivia");
+        second.put(Faction.MONSTERS, false);
+        second.addCardId("2");
+        second.addCardId("1");
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        second.put(Type.LEADER, false);
+        assertFalse(first.equals(second));
+
+        CardFilter blankSearch = new CardFilter();
+        blankSearch.setSearchQuery("   ");
+        assertEquals(new CardFilter(), blankSearch);
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        List<CardDetails> cards = new ArrayList<>();
+        CardFilter filter = new CardFilter();
+        assertNull(mCache.get(PATCH, filter));
+        mCache.put(PATCH, filter, cards);
+
+        // Changing the filter afterwards mustn't change what was cached.
+        filter.put(Faction.NORTHERN_REALMS, false);
+        assertNull(mCache.get(PATCH, filter));
+        assertSame(cards, mCache.get(PATCH, new CardFilter()));
+        assertNull(mCache.get(NEXT_PATCH, new CardFilter()));
+
+        assertEquals(1, mCache.getHitCount());
+        assertEquals(3, mCache.getMissCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        List<CardDetails> cards = new ArrayList<>();
+        for (int i = 0; i < CardQueryCache.MAX_ENTRIES; i++) {
+            mCache.put(PATCH, createSearch(i), cards);
+        }
+        // Use the oldest, so the second oldest is dropped instead.
+        assertSame(cards, mCache.get(PATCH, createSearch(0)));
+        mCache.put(PATCH, createSearch(CardQueryCache.MAX_ENTRIES), cards);
+
+        assertEquals(CardQueryCache.MAX_ENTRIES, mCache.size());
+        assertSame(cards, mCache.get(PATCH, createSearch(0)));
+        assertNull(mCache.get(PATCH, createSearch(1)));
+    }
+
+    @Test
+    public void invalidatesWhenPatchChanges() {
+        List<CardDetails> cards = new ArrayList<>();
+        mCache.put(PATCH, new CardFilter(), cards);
+        mCache.put(NEXT_PATCH, new CardFilter(), cards);
+
+        mCache.onLatestPatch(NEXT_PATCH);
+        assertNull(mCache.get(PATCH, new CardFilter()));
+        assertSame(cards, mCache.get(NEXT_PATCH, new CardFilter()));
+
+        mCache.invalidate(NEXT_PATCH);
+        assertTrue(mCache.size() == 0);
+    }
+
+    private static CardFilter createSearch(int i) {
+        CardFilter filter = new CardFilter();
+        filter.setSearchQuery("query " + i);
+        return filter;
+    }
+}
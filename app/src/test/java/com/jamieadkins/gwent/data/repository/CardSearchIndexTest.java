@@ -0,0 +1,99 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks search results are ranked by where they matched, and that matching ignores case.
+ */
+public class CardSearchIndexTest {
+    private static CardSearchIndex sIndex;
+
+    @BeforeClass
+    public static void createIndex() throws Exception {
+        // Listed worst match first, so that the ranking can't come from the order.
+        List<CardDetails> cards = new ArrayList<>();
+        cards.add(createCard("Nothing Special", "Misspelt as regeralted."));
+        cards.add(createCard("Roach", "Loyal to Geralt."));
+        cards.add(createCard("Fakegeralt", null));
+        cards.add(createCard("Ciri and Geralt", null));
+        cards.add(createCard("Geralt", null));
+        sIndex = new CardSearchIndex(cards);
+    }
+
+    @Test
+    public void nameMatchesRankAboveInfoMatches() {
+        List<CardSearchResult> results = sIndex.search("geralt");
+        assertEquals(5, results.size());
+        assertEquals("Geralt", getName(results, 0));
+        assertEquals("Ciri and Geralt", getName(results, 1));
+        assertEquals("Fakegeralt", getName(results, 2));
+        assertEquals("Roach", getName(results, 3));
+        assertEquals("Nothing Special", getName(results, 4));
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getScore() > results.get(i).getScore());
+        }
+    }
+
+    @Test
+    public void matchingIgnoresCase() {
+        List<CardSearchResult> results = sIndex.search("GeRALT");
+        assertEquals(5, results.size());
+        assertEquals("Geralt", getName(results, 0));
+
+        // Offsets point into the name as it is shown.
+        int[] offsets = results.get(1).getNameOffsets().get(0);
+        assertEquals("Geralt", "Ciri and Geralt".substring(offsets[0], offsets[1]));
+    }
+
+    @Test
+    public void everyTermHasToMatch() {
+        List<CardSearchResult> results = sIndex.search("  ciri   GERALT ");
+        assertEquals(1, results.size());
+        assertEquals("Ciri and Geralt", getName(results, 0));
+        assertEquals(2, results.get(0).getNameOffsets().size());
+
+        assertTrue(sIndex.search("ciri roach").isEmpty());
+    }
+
+    @Test
+    public void shortAndMissingTermsAreHandled() {
+        // Too short for a trigram, so every card is checked.
+        List<CardSearchResult> results = sIndex.search("ro");
+        assertEquals(1, results.size());
+        assertEquals("Roach", getName(results, 0));
+
+        assertTrue(sIndex.search("xyz").isEmpty());
+        assertTrue(sIndex.search("").isEmpty());
+        assertTrue(sIndex.search("   ").isEmpty());
+        assertTrue(sIndex.search(null).isEmpty());
+    }
+
+    private static String getName(List<CardSearchResult> results, int position) {
+        return results.get(position).getCard().getName();
+    }
+
+    private static CardDetails createCard(String name, String info) throws Exception {
+        CardDetails card = new CardDetails();
+        setField(card, "ingameId", name);
+        setField(card, "name", name);
+        setField(card, "info", info);
+        return card;
+    }
+
+    private static void setField(Object object, String name, Object value) throws Exception {
+        // Firebase populates these, there are no setters.
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(object, value);
+    }
+}
@@ -0,0 +1,147 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.Faction;
+import com.jamieadkins.gwent.data.Rarity;
+import com.jamieadkins.gwent.data.Type;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks cards that are the same between patches are only held once.
+ */
+public class CardStoreTest {
+    private static final String OLD_PATCH = "v0-8-60-2";
+    private static final String NEW_PATCH = "v0-8-72-1";
+
+    private CardStore mStore;
+
+    @Before
+    public void clearStore() {
+        mStore = CardStore.getInstance();
+        mStore.clear();
+    }
+
+    @Test
+    public void identicalCardsAreShared() {
+        CardDetails oldCard = createCard("1", 5, OLD_PATCH);
+        CardDetails newCard = createCard("1", 5, NEW_PATCH);
+        assertTrue(CardContent.isSame(oldCard, newCard));
+        assertEquals(CardContent.hash(oldCard), CardContent.hash(newCard));
+
+        assertSame(oldCard, mStore.intern(oldCard, OLD_PATCH));
+        assertSame(oldCard, mStore.intern(newCard, NEW_PATCH));
+        assertEquals(1, mStore.getVersionCount());
+        assertEquals(1, mStore.getSharedCount());
+    }
+
+    @Test
+    public void changedCardsAreKept() {
+        CardDetails oldCard = createCard("1", 5, OLD_PATCH);
+        CardDetails buffedCard = createCard("1", 6, NEW_PATCH);
+        assertFalse(CardContent.isSame(oldCard, buffedCard));
+
+        assertSame(oldCard, mStore.intern(oldCard, OLD_PATCH));
+        assertSame(buffedCard, mStore.intern(buffedCard, NEW_PATCH));
+        assertEquals(2, mStore.getVersionCount());
+    }
+
+    @Test
+    public void repositoriesShareUnchangedCards() {
+        List<CardDetails> oldCards = new ArrayList<>();
+        List<CardDetails> newCards = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            oldCards.add(createCard(String.valueOf(i), 5, OLD_PATCH));
+            // One in ten cards is rebalanced.
+            newCards.add(createCard(String.valueOf(i), i % 10 == 0 ? 6 : 5, NEW_PATCH));
+        }
+
+        CardRepository oldRepository = CardRepository.getInstance(OLD_PATCH);
+        CardRepository newRepository = CardRepository.getInstance(NEW_PATCH);
+        oldRepository.load(oldCards);
+        newRepository.load(newCards);
+
+        assertEquals(110, mStore.getVersionCount());
+        assertSame(oldRepository.getCard("1"), newRepository.getCard("1"));
+        assertNotSame(oldRepository.getCard("10"), newRepository.getCard("10"));
+        assertEquals(6, newRepository.getCard("10").getStrength());
+        assertEquals(5, oldRepository.getCard("10").getStrength());
+    }
+
+    @Test
+    public void reloadingAPatchReleasesItsOldCards() {
+        List<CardDetails> oldCards = new ArrayList<>();
+        List<CardDetails> newCards = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            oldCards.add(createCard(String.valueOf(i), 5, OLD_PATCH));
+            newCards.add(createCard(String.valueOf(i), 5, NEW_PATCH));
+        }
+        CardRepository.getInstance(NEW_PATCH).load(newCards);
+
+        // Every card in the old patch is rebalanced a few times over.
+        CardRepository repository = CardRepository.getInstance(OLD_PATCH);
+        for (int strength = 6; strength < 10; strength++) {
+            List<CardDetails> cards = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                cards.add(createCard(String.valueOf(i), strength, OLD_PATCH));
+            }
+            repository.load(cards);
+        }
+        assertEquals(20, mStore.getVersionCount());
+
+        // Back to how the new patch has them, which shares its cards again.
+        repository.load(oldCards);
+        assertEquals(10, mStore.getVersionCount());
+        assertSame(CardRepository.getInstance(NEW_PATCH).getCard("1"), repository.getCard("1"));
+
+        mStore.release(OLD_PATCH);
+        mStore.release(NEW_PATCH);
+        assertEquals(0, mStore.getVersionCount());
+    }
+
+    private static CardDetails createCard(String id, long strength, String patch) {
+        Map<String, Object> art = new HashMap<>();
+        art.put("fullsizeImageUrl", "https://example.com/" + id + ".png");
+
+        Map<String, Object> craft = new HashMap<>();
+        craft.put("standard", 30L);
+
+        Map<String, Object> variation = new HashMap<>();
+        variation.put("variationId", id + "00");
+        variation.put("rarity", Rarity.COMMON);
+        variation.put("art", art);
+        variation.put("craft", craft);
+
+        Map<String, Object> variations = new HashMap<>();
+        variations.put(id + "00", variation);
+
+        List<Object> lanes = new ArrayList<>();
+        lanes.add("melee");
+
+        Map<String, Object> value = new HashMap<>();
+        value.put("ingameId", id);
+        value.put("name", "Card " + id);
+        value.put("faction", Faction.MONSTERS);
+        value.put("type", Type.BRONZE);
+        value.put("strength", strength);
+        value.put("released", true);
+        value.put("lane", lanes);
+        value.put("variations", variations);
+
+        CardDetails card = CardDetails.fromMap(value);
+        card.setPatch(patch);
+        return card;
+    }
+}
@@ -0,0 +1,95 @@
+package com.jamieadkins.gwent.data.repository;
+
+import com.jamieadkins.gwent.data.CardDetails;
+import com.jamieadkins.gwent.data.Faction;
+import com.jamieadkins.gwent.data.Type;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks the cards that changed between two patches are found.
+ */
+public class PatchDiffTest {
+    private static final String OLD_PATCH = "v0-8-60-2";
+    private static final String NEW_PATCH = "v0-8-72-1";
+    private static final String DAMAGE_TWO = "Deploy: Damage an enemy by 2.";
+
+    @Test
+    public void identicalPatchesHaveNoChanges() {
+        List<CardDetails> oldCards = new ArrayList<>();
+        List<CardDetails> newCards = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            oldCards.add(createCard(String.valueOf(i), 5, DAMAGE_TWO, OLD_PATCH));
+            newCards.add(createCard(String.valueOf(i), 5, DAMAGE_TWO, NEW_PATCH));
+        }
+
+        PatchDiff diff = PatchDiff.diff(OLD_PATCH, oldCards, NEW_PATCH, newCards);
+        assertTrue(diff.isEmpty());
+        assertTrue(diff.getChanges().isEmpty());
+    }
+
+    @Test
+    public void findsAddedRemovedAndModifiedCards() {
+        List<CardDetails> oldCards = new ArrayList<>();
+        oldCards.add(createCard("1", 5, DAMAGE_TWO, OLD_PATCH));
+        oldCards.add(createCard("2", 5, DAMAGE_TWO, OLD_PATCH));
+        oldCards.add(createCard("3", 5, DAMAGE_TWO, OLD_PATCH));
+
+        List<CardDetails> newCards = new ArrayList<>();
+        newCards.add(createCard("1", 5, DAMAGE_TWO, NEW_PATCH));
+        newCards.add(createCard("2", 4, "Deploy: Damage an enemy by 3.", NEW_PATCH));
+        newCards.add(createCard("4", 7, "Deploy: Boost self by 1.", NEW_PATCH));
+
+        PatchDiff diff = PatchDiff.diff(OLD_PATCH, oldCards, NEW_PATCH, newCards);
+
+        assertEquals(1, diff.getAdded().size());
+        assertEquals("4", diff.getAdded().get(0).getCard().getIngameId());
+        assertEquals(1, diff.getRemoved().size());
+        assertEquals("3", diff.getRemoved().get(0).getCard().getIngameId());
+        // Removed cards can only be shown from the old patch.
+        assertEquals(NEW_PATCH, diff.getAdded().get(0).getPatch());
+        assertEquals(OLD_PATCH, diff.getRemoved().get(0).getPatch());
+        assertEquals(1, diff.getModified().size());
+
+        CardChange change = diff.getModified().get(0);
+        assertEquals("2", change.getCard().getIngameId());
+        assertEquals(5, change.getOldCard().getStrength());
+        assertEquals(4, change.getNewCard().getStrength());
+        assertEquals(2, change.getChangedFields().size());
+        assertEquals(CardChange.INFO, change.getChangedFields().get(0));
+        assertEquals(CardChange.STRENGTH, change.getChangedFields().get(1));
+
+        List<CardChange> changes = diff.getChanges();
+        assertEquals(3, changes.size());
+        assertEquals(CardChange.Kind.ADDED, changes.get(0).getKind());
+        assertEquals(CardChange.Kind.MODIFIED, changes.get(1).getKind());
+        assertEquals(CardChange.Kind.REMOVED, changes.get(2).getKind());
+    }
+
+    private static CardDetails createCard(String id, long strength, String info, String patch) {
+        List<Object> lanes = new ArrayList<>();
+        lanes.add("melee");
+
+        Map<String, Object> value = new HashMap<>();
+        value.put("ingameId", id);
+        value.put("name", "Card " + id);
+        value.put("info", info);
+        value.put("faction", Faction.MONSTERS);
+        value.put("type", Type.BRONZE);
+        value.put("strength", strength);
+        value.put("released", true);
+        value.put("lane", lanes);
+
+        CardDetails card = CardDetails.fromMap(value);
+        card.setPatch(patch);
+        return card;
+    }
+}
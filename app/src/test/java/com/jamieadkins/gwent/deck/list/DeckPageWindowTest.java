@@ -0,0 +1,96 @@
+package com.jamieadkins.gwent.deck.list;
+
+import com.jamieadkins.gwent.data.DeckSummary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Checks the deck window prefetches near either end and never holds more than its maximum pages.
+ */
+public class DeckPageWindowTest {
+
+    @Test
+    public void nextPageIsPrefetchedNearTheEnd() {
+        DeckPageWindow window = new DeckPageWindow(10, 3);
+        assertNull(window.getLastDeck());
+        assertTrue(window.shouldLoadNext(-1));
+
+        window.appendPage(createPage(0, 10));
+        assertFalse(window.shouldLoadNext(4));
+        assertTrue(window.shouldLoadNext(5));
+
+        window.setLoading(true);
+        assertFalse(window.shouldLoadNext(9));
+    }
+
+    @Test
+    public void shortPageEndsTheList() {
+        DeckPageWindow window = new DeckPageWindow(10, 3);
+        window.appendPage(createPage(0, 10));
+        window.appendPage(createPage(10, 4));
+
+        assertEquals(14, window.getDecks().size());
+        assertEquals("13", window.getLastDeck().getId());
+        assertFalse(window.shouldLoadNext(13));
+    }
+
+    @Test
+    public void farPagesAreEvicted() {
+        DeckPageWindow window = new DeckPageWindow(10, 3);
+        for (int page = 0; page < 5; page++) {
+            window.appendPage(createPage(page * 10, 10));
+        }
+
+        List<DeckSummary> decks = window.getDecks();
+        assertEquals(30, decks.size());
+        assertEquals("20", window.getFirstDeck().getId());
+        assertEquals("49", window.getLastDeck().getId());
+        assertTrue(window.shouldLoadPrevious(0));
+
+        // Scrolling back drops the last page instead.
+        window.prependPage(createPage(10, 10));
+        assertEquals(30, window.getDecks().size());
+        assertEquals("10", window.getFirstDeck().getId());
+        assertEquals("39", window.getLastDeck().getId());
+        assertTrue(window.shouldLoadNext(29));
+    }
+
+    @Test
+    public void firstPageEndsScrollingBack() {
+        DeckPageWindow window = new DeckPageWindow(10, 2);
+        window.appendPage(createPage(0, 10));
+        assertFalse(window.shouldLoadPrevious(0));
+
+        window.appendPage(createPage(10, 10));
+        window.appendPage(createPage(20, 10));
+        window.prependPage(createPage(0, 10));
+        assertEquals("0", window.getFirstDeck().getId());
+
+        // A full page might not be the first, so one more request finds nothing before it.
+        assertTrue(window.shouldLoadPrevious(0));
+        window.prependPage(new ArrayList<DeckSummary>());
+        assertEquals("0", window.getFirstDeck().getId());
+        assertFalse(window.shouldLoadPrevious(0));
+    }
+
+    private static List<DeckSummary> createPage(int first, int size) {
+        List<DeckSummary> page = new ArrayList<>();
+        for (int i = first; i < first + size; i++) {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("id", String.valueOf(i));
+            summary.put("name", "Deck " + i);
+            page.add(DeckSummary.fromMap(summary));
+        }
+        return page;
+    }
+}
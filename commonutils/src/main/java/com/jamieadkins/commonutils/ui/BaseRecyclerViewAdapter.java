@@ -1,5 +1,6 @@
 package com.jamieadkins.commonutils.ui;
 
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
 
 import java.util.ArrayList;
@@ -46,6 +47,38 @@ public abstract class BaseRecyclerViewAdapter<T> extends RecyclerView.Adapter<Ba
         notifyDataSetChanged();
     }
 
+    /**
+     * Replaces the items in the adapter, only notifying the rows that were actually inserted,
+     * removed or moved so that the changes are animated rather than redrawing the whole list.
+     */
+    public void setItems(final List<T> items) {
+        final List<T> oldItems = mItems;
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldItems.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return items.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldItems.get(oldItemPosition).equals(items.get(newItemPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldItems.get(oldItemPosition) == items.get(newItemPosition);
+            }
+        });
+
+        mItems = new ArrayList<>(items);
+        result.dispatchUpdatesTo(this);
+    }
+
     public void clear() {
         mItems.clear();
         notifyDataSetChanged();